@@ -52,6 +52,8 @@ android {
 
 dependencies {
 
+    implementation(project(":core"))
+
     implementation("com.mypos:mypossmartsdk:1.0.5")
 
     implementation("com.google.firebase:firebase-auth:22.3.1")
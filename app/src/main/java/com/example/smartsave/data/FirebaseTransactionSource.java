@@ -0,0 +1,98 @@
+package com.example.smartsave.data;
+
+import androidx.annotation.NonNull;
+
+import com.example.smartsave.core.Money;
+import com.example.smartsave.core.TransactionColumns;
+import com.example.smartsave.core.TransactionSource;
+import com.example.smartsave.core.TransactionType;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+
+/**
+ * Reads smartSaveProfile/{uid}/transactions with timestamp-ordered queries and hands the
+ * rows over as {@link TransactionColumns}.
+ */
+public class FirebaseTransactionSource implements TransactionSource {
+
+    private static final String SMART_SAVE_PROFILE_NODE = "smartSaveProfile";
+    private static final String TRANSACTIONS_SUB_NODE = "transactions";
+    private static final String DB_URL = "https://smartsave-e0e7b-default-rtdb.europe-west1.firebasedatabase.app/";
+
+    private final DatabaseReference transactionsRef;
+
+    public FirebaseTransactionSource(String userId) {
+        this.transactionsRef = FirebaseDatabase.getInstance(DB_URL)
+                .getReference(SMART_SAVE_PROFILE_NODE)
+                .child(userId)
+                .child(TRANSACTIONS_SUB_NODE);
+    }
+
+    @Override
+    public void loadAll(Callback callback) {
+        read(transactionsRef.orderByChild("timestamp"), callback);
+    }
+
+    @Override
+    public void loadRange(long fromTimestamp, long toTimestamp, Callback callback) {
+        read(transactionsRef.orderByChild("timestamp")
+                .startAt((double) fromTimestamp)
+                .endAt((double) toTimestamp), callback);
+    }
+
+    @Override
+    public void loadFrom(long timestamp, String key, Callback callback) {
+        read(transactionsRef.orderByChild("timestamp").startAt((double) timestamp, key), callback);
+    }
+
+    /**
+     * Converts a transactions snapshot without deserializing a Transaction per child.
+     */
+    public static TransactionColumns toColumns(DataSnapshot transactionsSnapshot) {
+        TransactionColumns.Builder builder = new TransactionColumns.Builder((int) transactionsSnapshot.getChildrenCount());
+        for (DataSnapshot txSnapshot : transactionsSnapshot.getChildren()) {
+            builder.addMinor(
+                    txSnapshot.getKey(),
+                    toLong(txSnapshot.child("timestamp").getValue()),
+                    toMinorUnits(txSnapshot.child("amount").getValue()),
+                    toMinorUnits(txSnapshot.child("savingsCalculated").getValue()),
+                    TransactionType.parse(txSnapshot.child("type").getValue(String.class)),
+                    txSnapshot.child("currency").getValue(String.class),
+                    txSnapshot.child("description").getValue(String.class)
+            );
+        }
+        return builder.build();
+    }
+
+    private static void read(Query query, Callback callback) {
+        query.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                callback.onLoaded(toColumns(dataSnapshot));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                callback.onError(databaseError.getMessage());
+            }
+        });
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    /**
+     * Whole numbers come back from Firebase as Long and scale exactly; decimals go through {@link Money}.
+     */
+    private static long toMinorUnits(Object value) {
+        if (value instanceof Long || value instanceof Integer) {
+            return Math.multiplyExact(((Number) value).longValue(), 100L);
+        }
+        return value instanceof Number ? Money.toMinorUnits(((Number) value).doubleValue()) : 0L;
+    }
+}
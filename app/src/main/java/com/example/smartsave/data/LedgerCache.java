@@ -0,0 +1,62 @@
+package com.example.smartsave.data;
+
+import android.content.Context;
+
+import com.example.smartsave.core.CachedTransactionSource;
+import com.example.smartsave.core.CoalescingTransactionSource;
+import com.example.smartsave.core.FileLedgerStore;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * One {@link CachedTransactionSource} per signed-in user, persisted under the app's files
+ * directory. Every ledger read goes through here so that only deltas hit the network, and
+ * concurrent reads from different screens share one Firebase query.
+ */
+public final class LedgerCache {
+
+    private static final String CACHE_DIRECTORY = "ledger-cache";
+
+    private static final Map<String, CachedTransactionSource> SOURCES = new HashMap<>();
+    private static final Map<String, CoalescingTransactionSource> REMOTES = new HashMap<>();
+    private static final Executor IO_EXECUTOR = Executors.newSingleThreadExecutor();
+    private static File directory;
+
+    private LedgerCache() {
+    }
+
+    /**
+     * Enables the on-disk copy. Without it the cache still works, in memory only.
+     */
+    public static synchronized void init(Context context) {
+        if (directory != null) return;
+        File cacheDirectory = new File(context.getApplicationContext().getFilesDir(), CACHE_DIRECTORY);
+        if (cacheDirectory.isDirectory() || cacheDirectory.mkdirs()) directory = cacheDirectory;
+    }
+
+    public static synchronized CachedTransactionSource forUser(String userId) {
+        CachedTransactionSource source = SOURCES.get(userId);
+        if (source == null) {
+            CoalescingTransactionSource remote = new CoalescingTransactionSource(new FirebaseTransactionSource(userId));
+            REMOTES.put(userId, remote);
+            source = new CachedTransactionSource(
+                    remote,
+                    directory != null ? new FileLedgerStore(directory, userId) : null,
+                    IO_EXECUTOR);
+            SOURCES.put(userId, source);
+        }
+        return source;
+    }
+
+    /**
+     * The Firebase reads behind {@link #forUser}, with their issued and coalesced counts.
+     */
+    public static synchronized CoalescingTransactionSource remoteReads(String userId) {
+        forUser(userId);
+        return REMOTES.get(userId);
+    }
+}
@@ -1,5 +1,15 @@
 package com.example.smartsave.data;
 
+import com.example.smartsave.model.Transaction;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.lang.reflect.Type;
+
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
@@ -9,11 +19,38 @@ public class RetrofitClient {
 
     public static TransactionApi getTransactionApi() {
         if (retrofit == null) {
+            Gson gson = new GsonBuilder()
+                    .registerTypeAdapter(Transaction.class, new TransactionDeserializer())
+                    .create();
             retrofit = new Retrofit.Builder()
                     .baseUrl(BASE_URL)
-                    .addConverterFactory(GsonConverterFactory.create())
+                    .addConverterFactory(GsonConverterFactory.create(gson))
                     .build();
         }
         return retrofit.create(TransactionApi.class);
     }
+
+    /**
+     * Transaction keeps amounts in minor units, so the decimal JSON fields go through its setters.
+     */
+    private static class TransactionDeserializer implements JsonDeserializer<Transaction> {
+        @Override
+        public Transaction deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) {
+            JsonObject object = json.getAsJsonObject();
+            Transaction transaction = new Transaction();
+            if (has(object, "id")) transaction.setId(object.get("id").getAsString());
+            if (has(object, "description")) transaction.setDescription(object.get("description").getAsString());
+            if (has(object, "amount")) transaction.setAmount(object.get("amount").getAsDouble());
+            if (has(object, "type")) transaction.setType(object.get("type").getAsString());
+            if (has(object, "savingsCalculated"))
+                transaction.setSavingsCalculated(object.get("savingsCalculated").getAsDouble());
+            if (has(object, "timestamp")) transaction.setTimestamp(object.get("timestamp").getAsLong());
+            if (has(object, "currency")) transaction.setCurrency(object.get("currency").getAsString());
+            return transaction;
+        }
+
+        private static boolean has(JsonObject object, String name) {
+            return object.has(name) && !object.get(name).isJsonNull();
+        }
+    }
 }
@@ -0,0 +1,99 @@
+package com.example.smartsave.data;
+
+import androidx.annotation.NonNull;
+
+import com.example.smartsave.core.TransactionColumns;
+import com.example.smartsave.core.TransactionSource;
+import com.example.smartsave.model.Transaction;
+
+import java.util.List;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Serves the ledger from the REST API's {@code transactions/get-all}. The endpoint has no
+ * range parameters, so ranges are cut from the full response.
+ */
+public class RetrofitTransactionSource implements TransactionSource {
+
+    private final TransactionApi api;
+
+    public RetrofitTransactionSource(TransactionApi api) {
+        this.api = api;
+    }
+
+    public RetrofitTransactionSource() {
+        this(RetrofitClient.getTransactionApi());
+    }
+
+    @Override
+    public void loadAll(TransactionSource.Callback callback) {
+        api.getAllTransactions().enqueue(new Callback<List<Transaction>>() {
+            @Override
+            public void onResponse(@NonNull Call<List<Transaction>> call, @NonNull Response<List<Transaction>> response) {
+                List<Transaction> body = response.body();
+                if (!response.isSuccessful() || body == null) {
+                    callback.onError("Transactions request failed with HTTP " + response.code());
+                    return;
+                }
+                callback.onLoaded(toColumns(body));
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<List<Transaction>> call, @NonNull Throwable t) {
+                callback.onError(t.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void loadRange(long fromTimestamp, long toTimestamp, TransactionSource.Callback callback) {
+        loadAll(new TransactionSource.Callback() {
+            @Override
+            public void onLoaded(TransactionColumns columns) {
+                callback.onLoaded(columns.slice(columns.lowerBound(fromTimestamp), columns.upperBound(toTimestamp)));
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                callback.onError(errorMessage);
+            }
+        });
+    }
+
+    @Override
+    public void loadFrom(long timestamp, String key, TransactionSource.Callback callback) {
+        loadAll(new TransactionSource.Callback() {
+            @Override
+            public void onLoaded(TransactionColumns columns) {
+                int from = columns.indexOf(timestamp, key);
+                callback.onLoaded(columns.slice(from >= 0 ? from : columns.upperBound(timestamp), columns.size()));
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                callback.onError(errorMessage);
+            }
+        });
+    }
+
+    public static TransactionColumns toColumns(List<Transaction> transactions) {
+        TransactionColumns.Builder builder = new TransactionColumns.Builder(transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            if (transaction == null) continue;
+            builder.addMinor(
+                    transaction.getId() != null ? transaction.getId() : String.valueOf(i),
+                    transaction.getTimestamp(),
+                    transaction.getAmountMinor(),
+                    transaction.getSavingsCalculatedMinor(),
+                    transaction.getTransactionType(),
+                    transaction.getCurrency(),
+                    transaction.getDescription()
+            );
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.smartsave.data
+
+import android.util.Log
+import com.example.smartsave.core.CachedTransactionSource
+import com.example.smartsave.core.Money
+import com.example.smartsave.core.TransactionColumns
+import com.example.smartsave.core.TransactionSource
+import com.example.smartsave.model.Transaction
+import com.example.smartsave.util.WithdrawalStore
+import com.google.firebase.database.ChildEventListener
+import com.google.firebase.database.DataSnapshot
+import com.google.firebase.database.DatabaseError
+import com.google.firebase.database.DatabaseReference
+import com.google.firebase.database.FirebaseDatabase
+import com.google.firebase.database.Query
+import com.google.firebase.database.ValueEventListener
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.stateIn
+import kotlinx.coroutines.launch
+
+private const val TAG_SAVINGS_REPOSITORY = "SavingsRepository"
+
+/**
+ * App-scoped live view of each user's SmartSave profile and ledger.
+ *
+ * Every node has one Firebase listener however many screens collect it. The listener is
+ * attached by the first collector and kept for [RELEASE_GRACE_MILLIS] after the last one
+ * leaves, so navigating between screens reuses what is already loaded. Profile fields are
+ * listened to one by one: a listener on smartSaveProfile/{uid} would also download every
+ * transaction. The ledger starts from [LedgerCache] and is kept current by child events.
+ * When nothing is cached yet, the newest [HISTORY_PAGE_SIZE] transactions are read on their
+ * own first, so the history can be shown before the whole ledger has downloaded.
+ *
+ * Flows emit on the main thread, where the Firebase callbacks run.
+ */
+object SavingsRepository {
+
+    const val RELEASE_GRACE_MILLIS = 30_000L
+
+    /** Transactions per page of the dashboard's history, and in the first-page read. */
+    const val HISTORY_PAGE_SIZE = 50
+
+    private const val DB_URL = "https://smartsave-e0e7b-default-rtdb.europe-west1.firebasedatabase.app/"
+    private const val SMART_SAVE_PROFILE_NODE = "smartSaveProfile"
+    private const val SAVINGS_PERCENTAGE = "savingsPercentage"
+    private const val START_DATE = "startDate"
+    private const val TOTAL_SAVED = "totalSaved"
+    private const val IS_ACTIVE = "isActive"
+    private const val PENDING_WITHDRAWAL_TOTAL = WithdrawalStore.PENDING_TOTAL_PATH
+    private const val TRANSACTIONS = "transactions"
+    private val PROFILE_FIELDS = listOf(SAVINGS_PERCENTAGE, START_DATE, TOTAL_SAVED, IS_ACTIVE, PENDING_WITHDRAWAL_TOTAL)
+
+    data class Profile(
+        /** False until every field has been read once. */
+        val loaded: Boolean = false,
+        /** Whether the user has completed SmartSave setup. */
+        val exists: Boolean = false,
+        val savingsPercentage: Double = 0.0,
+        val startDate: String? = null,
+        val totalSavedMinor: Long = 0L,
+        val isActive: Boolean = true,
+        /** Sum of the withdrawals still being processed, from the pendingWithdrawals index. */
+        val pendingWithdrawalMinor: Long = 0L,
+        val error: String? = null
+    ) {
+        val totalSaved: Double get() = Money.toMajorUnits(totalSavedMinor)
+    }
+
+    /**
+     * The ledger index, which is updated in place on the main thread; every change is a new
+     * [Ledger] with a higher [revision]. Until [complete], the index holds only the newest page
+     * and totals over it are not meaningful.
+     */
+    class Ledger(
+        val index: TransactionTimeIndex,
+        val revision: Int,
+        val loaded: Boolean,
+        val complete: Boolean,
+        val error: String?
+    )
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.Main.immediate)
+    private val profiles = HashMap<String, StateFlow<Profile>>()
+    private val ledgers = HashMap<String, StateFlow<Ledger>>()
+
+    @Synchronized
+    fun profile(userId: String): StateFlow<Profile> = profiles.getOrPut(userId) {
+        profileUpdates(userId).stateIn(scope, SharingStarted.WhileSubscribed(RELEASE_GRACE_MILLIS), Profile())
+    }
+
+    @Synchronized
+    fun ledger(userId: String): StateFlow<Ledger> = ledgers.getOrPut(userId) {
+        ledgerUpdates(userId).stateIn(
+            scope,
+            SharingStarted.WhileSubscribed(RELEASE_GRACE_MILLIS),
+            Ledger(TransactionTimeIndex.empty(), 0, false, false, null)
+        )
+    }
+
+    /**
+     * Delivers the profile once it is loaded, for callers outside a coroutine. The profile
+     * listener then stays attached for the grace period, ready for the next screen.
+     */
+    fun awaitProfile(userId: String, callback: (Profile) -> Unit) {
+        scope.launch { callback(profile(userId).first { it.loaded }) }
+    }
+
+    private fun profileRef(userId: String): DatabaseReference =
+        FirebaseDatabase.getInstance(DB_URL).reference.child(SMART_SAVE_PROFILE_NODE).child(userId)
+
+    private fun profileUpdates(userId: String): Flow<Profile> = callbackFlow {
+        val profileRef = profileRef(userId)
+        val fieldsRead = HashSet<String>()
+        var profile = Profile()
+
+        val listeners = PROFILE_FIELDS.associateWith { field ->
+            profileRef.child(field).addValueEventListener(object : ValueEventListener {
+                override fun onDataChange(snapshot: DataSnapshot) {
+                    fieldsRead.add(field)
+                    profile = when (field) {
+                        SAVINGS_PERCENTAGE -> profile.copy(
+                            exists = snapshot.exists(),
+                            savingsPercentage = snapshot.getValue(Double::class.java) ?: 0.0
+                        )
+                        START_DATE -> profile.copy(startDate = snapshot.getValue(String::class.java))
+                        TOTAL_SAVED -> profile.copy(
+                            totalSavedMinor = Money.toMinorUnits(snapshot.getValue(Double::class.java) ?: 0.0)
+                        )
+                        IS_ACTIVE -> profile.copy(isActive = snapshot.getValue(Boolean::class.java) ?: true)
+                        else -> profile.copy(
+                            pendingWithdrawalMinor = Money.toMinorUnits(snapshot.getValue(Double::class.java) ?: 0.0)
+                        )
+                    }.copy(loaded = fieldsRead.size == PROFILE_FIELDS.size)
+                    trySend(profile)
+                }
+
+                override fun onCancelled(error: DatabaseError) {
+                    Log.e(TAG_SAVINGS_REPOSITORY, "[Profile] Failed to read $field for user $userId: ${error.message}")
+                    profile = profile.copy(loaded = true, error = error.message)
+                    trySend(profile)
+                }
+            })
+        }
+        Log.d(TAG_SAVINGS_REPOSITORY, "[Profile] Listening for user $userId")
+
+        awaitClose {
+            listeners.forEach { (field, listener) -> profileRef.child(field).removeEventListener(listener) }
+            Log.d(TAG_SAVINGS_REPOSITORY, "[Profile] Released for user $userId")
+        }
+    }
+
+    private fun ledgerUpdates(userId: String): Flow<Ledger> = callbackFlow {
+        val transactionsRef = profileRef(userId).child(TRANSACTIONS)
+        var index = TransactionTimeIndex.empty()
+        var revision = 0
+        var liveQuery: Query? = null
+        var liveListener: ChildEventListener? = null
+        var complete = false
+        var closed = false
+
+        fun publish(error: String? = null) {
+            revision++
+            trySend(Ledger(index, revision, true, complete, error))
+        }
+
+        fun applyChild(apply: TransactionTimeIndex.() -> Unit) {
+            if (closed) return
+            index.apply()
+            publish()
+        }
+
+        // Child events from the cache's resume row on; the rows before it are already cached.
+        fun listenFrom(columns: TransactionColumns) {
+            val anchor = CachedTransactionSource.resumeRow(columns)
+            val query = if (anchor < 0) {
+                transactionsRef.orderByChild("timestamp")
+            } else {
+                transactionsRef.orderByChild("timestamp")
+                    .startAt(columns.timestamp(anchor).toDouble(), columns.key(anchor))
+            }
+            val listener = object : ChildEventListener {
+                override fun onChildAdded(snapshot: DataSnapshot, previousChildName: String?) {
+                    snapshot.getValue(Transaction::class.java)?.let { transaction ->
+                        transaction.id = snapshot.key ?: ""
+                        applyChild { put(transaction) }
+                    }
+                }
+
+                override fun onChildChanged(snapshot: DataSnapshot, previousChildName: String?) {
+                    onChildAdded(snapshot, previousChildName)
+                }
+
+                override fun onChildRemoved(snapshot: DataSnapshot) {
+                    snapshot.key?.let { key -> applyChild { remove(key) } }
+                }
+
+                override fun onChildMoved(snapshot: DataSnapshot, previousChildName: String?) {
+                    // Order comes from (timestamp, id); put() already re-positioned the row.
+                }
+
+                override fun onCancelled(error: DatabaseError) {
+                    Log.e(TAG_SAVINGS_REPOSITORY, "[Ledger] Listener cancelled for user $userId: ${error.message}")
+                    publish("Failed to load transactions.")
+                }
+            }
+            liveQuery = query
+            liveListener = query.addChildEventListener(listener)
+        }
+
+        val ledgerCache = LedgerCache.forUser(userId)
+        if (ledgerCache.cached == null) {
+            transactionsRef.orderByChild("timestamp").limitToLast(HISTORY_PAGE_SIZE)
+                .addListenerForSingleValueEvent(object : ValueEventListener {
+                    override fun onDataChange(snapshot: DataSnapshot) {
+                        if (closed || complete) return
+                        index = TransactionTimeIndex.of(snapshot.children.mapNotNull { child ->
+                            child.getValue(Transaction::class.java)?.apply { id = child.key ?: "" }
+                        })
+                        publish()
+                    }
+
+                    override fun onCancelled(error: DatabaseError) {
+                        // The full load reports its own error.
+                    }
+                })
+        }
+
+        ledgerCache.loadAll(object : TransactionSource.Callback {
+            override fun onLoaded(columns: TransactionColumns) {
+                if (closed) return
+                index = TransactionTimeIndex.of(columns)
+                complete = true
+                publish()
+                listenFrom(columns)
+            }
+
+            override fun onError(errorMessage: String) {
+                if (closed) return
+                Log.e(TAG_SAVINGS_REPOSITORY, "[Ledger] Failed to load transactions for user $userId: $errorMessage")
+                publish("Failed to load transactions.")
+            }
+        })
+        Log.d(TAG_SAVINGS_REPOSITORY, "[Ledger] Listening for user $userId")
+
+        awaitClose {
+            closed = true
+            liveListener?.let { liveQuery?.removeEventListener(it) }
+            Log.d(TAG_SAVINGS_REPOSITORY, "[Ledger] Released for user $userId")
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.smartsave.data;
+
+import com.example.smartsave.core.Money;
+import com.example.smartsave.core.TransactionColumns;
+import com.example.smartsave.core.TransactionType;
+import com.example.smartsave.model.Transaction;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loaded transactions ordered by (timestamp, id), kept current one child event at a time.
+ * <p>
+ * {@link #put} and {@link #remove} find a row by binary search. A new transaction carries
+ * the latest timestamp, so it is appended in O(1). The pending-withdrawal total is adjusted
+ * by the row's old and new values instead of being re-summed. Ranges are read-through views
+ * that resolve their bounds on access, so they stay valid as the index changes. Pages for the
+ * transaction history run newest first down to a cursor row, so rows arriving at the top
+ * don't shift which older rows are shown. Confined to the main thread, like the Firebase
+ * callbacks that feed it.
+ */
+public final class TransactionTimeIndex {
+
+    private static final Comparator<Transaction> BY_TIME = (a, b) -> {
+        int byTime = Long.compare(a.getTimestamp(), b.getTimestamp());
+        if (byTime != 0) return byTime;
+        return idOf(a).compareTo(idOf(b));
+    };
+
+    private final ArrayList<Transaction> rows;
+    private final Map<String, Transaction> byId;
+    private long pendingWithdrawalMinor;
+
+    private TransactionTimeIndex(ArrayList<Transaction> rows) {
+        this.rows = rows;
+        this.byId = new HashMap<>(Math.max(16, rows.size() * 2));
+        for (Transaction transaction : rows) {
+            byId.put(idOf(transaction), transaction);
+            pendingWithdrawalMinor += pendingAmount(transaction);
+        }
+    }
+
+    public static TransactionTimeIndex empty() {
+        return new TransactionTimeIndex(new ArrayList<>());
+    }
+
+    /**
+     * Indexes {@code transactions}; rows already in timestamp order, as
+     * orderByChild("timestamp") returns them, are taken without sorting.
+     */
+    public static TransactionTimeIndex of(List<Transaction> transactions) {
+        ArrayList<Transaction> rows = new ArrayList<>(transactions);
+        boolean sorted = true;
+        for (int i = 1; i < rows.size() && sorted; i++) {
+            sorted = BY_TIME.compare(rows.get(i - 1), rows.get(i)) <= 0;
+        }
+        if (!sorted) Collections.sort(rows, BY_TIME);
+        return new TransactionTimeIndex(rows);
+    }
+
+    /**
+     * Indexes a ledger read through {@link LedgerCache}, which is already in ledger order.
+     */
+    public static TransactionTimeIndex of(TransactionColumns columns) {
+        ArrayList<Transaction> rows = new ArrayList<>(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            rows.add(toTransaction(columns, i));
+        }
+        return new TransactionTimeIndex(rows);
+    }
+
+    public static Transaction toTransaction(TransactionColumns columns, int row) {
+        Transaction transaction = new Transaction();
+        transaction.setId(columns.key(row));
+        transaction.setDescription(columns.description(row));
+        transaction.setAmountMinor(columns.amount(row));
+        transaction.setType(columns.type(row).name());
+        transaction.setSavingsCalculatedMinor(columns.savings(row));
+        transaction.setTimestamp(columns.timestamp(row));
+        transaction.setCurrency(columns.currency(row));
+        return transaction;
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * Adds a transaction, or replaces the one with the same id.
+     */
+    public void put(Transaction transaction) {
+        Transaction previous = byId.put(idOf(transaction), transaction);
+        if (previous != null) {
+            rows.remove(position(previous));
+            pendingWithdrawalMinor -= pendingAmount(previous);
+        }
+        int last = rows.size() - 1;
+        if (last < 0 || BY_TIME.compare(rows.get(last), transaction) <= 0) {
+            rows.add(transaction);
+        } else {
+            rows.add(-(Collections.binarySearch(rows, transaction, BY_TIME) + 1), transaction);
+        }
+        pendingWithdrawalMinor += pendingAmount(transaction);
+    }
+
+    public void remove(String id) {
+        Transaction previous = byId.remove(id);
+        if (previous == null) return;
+        rows.remove(position(previous));
+        pendingWithdrawalMinor -= pendingAmount(previous);
+    }
+
+    /**
+     * Sum of PENDING_WITHDRAWAL amounts, in minor units (negative, as they are stored).
+     */
+    public long getPendingWithdrawalMinor() {
+        return pendingWithdrawalMinor;
+    }
+
+    public double getPendingWithdrawal() {
+        return Money.toMajorUnits(pendingWithdrawalMinor);
+    }
+
+    /**
+     * Every transaction, oldest first, as a live view of the index.
+     */
+    public List<Transaction> all() {
+        return range(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Transactions with timestamps in [fromTimestamp, toTimestamp], oldest first, as a live view of the index.
+     */
+    public List<Transaction> range(long fromTimestamp, long toTimestamp) {
+        return new RangeView(fromTimestamp, toTimestamp);
+    }
+
+    /**
+     * Transactions with timestamps in [fromTimestamp, toTimestamp], newest first, down to and
+     * including {@code cursor}; with no cursor, the newest {@code pageSize} of them. A live
+     * view of the index.
+     */
+    public List<Transaction> newestFirst(long fromTimestamp, long toTimestamp, Transaction cursor, int pageSize) {
+        return new PageView(fromTimestamp, toTimestamp, cursor, pageSize);
+    }
+
+    /**
+     * Cursor for the page after {@code cursor}: {@code pageSize} rows older, or the oldest row
+     * in range when fewer are left.
+     */
+    public Transaction olderCursor(long fromTimestamp, long toTimestamp, Transaction cursor, int pageSize) {
+        int upper = upperBound(toTimestamp);
+        int oldestShown = cursor != null ? seek(cursor) : Math.max(upper - pageSize, 0);
+        int first = Math.max(lowerBound(fromTimestamp), Math.min(oldestShown, upper) - pageSize);
+        return first < upper ? rows.get(first) : null;
+    }
+
+    /**
+     * Whether rows in range are older than the page ending at {@code cursor}.
+     */
+    public boolean hasOlder(long fromTimestamp, long toTimestamp, Transaction cursor, int pageSize) {
+        int upper = upperBound(toTimestamp);
+        int oldestShown = cursor != null ? seek(cursor) : upper - pageSize;
+        return oldestShown > lowerBound(fromTimestamp);
+    }
+
+    private int seek(Transaction cursor) {
+        int found = Collections.binarySearch(rows, cursor, BY_TIME);
+        return found >= 0 ? found : -(found + 1);
+    }
+
+    private int position(Transaction transaction) {
+        return Collections.binarySearch(rows, transaction, BY_TIME);
+    }
+
+    private int lowerBound(long timestamp) {
+        int low = 0;
+        int high = rows.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rows.get(mid).getTimestamp() < timestamp) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private int upperBound(long timestamp) {
+        int low = 0;
+        int high = rows.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rows.get(mid).getTimestamp() <= timestamp) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private static String idOf(Transaction transaction) {
+        return transaction.getId() != null ? transaction.getId() : "";
+    }
+
+    private static long pendingAmount(Transaction transaction) {
+        return transaction.getTransactionType() == TransactionType.PENDING_WITHDRAWAL ? transaction.getAmountMinor() : 0L;
+    }
+
+    private final class RangeView extends AbstractList<Transaction> {
+        private final long fromTimestamp;
+        private final long toTimestamp;
+
+        RangeView(long fromTimestamp, long toTimestamp) {
+            this.fromTimestamp = fromTimestamp;
+            this.toTimestamp = toTimestamp;
+        }
+
+        @Override
+        public Transaction get(int index) {
+            int from = lowerBound(fromTimestamp);
+            if (index < 0 || from + index >= upperBound(toTimestamp)) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return rows.get(from + index);
+        }
+
+        @Override
+        public int size() {
+            return fromTimestamp > toTimestamp ? 0 : Math.max(upperBound(toTimestamp) - lowerBound(fromTimestamp), 0);
+        }
+    }
+
+    private final class PageView extends AbstractList<Transaction> {
+        private final long fromTimestamp;
+        private final long toTimestamp;
+        private final Transaction cursor;
+        private final int pageSize;
+
+        PageView(long fromTimestamp, long toTimestamp, Transaction cursor, int pageSize) {
+            this.fromTimestamp = fromTimestamp;
+            this.toTimestamp = toTimestamp;
+            this.cursor = cursor;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public Transaction get(int index) {
+            int upper = upperBound(toTimestamp);
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return rows.get(upper - 1 - index);
+        }
+
+        @Override
+        public int size() {
+            if (fromTimestamp > toTimestamp) return 0;
+            int upper = upperBound(toTimestamp);
+            int lower = Math.max(lowerBound(fromTimestamp), cursor != null ? seek(cursor) : upper - pageSize);
+            return Math.max(upper - lower, 0);
+        }
+    }
+}
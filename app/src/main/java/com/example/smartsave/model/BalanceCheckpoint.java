@@ -0,0 +1,117 @@
+package com.example.smartsave.model;
+
+import com.example.smartsave.core.Money;
+import com.example.smartsave.core.TransactionType;
+import com.google.firebase.database.Exclude;
+import com.google.firebase.database.IgnoreExtraProperties;
+
+/**
+ * Position in the transactions ledger up to which totalSaved has been summed.
+ * Transactions are ordered by (timestamp, key), matching orderByChild("timestamp").
+ */
+@IgnoreExtraProperties
+public class BalanceCheckpoint {
+
+    private String lastKey;
+    private long lastTimestamp;
+    // Minor units; stored in Firebase as the decimal "runningTotal".
+    private long runningTotalMinor;
+    private long transactionCount;
+    // TransactionType.RULES_VERSION the total was summed under; 0 for checkpoints that predate it.
+    private int rulesVersion;
+
+    public BalanceCheckpoint() {
+    }
+
+    public BalanceCheckpoint(String lastKey, long lastTimestamp, long runningTotalMinor, long transactionCount) {
+        this.lastKey = lastKey;
+        this.lastTimestamp = lastTimestamp;
+        this.runningTotalMinor = runningTotalMinor;
+        this.transactionCount = transactionCount;
+        this.rulesVersion = TransactionType.RULES_VERSION;
+    }
+
+    /**
+     * Checkpoint for an empty ledger: current, but anchored before every transaction.
+     */
+    public static BalanceCheckpoint empty() {
+        return new BalanceCheckpoint("", 0L, 0L, 0L);
+    }
+
+    public String getLastKey() {
+        return lastKey;
+    }
+
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public double getRunningTotal() {
+        return Money.toMajorUnits(runningTotalMinor);
+    }
+
+    @Exclude
+    public long getRunningTotalMinor() {
+        return runningTotalMinor;
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public int getRulesVersion() {
+        return rulesVersion;
+    }
+
+    /**
+     * True when this checkpoint can be extended: it has an anchor and was summed under the current type rules.
+     */
+    @Exclude
+    public boolean isCurrent() {
+        return lastKey != null && rulesVersion == TransactionType.RULES_VERSION;
+    }
+
+    /**
+     * True when nothing has been summed yet, so there is no transaction to anchor on.
+     */
+    @Exclude
+    public boolean isEmpty() {
+        return lastKey != null && lastKey.isEmpty();
+    }
+
+    public void setLastKey(String lastKey) {
+        this.lastKey = lastKey;
+    }
+
+    public void setLastTimestamp(long lastTimestamp) {
+        this.lastTimestamp = lastTimestamp;
+    }
+
+    public void setRunningTotal(double runningTotal) {
+        this.runningTotalMinor = Money.toMinorUnits(runningTotal);
+    }
+
+    @Exclude
+    public void setRunningTotalMinor(long runningTotalMinor) {
+        this.runningTotalMinor = runningTotalMinor;
+    }
+
+    public void setTransactionCount(long transactionCount) {
+        this.transactionCount = transactionCount;
+    }
+
+    public void setRulesVersion(int rulesVersion) {
+        this.rulesVersion = rulesVersion;
+    }
+
+    @Override
+    public String toString() {
+        return "BalanceCheckpoint{" +
+                "lastKey='" + lastKey + '\'' +
+                ", lastTimestamp=" + lastTimestamp +
+                ", runningTotal=" + getRunningTotal() +
+                ", transactionCount=" + transactionCount +
+                ", rulesVersion=" + rulesVersion +
+                '}';
+    }
+}
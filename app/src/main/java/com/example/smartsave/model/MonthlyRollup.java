@@ -0,0 +1,171 @@
+package com.example.smartsave.model;
+
+import com.example.smartsave.core.Money;
+import com.google.firebase.database.Exclude;
+import com.google.firebase.database.IgnoreExtraProperties;
+
+/**
+ * Per-month summary of a user's savings ledger, stored under monthlyRollups/months/{yyyy-MM}.
+ * Figures are kept in minor units and stored as decimals, like {@link Transaction}.
+ */
+@IgnoreExtraProperties
+public class MonthlyRollup {
+
+    private long incomeSavingsMinor;
+    private long expenseSavingsMinor;
+    private long withdrawalsMinor;
+    private long depositsMinor;
+    private long interestMinor;
+    private long closingBalanceMinor;
+    private long transactionCount;
+    private String currency;
+
+    public MonthlyRollup() {
+    }
+
+    public double getIncomeSavings() {
+        return Money.toMajorUnits(incomeSavingsMinor);
+    }
+
+    public double getExpenseSavings() {
+        return Money.toMajorUnits(expenseSavingsMinor);
+    }
+
+    public double getWithdrawals() {
+        return Money.toMajorUnits(withdrawalsMinor);
+    }
+
+    public double getDeposits() {
+        return Money.toMajorUnits(depositsMinor);
+    }
+
+    public double getInterest() {
+        return Money.toMajorUnits(interestMinor);
+    }
+
+    public double getClosingBalance() {
+        return Money.toMajorUnits(closingBalanceMinor);
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public String getCurrency() {
+        return currency == null ? "BGN" : currency;
+    }
+
+    public void setIncomeSavings(double incomeSavings) {
+        this.incomeSavingsMinor = Money.toMinorUnits(incomeSavings);
+    }
+
+    public void setExpenseSavings(double expenseSavings) {
+        this.expenseSavingsMinor = Money.toMinorUnits(expenseSavings);
+    }
+
+    public void setWithdrawals(double withdrawals) {
+        this.withdrawalsMinor = Money.toMinorUnits(withdrawals);
+    }
+
+    public void setDeposits(double deposits) {
+        this.depositsMinor = Money.toMinorUnits(deposits);
+    }
+
+    public void setInterest(double interest) {
+        this.interestMinor = Money.toMinorUnits(interest);
+    }
+
+    public void setClosingBalance(double closingBalance) {
+        this.closingBalanceMinor = Money.toMinorUnits(closingBalance);
+    }
+
+    public void setTransactionCount(long transactionCount) {
+        this.transactionCount = transactionCount;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    @Exclude
+    public long getIncomeSavingsMinor() {
+        return incomeSavingsMinor;
+    }
+
+    @Exclude
+    public long getExpenseSavingsMinor() {
+        return expenseSavingsMinor;
+    }
+
+    @Exclude
+    public long getWithdrawalsMinor() {
+        return withdrawalsMinor;
+    }
+
+    @Exclude
+    public long getDepositsMinor() {
+        return depositsMinor;
+    }
+
+    @Exclude
+    public long getInterestMinor() {
+        return interestMinor;
+    }
+
+    @Exclude
+    public long getClosingBalanceMinor() {
+        return closingBalanceMinor;
+    }
+
+    @Exclude
+    public void addIncomeSavingsMinor(long minorUnits) {
+        this.incomeSavingsMinor = Money.add(this.incomeSavingsMinor, minorUnits);
+    }
+
+    @Exclude
+    public void addExpenseSavingsMinor(long minorUnits) {
+        this.expenseSavingsMinor = Money.add(this.expenseSavingsMinor, minorUnits);
+    }
+
+    @Exclude
+    public void addWithdrawalsMinor(long minorUnits) {
+        this.withdrawalsMinor = Money.add(this.withdrawalsMinor, minorUnits);
+    }
+
+    @Exclude
+    public void addDepositsMinor(long minorUnits) {
+        this.depositsMinor = Money.add(this.depositsMinor, minorUnits);
+    }
+
+    @Exclude
+    public void addInterestMinor(long minorUnits) {
+        this.interestMinor = Money.add(this.interestMinor, minorUnits);
+    }
+
+    @Exclude
+    public void setClosingBalanceMinor(long closingBalanceMinor) {
+        this.closingBalanceMinor = closingBalanceMinor;
+    }
+
+    /**
+     * Change in totalSaved over the month, in minor units; closing balances are the running sum of this value.
+     */
+    @Exclude
+    public long getNetChangeMinor() {
+        return incomeSavingsMinor + expenseSavingsMinor - withdrawalsMinor + depositsMinor + interestMinor;
+    }
+
+    @Override
+    public String toString() {
+        return "MonthlyRollup{" +
+                "incomeSavings=" + getIncomeSavings() +
+                ", expenseSavings=" + getExpenseSavings() +
+                ", withdrawals=" + getWithdrawals() +
+                ", deposits=" + getDeposits() +
+                ", interest=" + getInterest() +
+                ", closingBalance=" + getClosingBalance() +
+                ", transactionCount=" + transactionCount +
+                ", currency='" + currency + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.smartsave.model;
+
+import com.example.smartsave.core.Money;
+import com.google.firebase.database.Exclude;
+import com.google.firebase.database.IgnoreExtraProperties;
+
+/**
+ * An open withdrawal in the pendingWithdrawals index, stored under entries/{transaction key}.
+ * The amount is the positive sum being withdrawn, kept in minor units and stored as a decimal.
+ * The entries double as the settlement queue, ordered by dueAt.
+ */
+@IgnoreExtraProperties
+public class PendingWithdrawal {
+
+    private long amountMinor;
+    private long timestamp;
+    // When the withdrawal settles; 0 for entries indexed before settlement was scheduled.
+    private long dueAt;
+
+    public PendingWithdrawal() {
+    }
+
+    public PendingWithdrawal(long amountMinor, long timestamp, long dueAt) {
+        this.amountMinor = amountMinor;
+        this.timestamp = timestamp;
+        this.dueAt = dueAt;
+    }
+
+    public double getAmount() {
+        return Money.toMajorUnits(amountMinor);
+    }
+
+    @Exclude
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getDueAt() {
+        return dueAt;
+    }
+
+    public void setAmount(double amount) {
+        this.amountMinor = Money.toMinorUnits(amount);
+    }
+
+    @Exclude
+    public void setAmountMinor(long amountMinor) {
+        this.amountMinor = amountMinor;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public void setDueAt(long dueAt) {
+        this.dueAt = dueAt;
+    }
+
+    @Override
+    public String toString() {
+        return "PendingWithdrawal{" +
+                "amount=" + getAmount() +
+                ", timestamp=" + timestamp +
+                ", dueAt=" + dueAt +
+                '}';
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.smartsave.model;
 
+import com.example.smartsave.core.Money;
+import com.google.firebase.database.Exclude;
 import com.google.firebase.database.IgnoreExtraProperties;
 
 import java.util.Map;
@@ -9,8 +11,10 @@ public class SmartSaveProfile {
 
     private double savingsPercentage;
     private String startDate;
-    private double totalSaved;
+    // Minor units; stored in Firebase as the decimal "totalSaved".
+    private long totalSavedMinor;
     private Map<String, Transaction> transactions;
+    private BalanceCheckpoint balanceCheckpoint;
     private boolean isActive;
 
     public SmartSaveProfile() {
@@ -20,7 +24,7 @@ public class SmartSaveProfile {
     public SmartSaveProfile(double savingsPercentage, String startDate, double totalSaved, boolean isActive) {
         this.savingsPercentage = savingsPercentage;
         this.startDate = startDate;
-        this.totalSaved = totalSaved;
+        this.totalSavedMinor = Money.toMinorUnits(totalSaved);
         this.isActive = isActive;
     }
 
@@ -38,13 +42,22 @@ public class SmartSaveProfile {
     }
 
     public double getTotalSaved() {
-        return totalSaved;
+        return Money.toMajorUnits(totalSavedMinor);
+    }
+
+    @Exclude
+    public long getTotalSavedMinor() {
+        return totalSavedMinor;
     }
 
     public Map<String, Transaction> getTransactions() {
         return transactions;
     }
 
+    public BalanceCheckpoint getBalanceCheckpoint() {
+        return balanceCheckpoint;
+    }
+
     public boolean isActive() {
         return isActive;
     }
@@ -58,13 +71,17 @@ public class SmartSaveProfile {
     }
 
     public void setTotalSaved(double totalSaved) {
-        this.totalSaved = totalSaved;
+        this.totalSavedMinor = Money.toMinorUnits(totalSaved);
     }
 
     public void setTransactions(Map<String, Transaction> transactions) {
         this.transactions = transactions;
     }
 
+    public void setBalanceCheckpoint(BalanceCheckpoint balanceCheckpoint) {
+        this.balanceCheckpoint = balanceCheckpoint;
+    }
+
     public void setActive(boolean active) {
         isActive = active;
     }
@@ -1,32 +1,35 @@
 package com.example.smartsave.model;
 
+import com.example.smartsave.core.Money;
+import com.example.smartsave.core.TransactionFormat;
+import com.example.smartsave.core.TransactionType;
 import com.google.firebase.database.Exclude;
 import com.google.firebase.database.IgnoreExtraProperties;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
-
 @IgnoreExtraProperties
 public class Transaction {
     private String id;
 
     private String description;
-    private double amount;
+    // Held in minor units; Firebase and JSON still see decimal "amount" and "savingsCalculated".
+    private long amountMinor;
     private String type;
-    private double savingsCalculated;
+    private TransactionType transactionType = TransactionType.UNKNOWN;
+    private long savingsCalculatedMinor;
     private long timestamp;
     private String currency;
-
+    // Formatted on first display; every setter drops it.
+    private TransactionRow row;
 
     public Transaction() {
     }
 
     public Transaction(String description, double amount, String type, double savingsCalculated, long timestamp, String currency) {
         this.description = description;
-        this.amount = amount;
+        this.amountMinor = Money.toMinorUnits(amount);
         this.type = type;
-        this.savingsCalculated = savingsCalculated;
+        this.transactionType = TransactionType.parse(type);
+        this.savingsCalculatedMinor = Money.toMinorUnits(savingsCalculated);
         this.timestamp = timestamp;
         this.currency = currency;
     }
@@ -40,15 +43,43 @@ public class Transaction {
     }
 
     public double getAmount() {
-        return amount;
+        return Money.toMajorUnits(amountMinor);
+    }
+
+    @Exclude
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+
+    @Exclude
+    public Money getAmountMoney() {
+        return Money.ofMinor(amountMinor, getCurrency());
     }
 
     public String getType() {
         return type;
     }
 
+    @Exclude
+    public TransactionType getTransactionType() {
+        return transactionType;
+    }
+
+    /**
+     * This transaction's effect on totalSaved, by the rules in {@link TransactionType}.
+     */
+    @Exclude
+    public Money getBalanceEffect() {
+        return Money.ofMinor(TransactionType.balanceEffect(transactionType.ordinal(), amountMinor, savingsCalculatedMinor), getCurrency());
+    }
+
     public double getSavingsCalculated() {
-        return savingsCalculated;
+        return Money.toMajorUnits(savingsCalculatedMinor);
+    }
+
+    @Exclude
+    public long getSavingsCalculatedMinor() {
+        return savingsCalculatedMinor;
     }
 
     public long getTimestamp() {
@@ -61,83 +92,79 @@ public class Transaction {
 
     public void setId(String id) {
         this.id = id;
+        row = null;
     }
 
     public void setDescription(String description) {
         this.description = description;
+        row = null;
     }
 
     public void setAmount(double amount) {
-        this.amount = amount;
+        this.amountMinor = Money.toMinorUnits(amount);
+        row = null;
+    }
+
+    @Exclude
+    public void setAmountMinor(long amountMinor) {
+        this.amountMinor = amountMinor;
+        row = null;
     }
 
     public void setType(String type) {
         this.type = type;
+        this.transactionType = TransactionType.parse(type);
+        row = null;
     }
 
     public void setSavingsCalculated(double savingsCalculated) {
-        this.savingsCalculated = savingsCalculated;
+        this.savingsCalculatedMinor = Money.toMinorUnits(savingsCalculated);
+        row = null;
+    }
+
+    @Exclude
+    public void setSavingsCalculatedMinor(long savingsCalculatedMinor) {
+        this.savingsCalculatedMinor = savingsCalculatedMinor;
+        row = null;
     }
 
     public void setTimestamp(long timestamp) {
         this.timestamp = timestamp;
+        row = null;
     }
 
     public void setCurrency(String currency) {
         this.currency = currency;
+        row = null;
     }
 
     @Exclude
     public String getFormattedDate(String format) {
-        if (timestamp == 0L) return "Processing";
-        SimpleDateFormat sdf = new SimpleDateFormat(format, Locale.getDefault());
-        return sdf.format(new Date(timestamp));
+        return TransactionFormat.date(timestamp, format);
     }
 
     @Exclude
     public String getFormattedDate() { // Overload with default format
-        return getFormattedDate("dd MMM yyyy, HH:mm");
+        return getRow().getDate();
     }
 
     @Exclude
     public String getSavingsImpactForList() {
-        switch (type != null ? type.toUpperCase() : "") {
-            case "INCOME":
-            case "EXPENSE":
-                if (savingsCalculated > 0) {
-                    return String.format(Locale.US, "+ %.2f %s", savingsCalculated, getCurrency());
-                } else if (savingsCalculated < 0) {
-                    return String.format(Locale.US, "%.2f %s", savingsCalculated, getCurrency());
-                }
-                return "";
-            case "WITHDRAW":
-                return String.format(Locale.US, "- %.2f %s", amount, getCurrency());
-            case "SAVINGS_DEPOSIT":
-            case "INTEREST_PAYMENT":
-                return String.format(Locale.US, "+ %.2f %s", amount, getCurrency());
-            default:
-                return "";
-        }
+        return getRow().getSavingsImpact();
     }
 
     @Exclude
     public String getDisplayAmountForList() {
-        String typeUpper = (type != null) ? type.toUpperCase() : "";
-
-        switch (typeUpper) {
-            case "INCOME":
-            case "EXPENSE":
-                return String.format(Locale.US, "Amount: %.2f %s", amount, getCurrency());
-            case "WITHDRAW":
-            case "SAVINGS_DEPOSIT":
-            case "INTEREST_PAYMENT":
-                return "";
-            default:
-                if (amount != 0) {
-                    return String.format(Locale.US, "Amount: %.2f %s", amount, getCurrency());
-                }
-                return "";
-        }
+        return getRow().getDisplayAmount();
+    }
+
+    /**
+     * This transaction as the dashboard list shows it, formatted on first use.
+     */
+    @Exclude
+    public TransactionRow getRow() {
+        if (row == null) row = TransactionRow.of(this);
+        return row;
     }
 
     @Override
@@ -145,9 +172,9 @@ public class Transaction {
         return "Transaction{" +
                 "id='" + id + '\'' +
                 ", description='" + description + '\'' +
-                ", amount=" + amount +
+                ", amount=" + getAmount() +
                 ", type='" + type + '\'' +
-                ", savingsCalculated=" + savingsCalculated +
+                ", savingsCalculated=" + getSavingsCalculated() +
                 ", timestamp=" + timestamp +
                 ", currency='" + currency + '\'' +
                 '}';
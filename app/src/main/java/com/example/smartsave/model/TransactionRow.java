@@ -0,0 +1,77 @@
+package com.example.smartsave.model;
+
+import androidx.compose.runtime.Immutable;
+
+import com.example.smartsave.core.TransactionFormat;
+import com.example.smartsave.core.TransactionType;
+
+/**
+ * What the dashboard list shows for one transaction, formatted once.
+ * <p>
+ * {@link Transaction#getRow()} builds it on first use and keeps it until the transaction
+ * changes, so scrolling and recomposition only read these fields.
+ */
+@Immutable
+public final class TransactionRow {
+
+    static final String DATE_PATTERN = "dd MMM yyyy, HH:mm";
+
+    private final String id;
+    private final String description;
+    private final String date;
+    private final String savingsImpact;
+    private final int savingsImpactSign;
+    private final String displayAmount;
+    private final boolean pendingWithdrawal;
+
+    private TransactionRow(Transaction transaction) {
+        TransactionType type = transaction.getTransactionType();
+        String currency = transaction.getCurrency();
+        this.id = transaction.getId();
+        this.description = transaction.getDescription();
+        this.date = TransactionFormat.date(transaction.getTimestamp(), DATE_PATTERN);
+        this.savingsImpact = TransactionFormat.savingsImpact(type, transaction.getAmountMinor(),
+                transaction.getSavingsCalculatedMinor(), currency);
+        this.savingsImpactSign = savingsImpact.startsWith("+") ? 1 : savingsImpact.startsWith("-") ? -1 : 0;
+        this.displayAmount = TransactionFormat.displayAmount(type, transaction.getAmountMinor(), currency);
+        this.pendingWithdrawal = type == TransactionType.PENDING_WITHDRAWAL;
+    }
+
+    static TransactionRow of(Transaction transaction) {
+        return new TransactionRow(transaction);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    /**
+     * Signed effect on savings, e.g. "+ 1.20 BGN", or "" when the row does not move savings.
+     */
+    public String getSavingsImpact() {
+        return savingsImpact;
+    }
+
+    /**
+     * 1 when {@link #getSavingsImpact()} reads as a gain, -1 as a loss, 0 when it is empty.
+     */
+    public int getSavingsImpactSign() {
+        return savingsImpactSign;
+    }
+
+    public String getDisplayAmount() {
+        return displayAmount;
+    }
+
+    public boolean isPendingWithdrawal() {
+        return pendingWithdrawal;
+    }
+}
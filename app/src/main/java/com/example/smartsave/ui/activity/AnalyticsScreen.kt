@@ -22,6 +22,8 @@ import androidx.compose.ui.unit.dp
 import androidx.core.view.drawToBitmap
 import androidx.navigation.NavController
 import com.example.smartsave.R
+import com.example.smartsave.core.Money
+import com.example.smartsave.core.ProjectionEngine
 import java.io.File
 import java.io.FileOutputStream
 import android.content.ContentValues
@@ -47,11 +49,19 @@ import java.text.SimpleDateFormat
 import android.util.Log
 import androidx.compose.material.icons.Icons
 import androidx.compose.ui.text.style.TextAlign
-import com.example.smartsave.util.SavingsCalculator
+import com.example.smartsave.util.LedgerAggregator
+import com.example.smartsave.util.SavingsCalculationException
+import com.example.smartsave.util.SavingsCalculations
 import java.util.Calendar
+import java.util.EnumSet
 import java.util.Locale
+import kotlinx.coroutines.delay
 
 private const val TAG_ANALYTICS_SCREEN = "AnalyticsScreenLogic"
+private const val OUTCOME_SIMULATION_TRAJECTORIES = 20_000
+// Fixed so the range doesn't shift each time the screen recomposes with the same history.
+private const val OUTCOME_SIMULATION_SEED = 0x5A5E5A7EL
+private const val MONTH_SELECTION_DEBOUNCE_MILLIS = 250L
 
 fun monthNameToNumber(monthName: String): Int {
     return try {
@@ -86,6 +96,7 @@ fun AnalyticsScreen(navController: NavController) {
     var totalSavingsValue by remember { mutableStateOf(0.0) }
     var isLoadingTotalSavings by remember { mutableStateOf(true) }
     var totalSavingsErrorMessage by remember { mutableStateOf<String?>(null) }
+    var hasLoadedTotalSavings by remember { mutableStateOf(false) }
 
 
     // --- NEW State for "Earned from Interest" for selected month ---
@@ -109,60 +120,68 @@ fun AnalyticsScreen(navController: NavController) {
     var isLoadingCompoundInterestSentence by remember { mutableStateOf(true) }
 
     val assumedAnnualInterestRateForProjection = 0.03 // 3%
+    val projectionMonths = 6
 
 
-    LaunchedEffect(key1 = Unit) {
-        isLoadingTotalSavings = true
-        totalSavingsErrorMessage = null
-        Log.d(
-            TAG_ANALYTICS_SCREEN,
-            "LaunchedEffect (TotalSavings): Calling recalculateAndUpdatetotalSaved"
-        )
-        SavingsCalculator.recalculateAndUpdatetotalSaved(object :
-            SavingsCalculator.CalculationCallback {
-            override fun onSuccess(newTotalSaved: Double) {
-                Log.i(TAG_ANALYTICS_SCREEN, "Success (TotalSavings): $newTotalSaved")
-                totalSavingsValue = newTotalSaved
-                isLoadingTotalSavings = false
-            }
-
-            override fun onError(errorMessage: String) {
-                Log.e(TAG_ANALYTICS_SCREEN, "Error (TotalSavings): $errorMessage")
-                totalSavingsValue = 0.0
-                totalSavingsErrorMessage = "Error loading total: $errorMessage"
-                isLoadingTotalSavings = false
-            }
-        })
-    }
-
     LaunchedEffect(key1 = isLoadingTotalSavings) {
         if (!isLoadingTotalSavings) {
             if (totalSavingsValue > 0 && totalSavingsErrorMessage == null) {
                 // We still set isLoadingCompoundInterestSentence to true here to indicate THIS calculation is starting
                 isLoadingCompoundInterestSentence = true
                 Log.d(TAG_ANALYTICS_SCREEN, "LaunchedEffect (CompoundProjection): Calculating for total $totalSavingsValue")
-                SavingsCalculator.calculateCompoundInterestProjection(
-                    totalSavingsValue,
-                    assumedAnnualInterestRateForProjection,
-                    object : SavingsCalculator.CompoundInterestProjectionCallback {
-                        override fun onSuccess(futureValue: Double, interestEarned: Double) {
-                            compoundInterestSentence = String.format(
-                                Locale.ENGLISH,
-                                "Leave %.2f BGN and let them grow. Get back %.2f BGN in just 6 months.",
-                                totalSavingsValue,
-                                futureValue
-                            )
-                            Log.i(TAG_ANALYTICS_SCREEN, "Success (CompoundProjection): $compoundInterestSentence")
-                            isLoadingCompoundInterestSentence = false
-                        }
+                val projection = try {
+                    SavingsCalculations.compoundInterestProjection(
+                        totalSavingsValue,
+                        assumedAnnualInterestRateForProjection,
+                        ProjectionEngine.Compounding.DAILY,
+                        projectionMonths
+                    )
+                } catch (e: SavingsCalculationException) {
+                    Log.e(TAG_ANALYTICS_SCREEN, "Error (CompoundProjection): ${e.message}")
+                    compoundInterestSentence = "Could not calculate growth projection."
+                    isLoadingCompoundInterestSentence = false
+                    return@LaunchedEffect
+                }
+                val monthlyContribution = Money.toMajorUnits(projection.monthlyContributionMinor)
+                val projectionSentence = if (monthlyContribution > 0) {
+                    String.format(
+                        Locale.ENGLISH,
+                        "Leave %.2f BGN and keep saving about %.2f BGN a month. Get back %.2f BGN in just %d months.",
+                        totalSavingsValue,
+                        monthlyContribution,
+                        projection.finalBalance,
+                        projectionMonths
+                    )
+                } else {
+                    String.format(
+                        Locale.ENGLISH,
+                        "Leave %.2f BGN and let them grow. Get back %.2f BGN in just %d months.",
+                        totalSavingsValue,
+                        projection.finalBalance,
+                        projectionMonths
+                    )
+                }
+                compoundInterestSentence = projectionSentence
+                Log.i(TAG_ANALYTICS_SCREEN, "Success (CompoundProjection): $compoundInterestSentence")
+                isLoadingCompoundInterestSentence = false
 
-                        override fun onError(errorMessage: String) {
-                            Log.e(TAG_ANALYTICS_SCREEN, "Error (CompoundProjection): $errorMessage")
-                            compoundInterestSentence = "Could not calculate growth projection."
-                            isLoadingCompoundInterestSentence = false
-                        }
-                    }
-                )
+                try {
+                    val bands = SavingsCalculations.savingsOutcomes(
+                        totalSavingsValue,
+                        assumedAnnualInterestRateForProjection,
+                        projectionMonths,
+                        OUTCOME_SIMULATION_TRAJECTORIES,
+                        OUTCOME_SIMULATION_SEED
+                    )
+                    compoundInterestSentence = projectionSentence + String.format(
+                        Locale.ENGLISH,
+                        " Based on your history, most outcomes land between %.2f and %.2f BGN.",
+                        Money.toMajorUnits(bands.getP10Minor(projectionMonths)),
+                        Money.toMajorUnits(bands.getP90Minor(projectionMonths))
+                    )
+                } catch (e: SavingsCalculationException) {
+                    Log.w(TAG_ANALYTICS_SCREEN, "Error (OutcomeSimulation): ${e.message}")
+                }
             } else {
                 compoundInterestSentence = null
                 isLoadingCompoundInterestSentence = false
@@ -171,167 +190,120 @@ fun AnalyticsScreen(navController: NavController) {
         }
     }
 
-    LaunchedEffect(
-        key1 = selectedMonth,
-        key2 = selectedYear
-    ) { // <<<< KEYS ARE selectedMonth, selectedYear
-        isLoadingEarnedFromInterest = true
-        earnedFromInterestErrorMessage = null
-        Log.d(
-            TAG_ANALYTICS_SCREEN,
-            "LaunchedEffect (EarnedInterest): Calculating for $selectedMonth $selectedYear"
-        )
-
+    LaunchedEffect(key1 = selectedMonth, key2 = selectedYear) {
         val monthNumber = monthNameToNumber(selectedMonth)
         val yearNumber = selectedYear.toIntOrNull()
+        val numberOfMonthsForChart = 6
 
+        // One covering read per selection; the total only needs to be recalculated once per visit.
+        val metrics = EnumSet.noneOf(LedgerAggregator.Metric::class.java)
+        if (!hasLoadedTotalSavings) {
+            metrics.add(LedgerAggregator.Metric.TOTAL_SAVED)
+            isLoadingTotalSavings = true
+            totalSavingsErrorMessage = null
+        }
         if (monthNumber != -1 && yearNumber != null) {
-            SavingsCalculator.calculateInterestForSelectedMonth(
-                yearNumber,
-                monthNumber,
-                object : SavingsCalculator.SelectedMonthInterestCallback {
-                    override fun onSuccess(totalInterestForMonth: Double, currency: String) {
-                        Log.i(
-                            TAG_ANALYTICS_SCREEN,
-                            "Success (EarnedInterest) for $selectedMonth $selectedYear: $totalInterestForMonth $currency"
-                        )
-                        earnedFromInterestValue = totalInterestForMonth
-                        earnedFromInterestCurrency = currency
-                        isLoadingEarnedFromInterest = false
-                    }
-
-                    override fun onError(errorMessage: String) {
-                        Log.e(
-                            TAG_ANALYTICS_SCREEN,
-                            "Error (EarnedInterest) for $selectedMonth $selectedYear: $errorMessage"
-                        )
-                        earnedFromInterestValue = 0.0
-                        earnedFromInterestErrorMessage = "Error loading interest: $errorMessage"
-                        isLoadingEarnedFromInterest = false
-                    }
-                }
-            )
+            metrics.add(LedgerAggregator.Metric.MONTH_INTEREST)
+            metrics.add(LedgerAggregator.Metric.MONTH_INCOME_SAVINGS)
+            metrics.add(LedgerAggregator.Metric.MONTHLY_GROWTH)
+            isLoadingEarnedFromInterest = true
+            earnedFromInterestErrorMessage = null
+            isLoadingEarnedThisMonth = true
+            earnedThisMonthErrorMessage = null
+            isLoadingSavingsGrowth = true
+            savingsGrowthErrorMessage = null
         } else {
             Log.e(
                 TAG_ANALYTICS_SCREEN,
-                "Invalid month or year for interest calc: $selectedMonth, $selectedYear"
+                "Invalid month or year for analytics: $selectedMonth, $selectedYear"
             )
             earnedFromInterestErrorMessage = "Invalid date selected"
             isLoadingEarnedFromInterest = false
             earnedFromInterestValue = 0.0
-        }
-    }
-
-    LaunchedEffect(key1 = selectedMonth, key2 = selectedYear) {
-        isLoadingEarnedThisMonth = true
-        earnedThisMonthErrorMessage = null
-        Log.d(
-            TAG_ANALYTICS_SCREEN,
-            "LaunchedEffect (EarnedThisMonth - Income Savings): Calculating for $selectedMonth $selectedYear"
-        )
-
-        val monthNumber = monthNameToNumber(selectedMonth)
-        val yearNumber = selectedYear.toIntOrNull()
-
-        if (monthNumber != -1 && yearNumber != null) {
-            SavingsCalculator.calculateIncomeSavingsForSelectedMonth(
-                yearNumber,
-                monthNumber,
-                object : SavingsCalculator.SelectedMonthIncomeSavingsCallback {
-                    override fun onSuccess(totalIncomeSavingsForMonth: Double, currency: String) {
-                        Log.i(
-                            TAG_ANALYTICS_SCREEN,
-                            "Success (EarnedThisMonth - Income Savings) for $selectedMonth $selectedYear: $totalIncomeSavingsForMonth $currency"
-                        )
-                        earnedThisMonthValue = totalIncomeSavingsForMonth
-                        earnedThisMonthCurrency = currency
-                        isLoadingEarnedThisMonth = false
-                    }
-
-                    override fun onError(errorMessage: String) {
-                        Log.e(
-                            TAG_ANALYTICS_SCREEN,
-                            "Error (EarnedThisMonth - Income Savings) for $selectedMonth $selectedYear: $errorMessage"
-                        )
-                        earnedThisMonthValue = 0.0
-                        earnedThisMonthErrorMessage =
-                            "Error loading monthly earnings: $errorMessage"
-                        isLoadingEarnedThisMonth = false
-                    }
-                }
-            )
-        } else {
-            Log.e(
-                TAG_ANALYTICS_SCREEN,
-                "Invalid month or year for income savings calc: $selectedMonth, $selectedYear"
-            )
             earnedThisMonthErrorMessage = "Invalid date selected"
             isLoadingEarnedThisMonth = false
             earnedThisMonthValue = 0.0
+            savingsGrowthErrorMessage = "Invalid date for chart"
+            isLoadingSavingsGrowth = false
+            savingsGrowthData = emptyList()
+            overallSavingsForChartHeader = 0.0
         }
-    }
+        if (metrics.isEmpty()) return@LaunchedEffect
+
+        // A new selection restarts this effect and cancels the previous aggregation; waiting
+        // briefly first means a quick run through the selector only reads the last month.
+        if (hasLoadedTotalSavings) delay(MONTH_SELECTION_DEBOUNCE_MILLIS)
 
-    LaunchedEffect(key1 = selectedYear, key2 = selectedMonth) {
-        isLoadingSavingsGrowth = true
-        savingsGrowthErrorMessage = null
         Log.d(
             TAG_ANALYTICS_SCREEN,
-            "LaunchedEffect (SavingsGrowth): Calculating for $selectedMonth $selectedYear"
+            "LaunchedEffect (Analytics): Aggregating $metrics for $selectedMonth $selectedYear"
         )
 
-        val monthNumber = monthNameToNumber(selectedMonth)
-        val yearNumber = selectedYear.toIntOrNull()
-        val numberOfMonthsForChart = 6
-
-        if (monthNumber != -1 && yearNumber != null) {
-            SavingsCalculator.calculateMonthlySavingsGrowth(
-                yearNumber,
-                monthNumber,
-                numberOfMonthsForChart,
-                object : SavingsCalculator.MonthlySavingsGrowthCallback {
-                    override fun onSuccess(monthlyData: MutableList<MutableMap<String, Any>>) {
-                        Log.i(
-                            TAG_ANALYTICS_SCREEN,
-                            "Success (SavingsGrowth): Data received - ${monthlyData.size} points"
-                        )
-                        if (monthlyData.isNotEmpty()) {
-                            savingsGrowthData = monthlyData.mapNotNull { dataPoint ->
-                                val monthName = dataPoint["monthName"] as? String
-                                val savings = (dataPoint["savings"] as? Double)?.toFloat()
-                                if (monthName != null && savings != null) {
-                                    ChartDataPoint(monthName, savings)
-                                } else {
-                                    null
-                                }
-                            }
-                            (monthlyData.lastOrNull()?.get("savings") as? Double)?.let {
-                                overallSavingsForChartHeader = it
-                            }
-                        } else {
-                            savingsGrowthData = emptyList()
-                            overallSavingsForChartHeader = 0.0
-                        }
-                        isLoadingSavingsGrowth = false
-                    }
+        val result = try {
+            SavingsCalculations.aggregate(yearNumber ?: 0, monthNumber, numberOfMonthsForChart, metrics)
+        } catch (e: SavingsCalculationException) {
+            val errorMessage = e.message ?: ""
+            Log.e(TAG_ANALYTICS_SCREEN, "Error (Analytics) for $selectedMonth $selectedYear: $errorMessage")
+            if (metrics.contains(LedgerAggregator.Metric.TOTAL_SAVED)) {
+                totalSavingsValue = 0.0
+                totalSavingsErrorMessage = "Error loading total: $errorMessage"
+                isLoadingTotalSavings = false
+            }
+            if (metrics.contains(LedgerAggregator.Metric.MONTH_INTEREST)) {
+                earnedFromInterestValue = 0.0
+                earnedFromInterestErrorMessage = "Error loading interest: $errorMessage"
+                isLoadingEarnedFromInterest = false
+            }
+            if (metrics.contains(LedgerAggregator.Metric.MONTH_INCOME_SAVINGS)) {
+                earnedThisMonthValue = 0.0
+                earnedThisMonthErrorMessage = "Error loading monthly earnings: $errorMessage"
+                isLoadingEarnedThisMonth = false
+            }
+            if (metrics.contains(LedgerAggregator.Metric.MONTHLY_GROWTH)) {
+                savingsGrowthData = emptyList()
+                savingsGrowthErrorMessage = "Error loading growth data: $errorMessage"
+                isLoadingSavingsGrowth = false
+                overallSavingsForChartHeader = 0.0
+            }
+            return@LaunchedEffect
+        }
 
-                    override fun onError(errorMessage: String) {
-                        Log.e(TAG_ANALYTICS_SCREEN, "Error (SavingsGrowth): $errorMessage")
-                        savingsGrowthData = emptyList()
-                        savingsGrowthErrorMessage = "Error loading growth data: $errorMessage"
-                        isLoadingSavingsGrowth = false
-                        overallSavingsForChartHeader = 0.0
+        Log.i(TAG_ANALYTICS_SCREEN, "Success (Analytics) for $selectedMonth $selectedYear")
+        if (result.has(LedgerAggregator.Metric.TOTAL_SAVED)) {
+            totalSavingsValue = result.totalSaved
+            hasLoadedTotalSavings = true
+            isLoadingTotalSavings = false
+        }
+        if (result.has(LedgerAggregator.Metric.MONTH_INTEREST)) {
+            earnedFromInterestValue = result.monthInterest
+            earnedFromInterestCurrency = result.monthInterestCurrency
+            isLoadingEarnedFromInterest = false
+        }
+        if (result.has(LedgerAggregator.Metric.MONTH_INCOME_SAVINGS)) {
+            earnedThisMonthValue = result.monthIncomeSavings
+            earnedThisMonthCurrency = result.monthIncomeSavingsCurrency
+            isLoadingEarnedThisMonth = false
+        }
+        if (result.has(LedgerAggregator.Metric.MONTHLY_GROWTH)) {
+            val monthlyData = result.monthlyGrowth
+            if (monthlyData.isNotEmpty()) {
+                savingsGrowthData = monthlyData.mapNotNull { dataPoint ->
+                    val monthName = dataPoint["monthName"] as? String
+                    val savings = (dataPoint["savings"] as? Double)?.toFloat()
+                    if (monthName != null && savings != null) {
+                        ChartDataPoint(monthName, savings)
+                    } else {
+                        null
                     }
                 }
-            )
-        } else {
-            Log.e(
-                TAG_ANALYTICS_SCREEN,
-                "Invalid month/year for savings growth: $selectedMonth, $selectedYear"
-            )
-            savingsGrowthErrorMessage = "Invalid date for chart"
+                (monthlyData.lastOrNull()?.get("savings") as? Double)?.let {
+                    overallSavingsForChartHeader = it
+                }
+            } else {
+                savingsGrowthData = emptyList()
+                overallSavingsForChartHeader = 0.0
+            }
             isLoadingSavingsGrowth = false
-            savingsGrowthData = emptyList()
-            overallSavingsForChartHeader = 0.0
         }
     }
 
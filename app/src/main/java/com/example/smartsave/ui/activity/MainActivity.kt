@@ -1,16 +1,25 @@
 package com.example.smartsave.ui.activity
 
+import android.content.pm.ApplicationInfo
 import android.os.Bundle
 import androidx.activity.ComponentActivity
 import androidx.activity.compose.setContent
 import androidx.compose.material3.MaterialTheme
 import androidx.compose.material3.Surface
+import com.example.smartsave.core.LedgerTrace
+import com.example.smartsave.data.LedgerCache
 import com.example.smartsave.ui.navigation.AppNavHost
 import com.example.smartsave.ui.theme.SmartSaveTheme
+import com.example.smartsave.util.LogcatLedgerTraceListener
 
 class MainActivity : ComponentActivity() {
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
+        LedgerCache.init(applicationContext)
+        // Per-call ledger counters in debug builds; release builds never install a listener.
+        if ((applicationInfo.flags and ApplicationInfo.FLAG_DEBUGGABLE) != 0 && !LedgerTrace.isEnabled()) {
+            LedgerTrace.enable(LogcatLedgerTraceListener(), 0)
+        }
         setContent {
             SmartSaveTheme {
                 Surface(color = MaterialTheme.colorScheme.background) {
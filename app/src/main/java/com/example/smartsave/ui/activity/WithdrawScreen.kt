@@ -19,16 +19,22 @@ import androidx.compose.ui.text.input.TextFieldValue
 import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
 import androidx.lifecycle.ViewModel
+import androidx.lifecycle.viewModelScope
 import androidx.lifecycle.viewmodel.compose.viewModel
 import androidx.navigation.NavController
+import com.example.smartsave.core.Money
+import com.example.smartsave.data.SavingsRepository
+import com.example.smartsave.model.Transaction
 import com.example.smartsave.ui.navigation.Screen
 import com.example.smartsave.ui.theme.black
 import com.example.smartsave.ui.theme.blue
 import com.example.smartsave.ui.theme.greyFieldBackground
+import com.example.smartsave.util.WithdrawalStore
 import com.google.firebase.auth.FirebaseAuth
-import com.google.firebase.database.*
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.launch
 
 class WithdrawViewModel : ViewModel() {
     private val _totalSavings = MutableStateFlow<Double?>(null)
@@ -36,95 +42,48 @@ class WithdrawViewModel : ViewModel() {
     private val _hasPendingWithdrawal = MutableStateFlow(false)
     val hasPendingWithdrawal: StateFlow<Boolean> = _hasPendingWithdrawal
 
-    private val db =
-        FirebaseDatabase.getInstance("https://smartsave-e0e7b-default-rtdb.europe-west1.firebasedatabase.app/")
     private val auth = FirebaseAuth.getInstance()
 
     init {
-        fetchTotalSavings()
+        observeSavings()
     }
 
-    private fun fetchTotalSavings() {
+    // Shared with the dashboard. The pending sum comes from the pendingWithdrawals index, so
+    // neither opening this screen nor submitting reads the ledger.
+    private fun observeSavings() {
         val userId = auth.currentUser?.uid ?: return
-        val profileRef = db.reference.child("smartSaveProfile").child(userId)
-
-        profileRef.addListenerForSingleValueEvent(object : ValueEventListener {
-            override fun onDataChange(snapshot: DataSnapshot) {
-                val value = snapshot.child("totalSaved").getValue(Double::class.java)
-                _totalSavings.value = value
-
-                val hasPending = snapshot.child("transactions").children.any {
-                    it.child("type").getValue(String::class.java) == "PENDING_WITHDRAWAL"
-                }
-                _hasPendingWithdrawal.value = hasPending
-            }
-
-            override fun onCancelled(error: DatabaseError) {
-                _totalSavings.value = null
-                _hasPendingWithdrawal.value = false
+        // Repairs a total left debited by a withdrawal that predates atomic commits, and
+        // indexes withdrawals that predate the index.
+        WithdrawalStore.reconcile(userId)
+        WithdrawalStore.settleDue(userId)
+        viewModelScope.launch {
+            SavingsRepository.profile(userId).collect { profile ->
+                if (!profile.loaded) return@collect
+                _totalSavings.value = if (profile.error == null) profile.totalSaved else null
+                _hasPendingWithdrawal.value = profile.pendingWithdrawalMinor != 0L
             }
-        })
+        }
     }
 
     fun submitWithdrawal(amount: Double, onComplete: (Boolean) -> Unit) {
         val userId = auth.currentUser?.uid ?: return onComplete(false)
-        val profileRef = db.reference.child("smartSaveProfile").child(userId)
-
-        profileRef.addListenerForSingleValueEvent(object : ValueEventListener {
-            override fun onDataChange(snapshot: DataSnapshot) {
-                val totalSaved = snapshot.child("totalSaved").getValue(Double::class.java) ?: 0.0
-
-                val pendingSum = snapshot.child("transactions").children
-                    .filter {
-                        it.child("type").getValue(String::class.java) == "PENDING_WITHDRAWAL"
-                    }
-                    .sumOf { it.child("amount").getValue(Double::class.java) ?: 0.0 }
-
-                val availableBalance = totalSaved + pendingSum
 
-                if (availableBalance < amount) {
-                    onComplete(false)
-                    return
-                }
-
-                val txTime = System.currentTimeMillis()
-                val txRef = profileRef.child("transactions").child(txTime.toString())
-                val txData = mapOf(
-                    "amount" to -amount,
-                    "currency" to "BGN",
-                    "type" to "PENDING_WITHDRAWAL",
-                    "description" to "Scheduled Withdrawal",
-                    "date" to txTime,
-                    "timestamp" to txTime
-                )
-
-                profileRef.child("totalSaved")
-                    .setValue(totalSaved - amount)
-                    .addOnSuccessListener {
-                        txRef.setValue(txData).addOnSuccessListener {
-                            onComplete(true)
-                            fetchTotalSavings()
-                        }.addOnFailureListener {
-                            onComplete(false)
-                        }
-                    }
-                    .addOnFailureListener {
-                        onComplete(false)
-                    }
+        viewModelScope.launch {
+            val profile = SavingsRepository.profile(userId).first { it.loaded }
+            if (profile.error != null) return@launch onComplete(false)
 
-            }
+            val amountMinor = Money.toMinorUnits(amount)
+            // Money still being withdrawn is not available again.
+            val availableBalanceMinor = profile.totalSavedMinor - profile.pendingWithdrawalMinor
+            if (availableBalanceMinor < amountMinor) return@launch onComplete(false)
 
-            override fun onCancelled(error: DatabaseError) {
-                onComplete(false)
-            }
-        })
-    }
+            // Transaction, index entry and debit land together, in one round trip.
+            WithdrawalStore.submit(userId, amountMinor, System.currentTimeMillis(), object : WithdrawalStore.SubmitCallback {
+                override fun onSuccess(key: String, transaction: Transaction) = onComplete(true)
 
-    private fun scheduleCompletion(txRef: DatabaseReference) {
-        val handler = android.os.Handler(android.os.Looper.getMainLooper())
-        handler.postDelayed({
-            txRef.child("type").setValue("WITHDRAWAL")
-        }, 24 * 60 * 60 * 1000)
+                override fun onError(errorMessage: String) = onComplete(false)
+            })
+        }
     }
 }
 
@@ -7,6 +7,7 @@ import androidx.compose.foundation.clickable
 import androidx.compose.foundation.layout.Arrangement
 import androidx.compose.foundation.layout.Box
 import androidx.compose.foundation.layout.Column
+import androidx.compose.foundation.layout.PaddingValues
 import androidx.compose.foundation.layout.Row
 import androidx.compose.foundation.layout.Spacer
 import androidx.compose.foundation.layout.fillMaxSize
@@ -16,9 +17,10 @@ import androidx.compose.foundation.layout.padding
 import androidx.compose.foundation.layout.size
 import androidx.compose.foundation.layout.width
 import androidx.compose.foundation.layout.widthIn
-import androidx.compose.foundation.rememberScrollState
+import androidx.compose.foundation.lazy.LazyColumn
+import androidx.compose.foundation.lazy.items
+import androidx.compose.foundation.lazy.rememberLazyListState
 import androidx.compose.foundation.shape.CircleShape
-import androidx.compose.foundation.verticalScroll
 import androidx.compose.material.icons.Icons
 import androidx.compose.material.icons.filled.ExitToApp
 import androidx.compose.material3.Button
@@ -31,6 +33,8 @@ import androidx.compose.material3.MaterialTheme
 import androidx.compose.material3.OutlinedButton
 import androidx.compose.material3.Text
 import androidx.compose.runtime.Composable
+import androidx.compose.runtime.LaunchedEffect
+import androidx.compose.runtime.snapshotFlow
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.graphics.Color
@@ -41,10 +45,16 @@ import androidx.compose.ui.text.style.TextAlign
 import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
 import com.example.smartsave.model.Transaction
+import com.example.smartsave.model.TransactionRow
 import com.example.smartsave.ui.activity.dashboard.TransactionFilter
 import com.example.smartsave.ui.theme.blue
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.filter
 import java.util.Locale
 
+// How close to the end of the list the next page of history is requested.
+private const val LOAD_OLDER_THRESHOLD_ITEMS = 10
+
 @OptIn(ExperimentalMaterial3Api::class)
 @Composable
 fun DashboardContent(
@@ -63,194 +73,215 @@ fun DashboardContent(
     onWithdrawClicked: () -> Unit,
     onAdjustClicked: () -> Unit,
     onAnalyticsClicked: () -> Unit,
-    pendingWithdrawalMessage: String?
+    pendingWithdrawalMessage: String?,
+    hasOlderTransactions: Boolean,
+    onLoadOlderTransactions: () -> Unit
 ) {
-    val scrollState = rememberScrollState()
-
-    Column(
+    val listState = rememberLazyListState()
+
+    // Ask for the next page once the last loaded transaction is close to scrolling into view;
+    // restarting per page asks again if the new page is still too short to fill the screen.
+    LaunchedEffect(listState, transactions.size, hasOlderTransactions) {
+        if (!hasOlderTransactions) return@LaunchedEffect
+        snapshotFlow {
+            val layoutInfo = listState.layoutInfo
+            val lastVisible = layoutInfo.visibleItemsInfo.lastOrNull()?.index ?: -1
+            lastVisible >= layoutInfo.totalItemsCount - LOAD_OLDER_THRESHOLD_ITEMS
+        }
+            .distinctUntilChanged()
+            .filter { it }
+            .collect { onLoadOlderTransactions() }
+    }
 
+    LazyColumn(
+        state = listState,
         modifier = Modifier
             .fillMaxSize()
-            .verticalScroll(scrollState)
-            .background(MaterialTheme.colorScheme.background)
-            .padding(16.dp),
+            .background(MaterialTheme.colorScheme.background),
+        contentPadding = PaddingValues(16.dp),
         horizontalAlignment = Alignment.CenterHorizontally
     ) {
+        item {
+            Column(
+                modifier = Modifier.fillMaxWidth(),
+                horizontalAlignment = Alignment.CenterHorizontally
+            ) {
+                Row(
+                    modifier = Modifier
+                        .fillMaxWidth()
+                        .padding(horizontal = 8.dp, vertical = 4.dp),
+                    verticalAlignment = Alignment.CenterVertically
+                ) {
+                    Text(
+                        text = "SMARTSAVE OVERVIEW",
+                        fontSize = 20.sp,
+                        color = blue,
+                        fontWeight = FontWeight.Bold,
+                        modifier = Modifier.weight(1f)
+                    )
+
+                    IconButton(onClick = onLogout) {
+                        Icon(
+                            imageVector = Icons.Default.ExitToApp,
+                            contentDescription = "Logout",
+                            tint = MaterialTheme.colorScheme.onSurfaceVariant
+                        )
+                    }
+                }
 
-        Row(
-            modifier = Modifier
-                .fillMaxWidth()
-                .padding(horizontal = 8.dp, vertical = 4.dp),
-            verticalAlignment = Alignment.CenterVertically
-        ) {
-            Text(
-                text = "SMARTSAVE OVERVIEW",
-                fontSize = 20.sp,
-                color = blue,
-                fontWeight = FontWeight.Bold,
-                modifier = Modifier.weight(1f)
-            )
-
-            IconButton(onClick = onLogout) {
-                Icon(
-                    imageVector = Icons.Default.ExitToApp,
-                    contentDescription = "Logout",
-                    tint = MaterialTheme.colorScheme.onSurfaceVariant
-                )
-            }
-        }
-
-
-
-        Spacer(modifier = Modifier.height(16.dp))
 
-        Row(horizontalArrangement = Arrangement.spacedBy(8.dp)) {
-            ActionButton(
-                text = "Adjust",
-                iconPainter = painterResource(id = R.drawable.baseline_percent_24),
-                onClick = onAdjustClicked
-            )
 
-            val pauseStartText = if (isSmartSaveActive) "Pause" else "Start"
-            val pauseStartIconPainter = if (isSmartSaveActive)
-                painterResource(id = R.drawable.baseline_pause_24)
-            else
-                painterResource(id = R.drawable.baseline_play_arrow_24)
-            ActionButton(
-                text = pauseStartText,
-                iconPainter = pauseStartIconPainter,
-                onClick = onToggleActiveState
-            )
-
-            ActionButton(
-                text = "Analytics",
-                iconPainter = painterResource(id = R.drawable.baseline_bar_chart_24),
-                onClick = onAnalyticsClicked
-            )
-        }
-        Spacer(modifier = Modifier.height(16.dp))
+                Spacer(modifier = Modifier.height(16.dp))
+
+                Row(horizontalArrangement = Arrangement.spacedBy(8.dp)) {
+                    ActionButton(
+                        text = "Adjust",
+                        iconPainter = painterResource(id = R.drawable.baseline_percent_24),
+                        onClick = onAdjustClicked
+                    )
+
+                    val pauseStartText = if (isSmartSaveActive) "Pause" else "Start"
+                    val pauseStartIconPainter = if (isSmartSaveActive)
+                        painterResource(id = R.drawable.baseline_pause_24)
+                    else
+                        painterResource(id = R.drawable.baseline_play_arrow_24)
+                    ActionButton(
+                        text = pauseStartText,
+                        iconPainter = pauseStartIconPainter,
+                        onClick = onToggleActiveState
+                    )
+
+                    ActionButton(
+                        text = "Analytics",
+                        iconPainter = painterResource(id = R.drawable.baseline_bar_chart_24),
+                        onClick = onAnalyticsClicked
+                    )
+                }
+                Spacer(modifier = Modifier.height(16.dp))
 
-        Text(
-            "Saving plan: ${String.format("%.0f", savingsPercentage)}%",
-            fontSize = 14.sp,
-            color = MaterialTheme.colorScheme.onSurfaceVariant
-        )
-        Spacer(modifier = Modifier.height(16.dp))
-
-        Box(
-            contentAlignment = Alignment.Center,
-            modifier = Modifier
-                .size(160.dp)
-                .border(
-                    width = 4.dp,
-                    color = blue,
-                    shape = CircleShape
-                )
-        ) {
-            Column(horizontalAlignment = Alignment.CenterHorizontally) {
                 Text(
-                    String.format(
-                        Locale.getDefault(),
-                        "%.2f %s",
-                        totalSavings,
-                        transactions.firstOrNull()?.currency ?: "BGN"
-                    ),
-                    fontSize = 22.sp,
-                    color = MaterialTheme.colorScheme.onSurface,
-                    fontWeight = FontWeight.Bold
+                    "Saving plan: ${String.format("%.0f", savingsPercentage)}%",
+                    fontSize = 14.sp,
+                    color = MaterialTheme.colorScheme.onSurfaceVariant
                 )
-            }
-        }
+                Spacer(modifier = Modifier.height(16.dp))
+
+                Box(
+                    contentAlignment = Alignment.Center,
+                    modifier = Modifier
+                        .size(160.dp)
+                        .border(
+                            width = 4.dp,
+                            color = blue,
+                            shape = CircleShape
+                        )
+                ) {
+                    Column(horizontalAlignment = Alignment.CenterHorizontally) {
+                        Text(
+                            String.format(
+                                Locale.getDefault(),
+                                "%.2f %s",
+                                totalSavings,
+                                transactions.firstOrNull()?.currency ?: "BGN"
+                            ),
+                            fontSize = 22.sp,
+                            color = MaterialTheme.colorScheme.onSurface,
+                            fontWeight = FontWeight.Bold
+                        )
+                    }
+                }
 
-        Spacer(modifier = Modifier.height(16.dp))
+                Spacer(modifier = Modifier.height(16.dp))
 
-        Column(
-            modifier = Modifier.fillMaxWidth(),
-            horizontalAlignment = Alignment.CenterHorizontally
-        ) {
-            Text("Total Savings", fontSize = 12.sp, color = MaterialTheme.colorScheme.onSurface)
-            Text("Interest Rate (Example: 2.24%)", fontSize = 12.sp)
-            if (!pendingWithdrawalMessage.isNullOrEmpty()) {
-                Text(
-                    pendingWithdrawalMessage,
-                    fontSize = 13.sp,
-                    color = MaterialTheme.colorScheme.error,
-                    modifier = Modifier.padding(top = 4.dp)
-                )
-            }
-            Spacer(modifier = Modifier.height(8.dp))
-            OutlinedButton(
-                onClick = onWithdrawClicked,
-                colors = ButtonDefaults.outlinedButtonColors(
-                    contentColor = blue
-                ),
-                border = BorderStroke(1.dp, blue)
-            ) {
-                Icon(
-                    painter = painterResource(id = R.drawable.baseline_transit_enterexit_24),
-                    contentDescription = "Withdraw",
-                    tint = blue
-                )
-                Spacer(modifier = Modifier.width(4.dp))
-                Text("Withdraw")
-            }
-        }
+                Column(
+                    modifier = Modifier.fillMaxWidth(),
+                    horizontalAlignment = Alignment.CenterHorizontally
+                ) {
+                    Text("Total Savings", fontSize = 12.sp, color = MaterialTheme.colorScheme.onSurface)
+                    Text("Interest Rate (Example: 2.24%)", fontSize = 12.sp)
+                    if (!pendingWithdrawalMessage.isNullOrEmpty()) {
+                        Text(
+                            pendingWithdrawalMessage,
+                            fontSize = 13.sp,
+                            color = MaterialTheme.colorScheme.error,
+                            modifier = Modifier.padding(top = 4.dp)
+                        )
+                    }
+                    Spacer(modifier = Modifier.height(8.dp))
+                    OutlinedButton(
+                        onClick = onWithdrawClicked,
+                        colors = ButtonDefaults.outlinedButtonColors(
+                            contentColor = blue
+                        ),
+                        border = BorderStroke(1.dp, blue)
+                    ) {
+                        Icon(
+                            painter = painterResource(id = R.drawable.baseline_transit_enterexit_24),
+                            contentDescription = "Withdraw",
+                            tint = blue
+                        )
+                        Spacer(modifier = Modifier.width(4.dp))
+                        Text("Withdraw")
+                    }
+                }
 
-        Spacer(modifier = Modifier.height(16.dp))
+                Spacer(modifier = Modifier.height(16.dp))
 
-        Row(
-            modifier = Modifier.fillMaxWidth(),
-            horizontalArrangement = Arrangement.SpaceEvenly
-        ) {
-            InfoCard("Earned this month", earnedThisMonthValue)
-            InfoCard("Progress this month", progressThisMonthValue)
-        }
+                Row(
+                    modifier = Modifier.fillMaxWidth(),
+                    horizontalArrangement = Arrangement.SpaceEvenly
+                ) {
+                    InfoCard("Earned this month", earnedThisMonthValue)
+                    InfoCard("Progress this month", progressThisMonthValue)
+                }
 
-        Spacer(modifier = Modifier.height(30.dp))
-
-        Row(
-            verticalAlignment = Alignment.CenterVertically,
-            modifier = Modifier
-                .fillMaxWidth()
-                .padding(bottom = 8.dp)
-        ) {
-            Icon(
-                painter = painterResource(id = R.drawable.baseline_history_24),
-                contentDescription = "Transaction History Icon",
-                tint = MaterialTheme.colorScheme.onSurfaceVariant
-            )
-            Spacer(modifier = Modifier.width(8.dp))
-            Text(
-                text = "Transaction History",
-                style = MaterialTheme.typography.titleMedium
-            )
-        }
+                Spacer(modifier = Modifier.height(30.dp))
+
+                Row(
+                    verticalAlignment = Alignment.CenterVertically,
+                    modifier = Modifier
+                        .fillMaxWidth()
+                        .padding(bottom = 8.dp)
+                ) {
+                    Icon(
+                        painter = painterResource(id = R.drawable.baseline_history_24),
+                        contentDescription = "Transaction History Icon",
+                        tint = MaterialTheme.colorScheme.onSurfaceVariant
+                    )
+                    Spacer(modifier = Modifier.width(8.dp))
+                    Text(
+                        text = "Transaction History",
+                        style = MaterialTheme.typography.titleMedium
+                    )
+                }
 
-        Spacer(modifier = Modifier.height(16.dp))
+                Spacer(modifier = Modifier.height(16.dp))
+
+                Row(
+                    horizontalArrangement = Arrangement.spacedBy(12.dp, Alignment.CenterHorizontally),
+                    modifier = Modifier.fillMaxWidth()
+                ) {
+                    FilterButton("All", selectedFilter == TransactionFilter.ALL) {
+                        onFilterSelected(TransactionFilter.ALL)
+                    }
+                    FilterButton("Today", selectedFilter == TransactionFilter.TODAY) {
+                        onFilterSelected(TransactionFilter.TODAY)
+                    }
+                    FilterButton("This Week", selectedFilter == TransactionFilter.THIS_WEEK) {
+                        onFilterSelected(TransactionFilter.THIS_WEEK)
+                    }
+                }
 
-        Row(
-            horizontalArrangement = Arrangement.spacedBy(12.dp, Alignment.CenterHorizontally),
-            modifier = Modifier.fillMaxWidth()
-        ) {
-            FilterButton("All", selectedFilter == TransactionFilter.ALL) {
-                onFilterSelected(TransactionFilter.ALL)
-            }
-            FilterButton("Today", selectedFilter == TransactionFilter.TODAY) {
-                onFilterSelected(TransactionFilter.TODAY)
-            }
-            FilterButton("This Week", selectedFilter == TransactionFilter.THIS_WEEK) {
-                onFilterSelected(TransactionFilter.THIS_WEEK)
+                Spacer(modifier = Modifier.height(16.dp))
             }
         }
 
-        Spacer(modifier = Modifier.height(16.dp))
-
         when {
-            isLoading -> {
-                CircularProgressIndicator(modifier = Modifier.align(Alignment.CenterHorizontally))
+            isLoading -> item {
+                CircularProgressIndicator()
             }
 
-            errorMessage != null -> {
+            errorMessage != null -> item {
                 Text(
                     "Error: $errorMessage",
                     color = MaterialTheme.colorScheme.error,
@@ -259,7 +290,7 @@ fun DashboardContent(
                 )
             }
 
-            transactions.isEmpty() && !isLoading -> {
+            transactions.isEmpty() -> item {
                 val emptyMessage = when (selectedFilter) {
                     TransactionFilter.TODAY -> "No transactions from today."
                     TransactionFilter.THIS_WEEK -> "No transactions from this week."
@@ -273,15 +304,12 @@ fun DashboardContent(
                 )
             }
 
-            else -> {
-                transactions.forEach { tx ->
-                    TransactionCard(tx)
-                    Spacer(modifier = Modifier.height(8.dp))
-                }
+            else -> items(transactions, key = { it.id }) { tx ->
+                TransactionCard(tx.row)
+                Spacer(modifier = Modifier.height(8.dp))
             }
         }
     }
-
 }
 
 @Composable
@@ -336,15 +364,14 @@ fun InfoCard(title: String, value: String) {
     }
 }
 
+// Reads only preformatted text, so recomposing a row formats nothing.
 @Composable
-fun TransactionCard(tx: Transaction) {
-    val isPendingWithdrawal = tx.type == "PENDING_WITHDRAWAL"
-
-    val savingsImpactText = tx.getSavingsImpactForList()
+fun TransactionCard(row: TransactionRow) {
+    val savingsImpactText = row.savingsImpact
     val savingsColor = when {
-        isPendingWithdrawal -> Color.Gray
-        savingsImpactText.startsWith("+") -> Color(0xFF2E7D32)
-        savingsImpactText.startsWith("-") -> Color(0xFFC62828)
+        row.isPendingWithdrawal -> Color.Gray
+        row.savingsImpactSign > 0 -> Color(0xFF2E7D32)
+        row.savingsImpactSign < 0 -> Color(0xFFC62828)
         else -> MaterialTheme.colorScheme.onSurfaceVariant
     }
 
@@ -360,13 +387,13 @@ fun TransactionCard(tx: Transaction) {
             .weight(1f)
             .padding(end = 8.dp)) {
             Text(
-                tx.description,
+                row.description,
                 fontSize = 14.sp,
                 fontWeight = FontWeight.Medium,
                 color = MaterialTheme.colorScheme.onSurface
             )
             Text(
-                tx.getFormattedDate(),
+                row.date,
                 fontSize = 12.sp,
                 color = MaterialTheme.colorScheme.onSurfaceVariant
             )
@@ -382,7 +409,7 @@ fun TransactionCard(tx: Transaction) {
                 )
             }
             Text(
-                text = tx.getDisplayAmountForList(),
+                text = row.displayAmount,
                 color = MaterialTheme.colorScheme.onSurfaceVariant,
                 fontSize = if (savingsImpactText.isNotBlank()) 12.sp else 14.sp,
                 textAlign = TextAlign.End
@@ -5,17 +5,42 @@ import androidx.compose.runtime.*
 import androidx.compose.ui.platform.LocalContext
 import androidx.navigation.NavController
 import com.example.smartsave.DashboardContent
+import com.example.smartsave.core.Money
+import com.example.smartsave.core.MonthBoundaries
+import com.example.smartsave.data.SavingsRepository
+import com.example.smartsave.data.TransactionTimeIndex
 import com.example.smartsave.model.Transaction
 import com.example.smartsave.ui.navigation.Screen
-import com.example.smartsave.util.SavingsCalculator
+import com.example.smartsave.util.SavingsCalculationException
+import com.example.smartsave.util.SavingsCalculations
+import com.example.smartsave.util.WithdrawalStore
 import com.google.firebase.auth.FirebaseAuth
 import com.google.firebase.database.*
 import java.util.Calendar
 import java.util.Locale
-import java.util.TimeZone
 
 enum class TransactionFilter {
-    ALL, TODAY, THIS_WEEK
+    ALL, TODAY, THIS_WEEK;
+
+    /**
+     * {start, end} of this filter's UTC window for [nowMillis], or null when it shows everything.
+     * Weeks start on [firstDayOfWeek], a Calendar.SUNDAY..SATURDAY constant.
+     */
+    fun range(nowMillis: Long, firstDayOfWeek: Int = Calendar.getInstance().firstDayOfWeek): LongArray? {
+        val todayStart = MonthBoundaries.dayStart(nowMillis)
+        val todayEnd = todayStart + MonthBoundaries.DAY_MILLIS - 1
+        return when (this) {
+            ALL -> null
+            TODAY -> longArrayOf(todayStart, todayEnd)
+            THIS_WEEK -> {
+                val epochDay = Math.floorDiv(todayStart, MonthBoundaries.DAY_MILLIS)
+                // 1970-01-01 was a Thursday, Calendar.THURSDAY == 5.
+                val dayOfWeek = Math.floorMod(epochDay + 4, 7L).toInt() + Calendar.SUNDAY
+                val daysIntoWeek = Math.floorMod(dayOfWeek - firstDayOfWeek, 7)
+                longArrayOf(todayStart - daysIntoWeek * MonthBoundaries.DAY_MILLIS, todayEnd)
+            }
+        }
+    }
 }
 
 @Composable
@@ -29,7 +54,11 @@ fun DashboardScreen(navController: NavController) {
 
     var selectedTransactionFilter by remember { mutableStateOf(TransactionFilter.ALL) }
 
-    var transactionsList by remember { mutableStateOf<List<Transaction>>(emptyList()) }
+    var ledgerIndex by remember { mutableStateOf(TransactionTimeIndex.empty()) }
+    // The index is updated in place; bumping this re-slices the visible list.
+    var ledgerRevision by remember { mutableStateOf(0) }
+    // Oldest row of the history shown so far; null shows just the newest page.
+    var historyCursor by remember { mutableStateOf<Transaction?>(null) }
     var totalSavings by remember { mutableStateOf(0.0) }
     var pendingWithdrawalAmount by remember { mutableStateOf(0.0) }
     var savingsPercentage by remember { mutableStateOf(0.0) }
@@ -76,7 +105,7 @@ fun DashboardScreen(navController: NavController) {
             isLoadingEarnedThisMonth = true
             isLoadingProgressThisMonth = true
             errorMessage = null
-            transactionsList = emptyList()
+            ledgerIndex = TransactionTimeIndex.empty()
             totalSavings = 0.0
             savingsPercentage = 0.0
             earnedThisMonth = 0.0
@@ -84,144 +113,84 @@ fun DashboardScreen(navController: NavController) {
             progressThisMonth = 0.0
             progressThisMonthCurrency = "BGN"
             selectedTransactionFilter = TransactionFilter.ALL
+            historyCursor = null
         }
     }
 
     currentAuthUser?.let { user ->
         val userId = user.uid
-        val userProfileRef = database.reference.child("smartSaveProfile").child(userId)
 
-        DisposableEffect(key1 = userId) {
+        // Both flows are shared with the other screens and outlive this one for a grace period.
+        LaunchedEffect(key1 = userId) {
             isLoadingProfile = true
-            val profileListener = userProfileRef.addValueEventListener(object : ValueEventListener {
-                override fun onDataChange(snapshot: DataSnapshot) {
-                    totalSavings = snapshot.child("totalSaved").getValue(Double::class.java) ?: 0.0
-                    savingsPercentage = snapshot.child("savingsPercentage").getValue(Double::class.java) ?: 0.0
-                    isLoadingProfile = false
-                }
-
-                override fun onCancelled(error: DatabaseError) {
-                    errorMessage = (errorMessage ?: "") + "\nProfile load error."
-                    isLoadingProfile = false
-                }
-            })
-            onDispose { userProfileRef.removeEventListener(profileListener) }
+            SavingsRepository.profile(userId).collect { profile ->
+                if (!profile.loaded) return@collect
+                totalSavings = profile.totalSaved
+                savingsPercentage = profile.savingsPercentage
+                if (profile.error != null) errorMessage = (errorMessage ?: "") + "\nProfile load error."
+                isLoadingProfile = false
+            }
         }
 
-        DisposableEffect(key1 = userId, key2 = selectedTransactionFilter) {
+        LaunchedEffect(key1 = userId) {
             isLoadingTransactions = true
-            transactionsList = emptyList()
-            errorMessage = null
-
-            val userTransactionsNodeRef = userProfileRef.child("transactions")
-            var query: Query = userTransactionsNodeRef.orderByChild("date")
-
-            val calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"))
-
-            when (selectedTransactionFilter) {
-                TransactionFilter.TODAY -> {
-                    calendar.set(Calendar.HOUR_OF_DAY, 0)
-                    calendar.set(Calendar.MINUTE, 0)
-                    calendar.set(Calendar.SECOND, 0)
-                    calendar.set(Calendar.MILLISECOND, 0)
-                    val startTodayTimestamp = calendar.timeInMillis
-                    calendar.set(Calendar.HOUR_OF_DAY, 23)
-                    calendar.set(Calendar.MINUTE, 59)
-                    calendar.set(Calendar.SECOND, 59)
-                    calendar.set(Calendar.MILLISECOND, 999)
-                    val endTodayTimestamp = calendar.timeInMillis
-                    query = userTransactionsNodeRef.orderByChild("timestamp")
-                        .startAt(startTodayTimestamp.toDouble())
-                        .endAt(endTodayTimestamp.toDouble())
-                }
-
-                TransactionFilter.THIS_WEEK -> {
-                    calendar.set(Calendar.HOUR_OF_DAY, 23)
-                    calendar.set(Calendar.MINUTE, 59)
-                    calendar.set(Calendar.SECOND, 59)
-                    calendar.set(Calendar.MILLISECOND, 999)
-                    val endOfWeekTimestamp = calendar.timeInMillis
-                    val tempCal = Calendar.getInstance(TimeZone.getTimeZone("UTC"))
-                    tempCal.set(Calendar.DAY_OF_WEEK, tempCal.firstDayOfWeek)
-                    tempCal.set(Calendar.HOUR_OF_DAY, 0)
-                    tempCal.set(Calendar.MINUTE, 0)
-                    tempCal.set(Calendar.SECOND, 0)
-                    tempCal.set(Calendar.MILLISECOND, 0)
-                    val startOfWeekTimestamp = tempCal.timeInMillis
-                    query = userTransactionsNodeRef.orderByChild("timestamp")
-                        .startAt(startOfWeekTimestamp.toDouble())
-                        .endAt(endOfWeekTimestamp.toDouble())
-                }
-
-                TransactionFilter.ALL -> {}
-            }
-
-            val transactionListListener = query.addValueEventListener(object : ValueEventListener {
-                override fun onDataChange(snapshot: DataSnapshot) {
-                    val newTransactions = mutableListOf<Transaction>()
-                    snapshot.children.forEach { data ->
-                        data.getValue(Transaction::class.java)?.let {
-                            it.id = data.key ?: ""
-                            newTransactions.add(it)
-                        }
-                    }
-                    transactionsList = newTransactions.reversed()
-
-                    pendingWithdrawalAmount = newTransactions
-                        .filter { it.type == "PENDING_WITHDRAWAL" }
-                        .sumOf { it.amount }
-
+            SavingsRepository.ledger(userId).collect { ledger ->
+                if (!ledger.loaded) return@collect
+                if (ledger.index !== ledgerIndex) historyCursor = null
+                ledgerIndex = ledger.index
+                ledgerRevision = ledger.revision
+                // The first page alone would understate the pending total.
+                if (ledger.complete) {
+                    pendingWithdrawalAmount = ledger.index.pendingWithdrawal
                     pendingText = if (pendingWithdrawalAmount != 0.0)
                         String.format(Locale.getDefault(), "%.2f BGN is being withdrawn...", -pendingWithdrawalAmount)
                     else null
-
-                    isLoadingTransactions = false
-                }
-
-                override fun onCancelled(error: DatabaseError) {
-                    errorMessage = (errorMessage ?: "") + "\nFailed to load transactions."
-                    isLoadingTransactions = false
                 }
-            })
+                if (ledger.error != null) errorMessage = (errorMessage ?: "") + "\n" + ledger.error
+                isLoadingTransactions = false
+            }
+        }
 
-            onDispose { query.removeEventListener(transactionListListener) }
+        // Settles withdrawals that fell due while the app wasn't running.
+        LaunchedEffect(key1 = userId) {
+            WithdrawalStore.settleDue(userId)
         }
 
-        DisposableEffect(key1 = userId) {
+        // Leaving the screen cancels these, which stops their ledger scans and drops the results.
+        // The shared ledger read they wait on still finishes and fills the cache.
+        LaunchedEffect(key1 = userId) {
             isLoadingEarnedThisMonth = true
-            SavingsCalculator.calculateInterestEarnedLastMonth(object : SavingsCalculator.InterestCalculationCallback {
-                override fun onSuccess(totalInterest: Double, currency: String) {
-                    earnedThisMonth = totalInterest
-                    earnedThisMonthCurrency = "BGN"
-                    isLoadingEarnedThisMonth = false
-                }
-
-                override fun onError(errorMsg: String) {
-                    errorMessage = (errorMessage ?: "") + "\nMonthly earnings error."
-                    isLoadingEarnedThisMonth = false
-                }
-            })
-            onDispose { }
+            try {
+                earnedThisMonth = SavingsCalculations.interestEarnedLastMonth().value
+                earnedThisMonthCurrency = "BGN"
+            } catch (e: SavingsCalculationException) {
+                errorMessage = (errorMessage ?: "") + "\nMonthly earnings error."
+            }
+            isLoadingEarnedThisMonth = false
         }
 
-        DisposableEffect(key1 = userId) {
+        LaunchedEffect(key1 = userId) {
             isLoadingProgressThisMonth = true
-            SavingsCalculator.calculateProgressThisMonth(object : SavingsCalculator.MonthlyProgressCallback {
-                override fun onSuccess(totalProgress: Double, currency: String) {
-                    progressThisMonth = totalProgress
-                    progressThisMonthCurrency = "BGN"
-                    isLoadingProgressThisMonth = false
-                }
-
-                override fun onError(errorMsg: String) {
-                    errorMessage = (errorMessage ?: "") + "\nMonthly progress error."
-                    isLoadingProgressThisMonth = false
-                }
-            })
-            onDispose { }
+            try {
+                progressThisMonth = SavingsCalculations.progressThisMonth().value
+                progressThisMonthCurrency = "BGN"
+            } catch (e: SavingsCalculationException) {
+                errorMessage = (errorMessage ?: "") + "\nMonthly progress error."
+            }
+            isLoadingProgressThisMonth = false
         }
     }
 
+    val historyRange = remember(selectedTransactionFilter) {
+        selectedTransactionFilter.range(System.currentTimeMillis()) ?: longArrayOf(Long.MIN_VALUE, Long.MAX_VALUE)
+    }
+    val transactionsList = remember(ledgerIndex, ledgerRevision, historyRange, historyCursor) {
+        ledgerIndex.newestFirst(historyRange[0], historyRange[1], historyCursor, SavingsRepository.HISTORY_PAGE_SIZE)
+    }
+    val hasOlderTransactions = remember(ledgerIndex, ledgerRevision, historyRange, historyCursor) {
+        ledgerIndex.hasOlder(historyRange[0], historyRange[1], historyCursor, SavingsRepository.HISTORY_PAGE_SIZE)
+    }
+
     DashboardContent(
         transactions = transactionsList,
         totalSavings = totalSavings,
@@ -229,8 +198,17 @@ fun DashboardScreen(navController: NavController) {
         earnedThisMonthValue = String.format(Locale.getDefault(), "%.2f %s", earnedThisMonth, earnedThisMonthCurrency),
         progressThisMonthValue = String.format(Locale.getDefault(), "%.2f %s", progressThisMonth, progressThisMonthCurrency),
         selectedFilter = selectedTransactionFilter,
-        onFilterSelected = { newFilter -> selectedTransactionFilter = newFilter },
+        onFilterSelected = { newFilter ->
+            selectedTransactionFilter = newFilter
+            historyCursor = null
+        },
         pendingWithdrawalMessage = pendingText,
+        hasOlderTransactions = hasOlderTransactions,
+        onLoadOlderTransactions = {
+            historyCursor = ledgerIndex.olderCursor(
+                historyRange[0], historyRange[1], historyCursor, SavingsRepository.HISTORY_PAGE_SIZE
+            )
+        },
         isSmartSaveActive = isSmartSaveActive,
         onToggleActiveState = {
             if (currentAuthUser == null || isTogglingActiveState) return@DashboardContent
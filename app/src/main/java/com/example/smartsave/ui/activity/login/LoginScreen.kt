@@ -16,13 +16,13 @@ import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
 import androidx.core.net.toUri
 import androidx.navigation.NavController
+import com.example.smartsave.data.SavingsRepository
 import com.example.smartsave.ui.navigation.Screen
 import com.example.smartsave.ui.theme.SmartSaveTextFieldColors
 import com.example.smartsave.ui.theme.blue
 import com.example.smartsave.util.SavingsCalculator
 import com.google.firebase.auth.FirebaseAuth
 import com.google.firebase.auth.FirebaseUser
-import com.google.firebase.database.*
 
 @Composable
 fun LoginScreen(navController: NavController) {
@@ -195,7 +195,6 @@ fun LoginScreen(navController: NavController) {
 }
 
 private const val TAG_LOGIN_SCREEN = "LoginScreenLogic"
-private const val SMART_SAVE_PROFILE_NODE = "smartSaveProfile"
 
 private fun checkUserProfileAndNavigate(
     user: FirebaseUser,
@@ -204,48 +203,45 @@ private fun checkUserProfileAndNavigate(
     onNavigationAttempted: (Boolean) -> Unit
 ) {
     val userId = user.uid
-    val db =
-        FirebaseDatabase.getInstance("https://smartsave-e0e7b-default-rtdb.europe-west1.firebasedatabase.app/")
-    val profileRef = db.reference.child(SMART_SAVE_PROFILE_NODE).child(userId)
-
-    profileRef.addListenerForSingleValueEvent(object : ValueEventListener {
-        override fun onDataChange(dataSnapshot: DataSnapshot) {
-            val route: String
-            if (dataSnapshot.exists()) {
-                route = Screen.Dashboard.route
-                SavingsCalculator.recalculateAndUpdatetotalSaved(object :
-                    SavingsCalculator.CalculationCallback {
-                    override fun onSuccess(newTotalSaved: Double) {
-                    }
 
-                    override fun onError(errorMessage: String) {
-                    }
-                })
+    // Also warms the shared profile listener the dashboard is about to collect.
+    SavingsRepository.awaitProfile(userId) { profile ->
+        if (profile.error != null) {
+            setErrorMessage("Error accessing profile: ${profile.error}")
+            onNavigationAttempted(false)
+            return@awaitProfile
+        }
 
-            } else {
-                route = Screen.Setup.route
-            }
+        val route: String
+        if (profile.exists) {
+            route = Screen.Dashboard.route
+            SavingsCalculator.recalculateAndUpdatetotalSaved(object :
+                SavingsCalculator.CalculationCallback {
+                override fun onSuccess(newTotalSaved: Double) {
+                }
 
-            try {
-                val currentDestination = navController.currentDestination?.route
-                if (currentDestination == Screen.Login.route) {
-                    navController.navigate(route) {
-                        popUpTo(Screen.Login.route) { inclusive = true }
-                        launchSingleTop = true
-                    }
-                    onNavigationAttempted(true)
-                } else {
-                    onNavigationAttempted(false)
+                override fun onError(errorMessage: String) {
                 }
-            } catch (e: Exception) {
-                setErrorMessage("Navigation error. Please try again.")
-                onNavigationAttempted(false)
-            }
+            })
+
+        } else {
+            route = Screen.Setup.route
         }
 
-        override fun onCancelled(databaseError: DatabaseError) {
-            setErrorMessage("Error accessing profile: ${databaseError.message}")
+        try {
+            val currentDestination = navController.currentDestination?.route
+            if (currentDestination == Screen.Login.route) {
+                navController.navigate(route) {
+                    popUpTo(Screen.Login.route) { inclusive = true }
+                    launchSingleTop = true
+                }
+                onNavigationAttempted(true)
+            } else {
+                onNavigationAttempted(false)
+            }
+        } catch (e: Exception) {
+            setErrorMessage("Navigation error. Please try again.")
             onNavigationAttempted(false)
         }
-    })
+    }
 }
\ No newline at end of file
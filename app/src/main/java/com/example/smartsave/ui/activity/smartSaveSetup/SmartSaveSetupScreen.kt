@@ -17,14 +17,13 @@ import androidx.compose.ui.text.style.TextAlign
 import androidx.compose.ui.unit.*
 import androidx.navigation.NavController
 import com.example.smartsave.R
+import com.example.smartsave.data.SavingsRepository
 import com.example.smartsave.model.SmartSaveProfile
 import com.example.smartsave.ui.navigation.Screen
 import com.example.smartsave.ui.theme.blue
 import com.google.firebase.auth.FirebaseAuth
-import com.google.firebase.database.DataSnapshot
-import com.google.firebase.database.DatabaseError
 import com.google.firebase.database.FirebaseDatabase
-import com.google.firebase.database.ValueEventListener
+import kotlinx.coroutines.flow.first
 import java.text.SimpleDateFormat
 import java.util.Date
 import java.util.Locale
@@ -60,44 +59,34 @@ fun SmartSaveSetupScreen(navController: NavController) {
         }
         isLoading = true
         val userId = currentUser.uid
-        val profileRef = database.reference.child("smartSaveProfile").child(userId)
-        val listener = object : ValueEventListener {
-            override fun onDataChange(snapshot: DataSnapshot) {
-                if (snapshot.exists()) {
-                    val profile = snapshot.getValue(SmartSaveProfile::class.java)
-                    existingProfile = profile
-                    profile?.let {
-                        val loadedPercentage = it.savingsPercentage.toFloat()
-                        Log.d(
-                            TAG_SETUP_SCREEN,
-                            "Profile loaded. DB savingsPercentage: ${it.savingsPercentage}, converted toFloat: $loadedPercentage"
-                        )
-                        percentage = loadedPercentage
-                    }
-                } else {
-                    Log.d(TAG_SETUP_SCREEN, "No existing profile found for user $userId.")
-                    existingProfile = null
-                }
-                isLoading = false
-                initialProfileFetched = true
-            }
-
-            override fun onCancelled(error: DatabaseError) {
-                Log.e(
-                    TAG_SETUP_SCREEN,
-                    "Error fetching profile: ${error.message}",
-                    error.toException()
-                )
-                Toast.makeText(
-                    context,
-                    "Error fetching profile: ${error.message}",
-                    Toast.LENGTH_LONG
-                ).show()
-                isLoading = false
-                initialProfileFetched = true
-            }
+        // Usually already loaded: the dashboard and login share this listener.
+        val profile = SavingsRepository.profile(userId).first { it.loaded }
+        if (profile.error != null) {
+            Log.e(TAG_SETUP_SCREEN, "Error fetching profile: ${profile.error}")
+            Toast.makeText(
+                context,
+                "Error fetching profile: ${profile.error}",
+                Toast.LENGTH_LONG
+            ).show()
+        } else if (profile.exists) {
+            existingProfile = SmartSaveProfile(
+                profile.savingsPercentage,
+                profile.startDate,
+                profile.totalSaved,
+                profile.isActive
+            )
+            val loadedPercentage = profile.savingsPercentage.toFloat()
+            Log.d(
+                TAG_SETUP_SCREEN,
+                "Profile loaded. DB savingsPercentage: ${profile.savingsPercentage}, converted toFloat: $loadedPercentage"
+            )
+            percentage = loadedPercentage
+        } else {
+            Log.d(TAG_SETUP_SCREEN, "No existing profile found for user $userId.")
+            existingProfile = null
         }
-        profileRef.addListenerForSingleValueEvent(listener)
+        isLoading = false
+        initialProfileFetched = true
     }
 
     if (isLoading && !initialProfileFetched) {
@@ -0,0 +1,154 @@
+package com.example.smartsave.util;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.smartsave.core.CompareAndSet;
+import com.example.smartsave.core.Money;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.Transaction;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes smartSaveProfile/{uid}/totalSaved without reading it first.
+ * <p>
+ * A change caused by a single new transaction is sent as a server-side increment. It takes
+ * one round trip and needs no prior read, and concurrent increments all land. A
+ * recalculation that replaces the total with a sum over the ledger goes through
+ * {@link #compareAndSet}. It commits only if totalSaved still holds the value the sum was
+ * based on; otherwise the caller sums again. Increments can leave floating-point noise in
+ * the stored decimal; readers round it to minor units.
+ * <p>
+ * Counts of increments, commits and lost races are kept so contention can be measured.
+ */
+public final class BalanceWriter {
+
+    private static final String TAG = "BalanceWriter";
+    private static final String SMART_SAVE_PROFILE_NODE = "smartSaveProfile";
+    private static final String DB_URL = "https://smartsave-e0e7b-default-rtdb.europe-west1.firebasedatabase.app/";
+
+    public static final String TOTAL_SAVED_FIELD = "totalSaved";
+    /** Times a recalculation re-sums after losing a compare-and-set before giving up. */
+    public static final int MAX_COMPARE_AND_SET_ATTEMPTS = 3;
+
+    private static final AtomicLong increments = new AtomicLong();
+    private static final AtomicLong compareAndSetCommits = new AtomicLong();
+    private static final AtomicLong compareAndSetConflicts = new AtomicLong();
+
+    public interface WriteCallback {
+        void onSuccess();
+
+        void onError(String errorMessage);
+    }
+
+    public interface CompareAndSetCallback {
+        void onCommitted();
+
+        /**
+         * totalSaved no longer held the expected value; {@code actualMinor} is what it held.
+         */
+        void onConflict(long actualMinor);
+
+        void onError(String errorMessage);
+    }
+
+    private BalanceWriter() {
+    }
+
+    private static DatabaseReference totalSavedRef(String userId) {
+        return FirebaseDatabase.getInstance(DB_URL)
+                .getReference(SMART_SAVE_PROFILE_NODE)
+                .child(userId)
+                .child(TOTAL_SAVED_FIELD);
+    }
+
+    /**
+     * Value to put at totalSaved, alone or in a multi-path update, to add {@code deltaMinor}.
+     */
+    public static Object incrementBy(long deltaMinor) {
+        increments.incrementAndGet();
+        return ServerValue.increment(Money.toMajorUnits(deltaMinor));
+    }
+
+    public static void increment(String userId, long deltaMinor, WriteCallback callback) {
+        totalSavedRef(userId).setValue(incrementBy(deltaMinor))
+                .addOnSuccessListener(aVoid -> {
+                    Log.d(TAG, "[Increment] totalSaved for user " + userId + " moved by " + Money.toMajorUnits(deltaMinor));
+                    if (callback != null) callback.onSuccess();
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "[Increment] Failed for user " + userId + ": " + e.getMessage());
+                    if (callback != null) callback.onError("Failed to update totalSaved: " + e.getMessage());
+                });
+    }
+
+    /**
+     * Sets totalSaved to {@code newMinor} if it still holds {@code expectedMinor}; a missing
+     * total counts as zero. The first attempt runs against the locally synced value, so it
+     * costs one round trip whenever a listener keeps totalSaved current; without one, the
+     * server supplies the value first. See {@link CompareAndSet}.
+     */
+    public static void compareAndSet(String userId, long expectedMinor, long newMinor, CompareAndSetCallback callback) {
+        long[] actualMinor = {expectedMinor};
+        totalSavedRef(userId).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                Double current = currentData.getValue(Double.class);
+                actualMinor[0] = current == null ? 0L : Money.toMinorUnits(current);
+                switch (CompareAndSet.step(current, expectedMinor)) {
+                    case WRITE:
+                        currentData.setValue(Money.toMajorUnits(newMinor));
+                        return Transaction.success(currentData);
+                    case ASK_SERVER:
+                        return Transaction.success(currentData);
+                    default:
+                        return Transaction.abort();
+                }
+            }
+
+            @Override
+            public void onComplete(@Nullable DatabaseError error, boolean committed, @Nullable DataSnapshot currentData) {
+                if (error != null) {
+                    Log.e(TAG, "[CompareAndSet] Failed for user " + userId + ": " + error.getMessage());
+                    if (callback != null) callback.onError("Failed to update totalSaved: " + error.getMessage());
+                } else if (committed && CompareAndSet.swapped(
+                        currentData == null ? null : currentData.getValue(Double.class), expectedMinor)) {
+                    compareAndSetCommits.incrementAndGet();
+                    if (callback != null) callback.onCommitted();
+                } else {
+                    long conflicts = compareAndSetConflicts.incrementAndGet();
+                    Log.w(TAG, "[CompareAndSet] totalSaved for user " + userId + " was " + Money.toMajorUnits(actualMinor[0])
+                            + ", expected " + Money.toMajorUnits(expectedMinor) + ". Conflicts so far: " + conflicts);
+                    if (callback != null) callback.onConflict(actualMinor[0]);
+                }
+            }
+        });
+    }
+
+    /**
+     * Increments sent, alone or as part of a multi-path update.
+     */
+    public static long getIncrements() {
+        return increments.get();
+    }
+
+    public static long getCompareAndSetCommits() {
+        return compareAndSetCommits.get();
+    }
+
+    /**
+     * Compare-and-sets that found totalSaved changed under them.
+     */
+    public static long getCompareAndSetConflicts() {
+        return compareAndSetConflicts.get();
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.smartsave.util;
+
+import android.util.Log;
+
+import com.example.smartsave.core.CancellationToken;
+import com.example.smartsave.core.LedgerMath;
+import com.example.smartsave.core.Money;
+import com.example.smartsave.core.SavingsGrowthEngine;
+import com.example.smartsave.core.TransactionColumns;
+import com.example.smartsave.core.TransactionSource;
+import com.example.smartsave.core.TransactionType;
+import com.example.smartsave.data.LedgerCache;
+import com.example.smartsave.model.BalanceCheckpoint;
+import com.example.smartsave.model.MonthlyRollup;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Computes several analytics metrics from a single read of the user's transactions.
+ * <p>
+ * When the total is requested the whole ledger is read once into {@link TransactionColumns}
+ * and every metric is computed from those columns. Otherwise the month figures and
+ * growth series come from the per-month rollups.
+ */
+public final class LedgerAggregator {
+
+    private static final String TAG = "LedgerAggregator";
+    private static final String DEFAULT_CURRENCY = "BGN";
+
+    public enum Metric {
+        /** Sum of the whole ledger; its balance checkpoint is stored for the next recalculation. */
+        TOTAL_SAVED,
+        /** INTEREST_PAYMENT amounts inside the selected month. */
+        MONTH_INTEREST,
+        /** INCOME savingsCalculated inside the selected month. */
+        MONTH_INCOME_SAVINGS,
+        /** Month-end cumulative balances ending with the selected month. */
+        MONTHLY_GROWTH
+    }
+
+    public interface AggregationCallback {
+        void onSuccess(Result result);
+
+        void onError(String errorMessage);
+    }
+
+    public static final class Result {
+        private final Set<Metric> metrics;
+        private double totalSaved;
+        private double monthInterest;
+        private String monthInterestCurrency = DEFAULT_CURRENCY;
+        private double monthIncomeSavings;
+        private String monthIncomeSavingsCurrency = DEFAULT_CURRENCY;
+        private List<Map<String, Object>> monthlyGrowth = Collections.emptyList();
+
+        private Result(Set<Metric> metrics) {
+            this.metrics = Collections.unmodifiableSet(EnumSet.copyOf(metrics));
+        }
+
+        public boolean has(Metric metric) {
+            return metrics.contains(metric);
+        }
+
+        public double getTotalSaved() {
+            return totalSaved;
+        }
+
+        public double getMonthInterest() {
+            return monthInterest;
+        }
+
+        public String getMonthInterestCurrency() {
+            return monthInterestCurrency;
+        }
+
+        public double getMonthIncomeSavings() {
+            return monthIncomeSavings;
+        }
+
+        public String getMonthIncomeSavingsCurrency() {
+            return monthIncomeSavingsCurrency;
+        }
+
+        public List<Map<String, Object>> getMonthlyGrowth() {
+            return monthlyGrowth;
+        }
+    }
+
+    private LedgerAggregator() {
+    }
+
+    /**
+     * @param year         selected year, ignored when only TOTAL_SAVED is requested
+     * @param month        selected month, 1 for January, ignored when only TOTAL_SAVED is requested
+     * @param growthMonths number of months charted by MONTHLY_GROWTH
+     * @param metrics      metrics to compute; must not be empty
+     */
+    public static void aggregate(
+            int year,
+            int month,
+            int growthMonths,
+            Set<Metric> metrics,
+            AggregationCallback callback
+    ) {
+        aggregate(year, month, growthMonths, metrics, null, callback);
+    }
+
+    /**
+     * As above. Once {@code token} is cancelled the rollups read is detached, the ledger scan
+     * stops at its next block boundary, and nothing is written back or delivered.
+     */
+    public static void aggregate(
+            int year,
+            int month,
+            int growthMonths,
+            Set<Metric> metrics,
+            CancellationToken token,
+            AggregationCallback callback
+    ) {
+        FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
+        if (currentUser == null) {
+            Log.e(TAG, "[Aggregate] User not logged in.");
+            if (callback != null) callback.onError("User not logged in.");
+            return;
+        }
+        String userId = currentUser.getUid();
+
+        if (metrics == null || metrics.isEmpty()) {
+            Log.e(TAG, "[Aggregate] No metrics requested.");
+            if (callback != null) callback.onError("No metrics requested.");
+            return;
+        }
+        boolean needsMonth = metrics.contains(Metric.MONTH_INTEREST)
+                || metrics.contains(Metric.MONTH_INCOME_SAVINGS)
+                || metrics.contains(Metric.MONTHLY_GROWTH);
+        if (needsMonth && (month < 1 || month > 12)) {
+            Log.e(TAG, "[Aggregate] Invalid month provided: " + month);
+            if (callback != null) callback.onError("Invalid month selected.");
+            return;
+        }
+        if (metrics.contains(Metric.MONTHLY_GROWTH)
+                && (growthMonths <= 0 || growthMonths > SavingsGrowthEngine.MAX_MONTHS)) {
+            Log.e(TAG, "[Aggregate] Invalid number of growth months: " + growthMonths);
+            if (callback != null) callback.onError("Invalid number of months.");
+            return;
+        }
+
+        if (!metrics.contains(Metric.TOTAL_SAVED)) {
+            // Month figures and growth are all answerable from the per-month rollups.
+            aggregateFromRollups(userId, year, month, growthMonths, metrics, token, callback);
+            return;
+        }
+
+        boolean validMonth = month >= 1 && month <= 12;
+        long monthStart = validMonth ? LedgerMath.monthStart(year, month) : 0L;
+        long monthEnd = validMonth ? LedgerMath.monthEnd(year, month) : 0L;
+
+        Log.i(TAG, "[Aggregate] User: " + userId + ", Metrics: " + metrics + ", Month: " + month + "/" + year);
+
+        LedgerCache.forUser(userId).loadAll(new TransactionSource.Callback() {
+            @Override
+            public void onLoaded(TransactionColumns columns) {
+                Result result = new Result(metrics);
+
+                long totalSavedMinor;
+                try {
+                    totalSavedMinor = LedgerMath.totalSaved(columns, token);
+                } catch (CancellationException e) {
+                    Log.d(TAG, "[Aggregate] Cancelled after a partial scan of " + columns.size() + " transactions.");
+                    return;
+                }
+                if (CancellationToken.isCancelled(token)) return;
+                result.totalSaved = Money.toMajorUnits(totalSavedMinor);
+                if (metrics.contains(Metric.MONTH_INTEREST)) {
+                    result.monthInterest = Money.toMajorUnits(LedgerMath.interest(columns, monthStart, monthEnd));
+                    result.monthInterestCurrency = LedgerMath.currency(
+                            columns, TransactionType.INTEREST_PAYMENT, monthStart, monthEnd);
+                }
+                if (metrics.contains(Metric.MONTH_INCOME_SAVINGS)) {
+                    result.monthIncomeSavings = Money.toMajorUnits(LedgerMath.incomeSavings(columns, monthStart, monthEnd));
+                    result.monthIncomeSavingsCurrency = LedgerMath.currency(
+                            columns, TransactionType.INCOME, monthStart, monthEnd);
+                }
+                if (metrics.contains(Metric.MONTHLY_GROWTH)) {
+                    result.monthlyGrowth = LedgerMath.monthlyGrowth(columns, year, month, growthMonths);
+                }
+
+                Log.i(TAG, "[Aggregate] Aggregated " + columns.size() + " transactions for user " + userId);
+
+                if (metrics.contains(Metric.TOTAL_SAVED)) {
+                    // The covering read was the whole ledger, so it also yields a fresh balance
+                    // checkpoint. totalSaved itself is left to the next recalculation, which
+                    // folds from this checkpoint and compare-and-sets the total.
+                    int last = columns.size() - 1;
+                    BalanceCheckpoint checkpoint = last >= 0
+                            ? new BalanceCheckpoint(columns.key(last), columns.timestamp(last), totalSavedMinor, columns.size())
+                            : null;
+                    SavingsCalculator.storeBalanceCheckpoint(userId, checkpoint);
+                }
+                if (callback != null) callback.onSuccess(result);
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                Log.e(TAG, "[Aggregate] Failed to read transactions: " + errorMessage);
+                if (callback != null && !CancellationToken.isCancelled(token))
+                    callback.onError("Failed to read transactions for analytics: " + errorMessage);
+            }
+        });
+    }
+
+    private static void aggregateFromRollups(
+            String userId,
+            int year,
+            int month,
+            int growthMonths,
+            Set<Metric> metrics,
+            CancellationToken token,
+            AggregationCallback callback
+    ) {
+        MonthlyRollupStore.load(userId, token, new MonthlyRollupStore.RollupCallback() {
+            @Override
+            public void onSuccess(SortedMap<String, MonthlyRollup> rollups) {
+                Result result = new Result(metrics);
+                MonthlyRollup rollup = rollups.get(MonthlyRollupStore.monthKey(year, month));
+                if (rollup != null) {
+                    result.monthInterest = rollup.getInterest();
+                    result.monthInterestCurrency = rollup.getCurrency();
+                    result.monthIncomeSavings = rollup.getIncomeSavings();
+                    result.monthIncomeSavingsCurrency = rollup.getCurrency();
+                }
+                if (metrics.contains(Metric.MONTHLY_GROWTH)) {
+                    result.monthlyGrowth = MonthlyRollupStore.growthSeries(rollups, year, month, growthMonths);
+                }
+                if (callback != null) callback.onSuccess(result);
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                Log.e(TAG, "[Aggregate] Failed to load rollups: " + errorMessage);
+                if (callback != null)
+                    callback.onError("Failed to read transactions for analytics: " + errorMessage);
+            }
+        });
+    }
+}
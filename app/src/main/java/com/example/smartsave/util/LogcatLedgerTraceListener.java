@@ -0,0 +1,25 @@
+package com.example.smartsave.util;
+
+import android.util.Log;
+
+import com.example.smartsave.core.LedgerTrace;
+import com.example.smartsave.core.Money;
+import com.example.smartsave.core.TransactionType;
+
+/**
+ * Writes ledger trace counters and sampled rows to Logcat. Installed for debuggable builds only.
+ */
+public class LogcatLedgerTraceListener implements LedgerTrace.Listener {
+
+    private static final String TAG = "LedgerTrace";
+
+    @Override
+    public void onCall(LedgerTrace.CallStats stats) {
+        Log.d(TAG, "[Trace] " + stats);
+    }
+
+    @Override
+    public void onRowSample(String operation, String key, long timestamp, TransactionType type, long valueMinor) {
+        Log.v(TAG, "[Trace] " + operation + " row " + key + " @" + timestamp + " " + type + ": " + Money.toMajorUnits(valueMinor));
+    }
+}
@@ -0,0 +1,449 @@
+package com.example.smartsave.util;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.smartsave.core.CancellationToken;
+import com.example.smartsave.core.Money;
+import com.example.smartsave.core.MonthBoundaries;
+import com.example.smartsave.core.TransactionColumns;
+import com.example.smartsave.core.TransactionSource;
+import com.example.smartsave.core.TransactionType;
+import com.example.smartsave.data.LedgerCache;
+import com.example.smartsave.model.BalanceCheckpoint;
+import com.example.smartsave.model.MonthlyRollup;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Maintains per-month rollups of the savings ledger under smartSaveProfile/{uid}/monthlyRollups.
+ * <p>
+ * The node holds "months" (one {@link MonthlyRollup} per yyyy-MM key) and a "checkpoint"
+ * marking the last transaction folded in. Reads fold in transactions added after the
+ * checkpoint, so monthly figures cost O(months) plus a small delta instead of a full scan.
+ * Writers don't touch the rollups themselves; they call {@link #load} afterwards so their
+ * entry is folded in together with anything else written since the checkpoint.
+ */
+public final class MonthlyRollupStore {
+
+    private static final String TAG = "MonthlyRollupStore";
+    private static final String SMART_SAVE_PROFILE_NODE = "smartSaveProfile";
+    private static final String MONTHLY_ROLLUPS_NODE = "monthlyRollups";
+    private static final String MONTHS_CHILD = "months";
+    private static final String CHECKPOINT_CHILD = "checkpoint";
+    private static final String DB_URL = "https://smartsave-e0e7b-default-rtdb.europe-west1.firebasedatabase.app/";
+
+    public interface RollupCallback {
+        void onSuccess(SortedMap<String, MonthlyRollup> rollups);
+
+        void onError(String errorMessage);
+    }
+
+    private MonthlyRollupStore() {
+    }
+
+    public static String monthKey(int year, int month) {
+        return String.format(Locale.US, "%04d-%02d", year, month);
+    }
+
+    private static DatabaseReference rollupsRef(String userId) {
+        return FirebaseDatabase.getInstance(DB_URL)
+                .getReference(SMART_SAVE_PROFILE_NODE)
+                .child(userId)
+                .child(MONTHLY_ROLLUPS_NODE);
+    }
+
+    /**
+     * Returns up-to-date rollups, rebuilding them when no checkpoint exists or it no longer
+     * matches the ledger.
+     */
+    public static void load(String userId, RollupCallback callback) {
+        load(userId, null, callback);
+    }
+
+    /**
+     * As {@link #load(String, RollupCallback)}. Cancelling {@code token} detaches the rollups
+     * listener if it hasn't fired yet and suppresses the callback; a rebuild or delta fold
+     * already under way still stores its result for the next reader.
+     */
+    public static void load(String userId, CancellationToken token, RollupCallback callback) {
+        RollupCallback delivery = token == null || callback == null ? callback : new RollupCallback() {
+            @Override
+            public void onSuccess(SortedMap<String, MonthlyRollup> rollups) {
+                if (!token.isCancelled()) callback.onSuccess(rollups);
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                if (!token.isCancelled()) callback.onError(errorMessage);
+            }
+        };
+        DatabaseReference ref = rollupsRef(userId);
+        ValueEventListener listener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                if (CancellationToken.isCancelled(token)) return;
+                BalanceCheckpoint checkpoint = snapshot.child(CHECKPOINT_CHILD).getValue(BalanceCheckpoint.class);
+                if (checkpoint == null || !checkpoint.isCurrent()) {
+                    Log.i(TAG, "[Load] No current rollup checkpoint for user " + userId + ". Rebuilding.");
+                    rebuild(userId, delivery);
+                    return;
+                }
+                foldSinceCheckpoint(userId, readMonths(snapshot.child(MONTHS_CHILD)), checkpoint, delivery);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                Log.e(TAG, "[Load] Failed to read rollups: " + databaseError.getMessage());
+                if (delivery != null)
+                    delivery.onError("Failed to read monthly rollups: " + databaseError.getMessage());
+            }
+        };
+        ref.addListenerForSingleValueEvent(listener);
+        if (token != null) token.onCancel(() -> ref.removeEventListener(listener));
+    }
+
+    /**
+     * Recomputes every month from the raw ledger and replaces the stored rollups.
+     */
+    public static void rebuild(String userId, RollupCallback callback) {
+        LedgerCache.forUser(userId).loadAll(new TransactionSource.Callback() {
+            @Override
+            public void onLoaded(TransactionColumns columns) {
+                TreeMap<String, MonthlyRollup> months = new TreeMap<>();
+                accumulate(months, columns, 0, columns.size());
+                long closing = recomputeClosingBalances(months, null);
+
+                Map<String, Object> node = new HashMap<>();
+                node.put(MONTHS_CHILD, months);
+                int last = columns.size() - 1;
+                node.put(CHECKPOINT_CHILD, last >= 0
+                        ? new BalanceCheckpoint(columns.key(last), columns.timestamp(last), closing, columns.size())
+                        : BalanceCheckpoint.empty());
+
+                Log.i(TAG, "[Rebuild] " + months.size() + " months from " + columns.size() + " transactions for user " + userId);
+                rollupsRef(userId).setValue(node)
+                        .addOnSuccessListener(aVoid -> {
+                            if (callback != null) callback.onSuccess(months);
+                        })
+                        .addOnFailureListener(e -> {
+                            Log.e(TAG, "[Rebuild] Failed to store rollups: " + e.getMessage());
+                            if (callback != null)
+                                callback.onError("Failed to store monthly rollups: " + e.getMessage());
+                        });
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                Log.e(TAG, "[Rebuild] Failed to read transactions: " + errorMessage);
+                if (callback != null)
+                    callback.onError("Failed to read transactions for rollups: " + errorMessage);
+            }
+        });
+    }
+
+    /**
+     * Cumulative month-end balances ending with the target month, oldest first, in the
+     * monthName/year/savings shape the growth chart reads. Months without a rollup carry the
+     * previous month's closing balance forward.
+     */
+    public static List<Map<String, Object>> growthSeries(
+            SortedMap<String, MonthlyRollup> rollups,
+            int targetYear,
+            int targetMonth,
+            int numberOfMonths
+    ) {
+        TreeMap<String, MonthlyRollup> months = rollups instanceof TreeMap
+                ? (TreeMap<String, MonthlyRollup>) rollups
+                : new TreeMap<>(rollups);
+
+        int monthIndex = MonthBoundaries.index(targetYear, targetMonth) - (numberOfMonths - 1);
+        List<Map<String, Object>> monthlyGrowthData = new ArrayList<>(numberOfMonths);
+        for (int i = 0; i < numberOfMonths; i++, monthIndex++) {
+            int year = MonthBoundaries.yearOf(monthIndex);
+            int month = MonthBoundaries.monthOf(monthIndex);
+            Map.Entry<String, MonthlyRollup> atOrBefore = months.floorEntry(monthKey(year, month));
+
+            Map<String, Object> monthPoint = new HashMap<>();
+            monthPoint.put("monthName", MonthBoundaries.shortName(month));
+            monthPoint.put("year", year);
+            monthPoint.put("savings", atOrBefore != null ? atOrBefore.getValue().getClosingBalance() : 0.0);
+            monthlyGrowthData.add(monthPoint);
+        }
+        return monthlyGrowthData;
+    }
+
+    /**
+     * INCOME savings for the {@code historyMonths} full months before the month containing
+     * {@code nowMillis}, oldest first; months without a rollup are zero.
+     */
+    public static long[] incomeSavingsHistory(SortedMap<String, MonthlyRollup> rollups, long nowMillis, int historyMonths) {
+        int currentMonth = MonthBoundaries.indexOf(nowMillis);
+        long[] history = new long[historyMonths];
+        for (int i = 0; i < historyMonths; i++) {
+            int monthIndex = currentMonth - historyMonths + i;
+            MonthlyRollup rollup = rollups.get(monthKey(MonthBoundaries.yearOf(monthIndex), MonthBoundaries.monthOf(monthIndex)));
+            history[i] = rollup != null ? rollup.getIncomeSavingsMinor() : 0L;
+        }
+        return history;
+    }
+
+    /**
+     * Per-month contribution and rate samples from the last {@code historyMonths} full months
+     * before the month containing {@code nowMillis}, starting no earlier than the first rollup.
+     * A month's contribution is its net change less interest, and its rate is its interest
+     * over the previous month's closing balance; months opening with no balance have no rate.
+     */
+    public static OutcomeHistory outcomeHistory(SortedMap<String, MonthlyRollup> rollups, long nowMillis, int historyMonths) {
+        int currentMonth = MonthBoundaries.indexOf(nowMillis);
+        if (rollups.isEmpty()) return new OutcomeHistory(new long[0], new double[0]);
+        String firstKey = rollups.firstKey();
+        int firstMonth = MonthBoundaries.index(
+                Integer.parseInt(firstKey.substring(0, 4)), Integer.parseInt(firstKey.substring(5, 7)));
+        firstMonth = Math.max(firstMonth, currentMonth - historyMonths);
+        if (firstMonth >= currentMonth) return new OutcomeHistory(new long[0], new double[0]);
+
+        TreeMap<String, MonthlyRollup> months = rollups instanceof TreeMap
+                ? (TreeMap<String, MonthlyRollup>) rollups
+                : new TreeMap<>(rollups);
+        long[] contributions = new long[currentMonth - firstMonth];
+        double[] rates = new double[contributions.length];
+        int rateCount = 0;
+        Map.Entry<String, MonthlyRollup> opening = months.lowerEntry(
+                monthKey(MonthBoundaries.yearOf(firstMonth), MonthBoundaries.monthOf(firstMonth)));
+        long openingBalance = opening != null ? opening.getValue().getClosingBalanceMinor() : 0L;
+        for (int i = 0; i < contributions.length; i++) {
+            int monthIndex = firstMonth + i;
+            MonthlyRollup rollup = months.get(monthKey(MonthBoundaries.yearOf(monthIndex), MonthBoundaries.monthOf(monthIndex)));
+            long interest = rollup != null ? rollup.getInterestMinor() : 0L;
+            if (rollup != null) contributions[i] = rollup.getNetChangeMinor() - interest;
+            if (openingBalance > 0) rates[rateCount++] = (double) interest / openingBalance;
+            if (rollup != null) openingBalance = rollup.getClosingBalanceMinor();
+        }
+        return new OutcomeHistory(contributions, Arrays.copyOf(rates, rateCount));
+    }
+
+    public static final class OutcomeHistory {
+        private final long[] contributionsMinor;
+        private final double[] monthlyRates;
+
+        OutcomeHistory(long[] contributionsMinor, double[] monthlyRates) {
+            this.contributionsMinor = contributionsMinor;
+            this.monthlyRates = monthlyRates;
+        }
+
+        public long[] getContributionsMinor() {
+            return contributionsMinor;
+        }
+
+        public double[] getMonthlyRates() {
+            return monthlyRates;
+        }
+    }
+
+    private static void foldSinceCheckpoint(
+            String userId,
+            TreeMap<String, MonthlyRollup> months,
+            BalanceCheckpoint checkpoint,
+            RollupCallback callback
+    ) {
+        boolean anchored = !checkpoint.isEmpty();
+        TransactionSource.Callback fold = new TransactionSource.Callback() {
+            @Override
+            public void onLoaded(TransactionColumns columns) {
+                if (anchored && (columns.size() == 0 || !checkpoint.getLastKey().equals(columns.key(0)))) {
+                    Log.w(TAG, "[Fold] Rollup checkpoint " + checkpoint.getLastKey() + " no longer matches the ledger. Rebuilding.");
+                    rebuild(userId, callback);
+                    return;
+                }
+
+                // When anchored, row 0 is the checkpointed transaction itself and is already folded in.
+                int first = anchored ? 1 : 0;
+                int last = columns.size() - 1;
+                long folded = columns.size() - first;
+                String earliestTouched = accumulate(months, columns, first, columns.size());
+                if (folded == 0) {
+                    if (callback != null) callback.onSuccess(months);
+                    return;
+                }
+
+                long closing = recomputeClosingBalances(months, earliestTouched);
+                BalanceCheckpoint next = new BalanceCheckpoint(columns.key(last), columns.timestamp(last), closing,
+                        checkpoint.getTransactionCount() + folded);
+                storeFold(userId, months, months.tailMap(earliestTouched, true), checkpoint, next, callback);
+                Log.i(TAG, "[Fold] Folded " + folded + " transactions from " + earliestTouched + " for user " + userId);
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                Log.e(TAG, "[Fold] Failed to read transactions since checkpoint: " + errorMessage);
+                if (callback != null)
+                    callback.onError("Failed to read transactions for rollups: " + errorMessage);
+            }
+        };
+        if (anchored) {
+            LedgerCache.forUser(userId).loadFrom(checkpoint.getLastTimestamp(), checkpoint.getLastKey(), fold);
+        } else {
+            LedgerCache.forUser(userId).loadAll(fold);
+        }
+    }
+
+    /**
+     * Writes the folded months and the new checkpoint only if the stored checkpoint is still
+     * the one the fold started from. Another fold, e.g. a second screen loading at the same
+     * time, may have stored a different delta first; then this one is dropped and the load
+     * starts over from what is stored, so no month is written against the wrong checkpoint.
+     */
+    private static void storeFold(
+            String userId,
+            SortedMap<String, MonthlyRollup> months,
+            SortedMap<String, MonthlyRollup> changed,
+            BalanceCheckpoint from,
+            BalanceCheckpoint next,
+            RollupCallback callback
+    ) {
+        rollupsRef(userId).runTransaction(new com.google.firebase.database.Transaction.Handler() {
+            @NonNull
+            @Override
+            public com.google.firebase.database.Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                // Null locally may just mean not synced: committing it unchanged lets the server answer.
+                if (currentData.getValue() == null) return com.google.firebase.database.Transaction.success(currentData);
+                BalanceCheckpoint stored = currentData.child(CHECKPOINT_CHILD).getValue(BalanceCheckpoint.class);
+                if (!samePosition(stored, from)) return com.google.firebase.database.Transaction.abort();
+                for (Map.Entry<String, MonthlyRollup> entry : changed.entrySet()) {
+                    currentData.child(MONTHS_CHILD).child(entry.getKey()).setValue(entry.getValue());
+                }
+                currentData.child(CHECKPOINT_CHILD).setValue(next);
+                return com.google.firebase.database.Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(@Nullable DatabaseError error, boolean committed, @Nullable DataSnapshot currentData) {
+                if (error != null) {
+                    Log.e(TAG, "[Fold] Failed to store rollups: " + error.getMessage());
+                    if (callback != null) callback.onError("Failed to store monthly rollups: " + error.getMessage());
+                    return;
+                }
+                BalanceCheckpoint stored = committed && currentData != null
+                        ? currentData.child(CHECKPOINT_CHILD).getValue(BalanceCheckpoint.class)
+                        : null;
+                if (samePosition(stored, next)) {
+                    if (callback != null) callback.onSuccess(months);
+                    return;
+                }
+                Log.i(TAG, "[Fold] Rollup checkpoint moved during the fold for user " + userId + ". Reloading.");
+                load(userId, callback);
+            }
+        });
+    }
+
+    private static boolean samePosition(BalanceCheckpoint a, BalanceCheckpoint b) {
+        if (a == null || b == null) return a == b;
+        return a.getLastTimestamp() == b.getLastTimestamp()
+                && a.getTransactionCount() == b.getTransactionCount()
+                && a.getRulesVersion() == b.getRulesVersion()
+                && (a.getLastKey() == null ? b.getLastKey() == null : a.getLastKey().equals(b.getLastKey()));
+    }
+
+    private static TreeMap<String, MonthlyRollup> readMonths(DataSnapshot monthsSnapshot) {
+        TreeMap<String, MonthlyRollup> months = new TreeMap<>();
+        for (DataSnapshot monthSnapshot : monthsSnapshot.getChildren()) {
+            MonthlyRollup rollup = monthSnapshot.getValue(MonthlyRollup.class);
+            if (rollup != null) months.put(monthSnapshot.getKey(), rollup);
+        }
+        return months;
+    }
+
+    /**
+     * Adds rows [fromRow, toRow) to their months' buckets and returns the key of the first
+     * row's month, the earliest one touched since rows are in ledger order, or null when the
+     * range is empty. The month is only looked up again when a row crosses into the next one.
+     */
+    private static String accumulate(Map<String, MonthlyRollup> months, TransactionColumns columns, int fromRow, int toRow) {
+        String firstKey = null;
+        MonthlyRollup rollup = null;
+        long monthStart = Long.MAX_VALUE;
+        long nextMonthStart = Long.MIN_VALUE;
+        for (int row = fromRow; row < toRow; row++) {
+            long timestamp = columns.timestamp(row);
+            if (timestamp < monthStart || timestamp >= nextMonthStart) {
+                int monthIndex = MonthBoundaries.indexOf(timestamp);
+                monthStart = MonthBoundaries.start(monthIndex);
+                nextMonthStart = MonthBoundaries.start(monthIndex + 1);
+                String key = monthKey(MonthBoundaries.yearOf(monthIndex), MonthBoundaries.monthOf(monthIndex));
+                if (firstKey == null) firstKey = key;
+                rollup = months.get(key);
+                if (rollup == null) {
+                    rollup = new MonthlyRollup();
+                    months.put(key, rollup);
+                }
+            }
+            accumulate(rollup, columns, row);
+        }
+        return firstKey;
+    }
+
+    private static void accumulate(MonthlyRollup rollup, TransactionColumns columns, int row) {
+        // Amounts come from the shared balance-effect table; the type only picks the bucket.
+        long effect = columns.balanceEffect(row);
+        TransactionType type = columns.type(row);
+        if (type.isWithdrawal()) {
+            rollup.addWithdrawalsMinor(-effect);
+        } else {
+            switch (type) {
+                case INCOME:
+                    rollup.addIncomeSavingsMinor(effect);
+                    break;
+                case EXPENSE:
+                    rollup.addExpenseSavingsMinor(effect);
+                    break;
+                case SAVINGS_DEPOSIT:
+                    rollup.addDepositsMinor(effect);
+                    break;
+                case INTEREST_PAYMENT:
+                    rollup.addInterestMinor(effect);
+                    break;
+                default:
+                    break;
+            }
+        }
+        rollup.setTransactionCount(rollup.getTransactionCount() + 1);
+        if (rollup.getTransactionCount() == 1) {
+            rollup.setCurrency(columns.currency(row));
+        }
+    }
+
+    /**
+     * Re-derives closing balances from {@code fromMonth} onward (all months when null) and
+     * returns the latest closing balance.
+     */
+    private static long recomputeClosingBalances(TreeMap<String, MonthlyRollup> months, String fromMonth) {
+        long closing = 0L;
+        SortedMap<String, MonthlyRollup> toUpdate = months;
+        if (fromMonth != null) {
+            Map.Entry<String, MonthlyRollup> previous = months.lowerEntry(fromMonth);
+            closing = previous != null ? previous.getValue().getClosingBalanceMinor() : 0L;
+            toUpdate = months.tailMap(fromMonth, true);
+        }
+        for (MonthlyRollup rollup : toUpdate.values()) {
+            closing = Money.add(closing, rollup.getNetChangeMinor());
+            rollup.setClosingBalanceMinor(closing);
+        }
+        return closing;
+    }
+}
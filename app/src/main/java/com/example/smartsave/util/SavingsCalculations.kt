@@ -0,0 +1,98 @@
+package com.example.smartsave.util
+
+import com.example.smartsave.core.CancellationToken
+import com.example.smartsave.core.OutcomeSimulator
+import com.example.smartsave.core.ProjectionEngine
+import kotlinx.coroutines.suspendCancellableCoroutine
+import kotlin.coroutines.resume
+import kotlin.coroutines.resumeWithException
+
+/**
+ * A calculation reported an error through its callback; the message is the callback's.
+ */
+class SavingsCalculationException(message: String) : Exception(message)
+
+/**
+ * Suspending versions of the [SavingsCalculator] and [LedgerAggregator] calls the screens
+ * make. Cancelling the calling coroutine cancels the call's [CancellationToken]: pending
+ * rollup listeners are detached, ledger scans and simulations stop at their next block,
+ * and no result is delivered. Errors are thrown as [SavingsCalculationException].
+ */
+object SavingsCalculations {
+
+    data class Amount(val value: Double, val currency: String)
+
+    suspend fun interestEarnedLastMonth(): Amount = cancellable { token, resume, fail ->
+        SavingsCalculator.calculateInterestEarnedLastMonth(token, object : SavingsCalculator.InterestCalculationCallback {
+            override fun onSuccess(totalInterestEarned: Double, currency: String) = resume(Amount(totalInterestEarned, currency))
+
+            override fun onError(errorMessage: String) = fail(errorMessage)
+        })
+    }
+
+    suspend fun progressThisMonth(): Amount = cancellable { token, resume, fail ->
+        SavingsCalculator.calculateProgressThisMonth(token, object : SavingsCalculator.MonthlyProgressCallback {
+            override fun onSuccess(totalProgress: Double, currency: String) = resume(Amount(totalProgress, currency))
+
+            override fun onError(errorMessage: String) = fail(errorMessage)
+        })
+    }
+
+    suspend fun compoundInterestProjection(
+        currentTotalSavings: Double,
+        annualInterestRate: Double,
+        compounding: ProjectionEngine.Compounding,
+        months: Int
+    ): ProjectionEngine.Projection = cancellable { token, resume, fail ->
+        SavingsCalculator.calculateCompoundInterestProjection(
+            currentTotalSavings, annualInterestRate, compounding, months, token,
+            object : SavingsCalculator.CompoundInterestProjectionCallback {
+                override fun onSuccess(projection: ProjectionEngine.Projection) = resume(projection)
+
+                override fun onError(errorMessage: String) = fail(errorMessage)
+            }
+        )
+    }
+
+    suspend fun savingsOutcomes(
+        currentTotalSavings: Double,
+        fallbackAnnualRate: Double,
+        months: Int,
+        trajectories: Int,
+        seed: Long
+    ): OutcomeSimulator.Bands = cancellable { token, resume, fail ->
+        SavingsCalculator.simulateSavingsOutcomes(
+            currentTotalSavings, fallbackAnnualRate, months, trajectories, seed, token,
+            object : SavingsCalculator.OutcomeSimulationCallback {
+                override fun onSuccess(bands: OutcomeSimulator.Bands) = resume(bands)
+
+                override fun onError(errorMessage: String) = fail(errorMessage)
+            }
+        )
+    }
+
+    suspend fun aggregate(
+        year: Int,
+        month: Int,
+        growthMonths: Int,
+        metrics: Set<LedgerAggregator.Metric>
+    ): LedgerAggregator.Result = cancellable { token, resume, fail ->
+        LedgerAggregator.aggregate(year, month, growthMonths, metrics, token, object : LedgerAggregator.AggregationCallback {
+            override fun onSuccess(result: LedgerAggregator.Result) = resume(result)
+
+            override fun onError(errorMessage: String) = fail(errorMessage)
+        })
+    }
+
+    private suspend fun <T> cancellable(
+        start: (token: CancellationToken, resume: (T) -> Unit, fail: (String) -> Unit) -> Unit
+    ): T = suspendCancellableCoroutine { continuation ->
+        val token = CancellationToken()
+        continuation.invokeOnCancellation { token.cancel() }
+        start(
+            token,
+            { value -> if (continuation.isActive) continuation.resume(value) },
+            { message -> if (continuation.isActive) continuation.resumeWithException(SavingsCalculationException(message)) }
+        )
+    }
+}
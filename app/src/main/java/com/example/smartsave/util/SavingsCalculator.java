@@ -1,38 +1,56 @@
 package com.example.smartsave.util;
 
-import android.icu.text.SimpleDateFormat;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 
+import com.example.smartsave.core.CancellationToken;
+import com.example.smartsave.core.CoalescingTransactionSource;
+import com.example.smartsave.core.LedgerMath;
+import com.example.smartsave.core.Money;
+import com.example.smartsave.core.OutcomeSimulator;
+import com.example.smartsave.core.ProjectionEngine;
+import com.example.smartsave.core.SavingsGrowthEngine;
+import com.example.smartsave.core.TransactionColumns;
+import com.example.smartsave.core.TransactionSource;
+import com.example.smartsave.core.TransactionType;
+import com.example.smartsave.data.LedgerCache;
+import com.example.smartsave.model.BalanceCheckpoint;
+import com.example.smartsave.model.MonthlyRollup;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.Query; // Import Query
 import com.google.firebase.database.ValueEventListener;
-import com.example.smartsave.model.Transaction;
 
-import java.util.ArrayList;
-import java.util.Calendar; // For date calculations
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
-import java.util.TimeZone; // For UTC Calendar
+import java.util.SortedMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
 
 public class SavingsCalculator {
 
     private static final String TAG = "SavingsCalculator";
     private static final String SMART_SAVE_PROFILE_NODE = "smartSaveProfile";
-    private static final String TRANSACTIONS_SUB_NODE = "transactions";
+    private static final String TOTAL_SAVED_FIELD = "totalSaved";
+    private static final String BALANCE_CHECKPOINT_NODE = "balanceCheckpoint";
     private static final String DB_URL = "https://smartsave-e0e7b-default-rtdb.europe-west1.firebasedatabase.app/";
+    // Full months of rollups the outcome simulator resamples.
+    private static final int OUTCOME_HISTORY_MONTHS = 36;
 
     public interface CompoundInterestProjectionCallback {
-        void onSuccess(double futureValue, double interestEarned);
+        void onSuccess(ProjectionEngine.Projection projection);
+
+        void onError(String errorMessage);
+    }
+
+    public interface OutcomeSimulationCallback {
+        void onSuccess(OutcomeSimulator.Bands bands);
 
         void onError(String errorMessage);
     }
@@ -89,8 +107,8 @@ public class SavingsCalculator {
         }
         String userId = currentUser.getUid();
 
-        if (numberOfMonths <= 0) {
-            Log.e(TAG, "[CalcGrowth] Number of months must be positive.");
+        if (numberOfMonths <= 0 || numberOfMonths > SavingsGrowthEngine.MAX_MONTHS) {
+            Log.e(TAG, "[CalcGrowth] Number of months must be between 1 and " + SavingsGrowthEngine.MAX_MONTHS + ".");
             if (callback != null) callback.onError("Invalid number of months.");
             return;
         }
@@ -100,114 +118,60 @@ public class SavingsCalculator {
             return;
         }
 
-
-        DatabaseReference userTransactionsRef = FirebaseDatabase.getInstance(DB_URL)
-                .getReference(SMART_SAVE_PROFILE_NODE)
-                .child(userId)
-                .child(TRANSACTIONS_SUB_NODE);
-
-        Calendar endOfOverallPeriodCalendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
-        endOfOverallPeriodCalendar.set(targetYear, targetMonth - 1, 1); // Start of target month (month is 0-indexed)
-        endOfOverallPeriodCalendar.set(Calendar.DAY_OF_MONTH, endOfOverallPeriodCalendar.getActualMaximum(Calendar.DAY_OF_MONTH)); // Last day of target month
-        endOfOverallPeriodCalendar.set(Calendar.HOUR_OF_DAY, 23);
-        endOfOverallPeriodCalendar.set(Calendar.MINUTE, 59);
-        endOfOverallPeriodCalendar.set(Calendar.SECOND, 59);
-        endOfOverallPeriodCalendar.set(Calendar.MILLISECOND, 999);
-        long overallEndTimestamp = endOfOverallPeriodCalendar.getTimeInMillis();
-
         Log.i(TAG, "[CalcGrowth] Calculating growth for " + numberOfMonths + " months, ending " + targetMonth + "/" + targetYear);
-        Log.i(TAG, "[CalcGrowth] Fetching all transactions up to: " + new java.util.Date(overallEndTimestamp));
 
-        Query allRelevantTransactionsQuery = userTransactionsRef.orderByChild("timestamp")
-                .endAt((double) overallEndTimestamp); // Get all tx up to end of the period
-
-        allRelevantTransactionsQuery.addListenerForSingleValueEvent(new ValueEventListener() {
+        MonthlyRollupStore.load(userId, new MonthlyRollupStore.RollupCallback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                List<Transaction> allFetchedTransactions = new ArrayList<>();
-                if (dataSnapshot.exists()) {
-                    for (DataSnapshot txSnapshot : dataSnapshot.getChildren()) {
-                        Transaction transaction = txSnapshot.getValue(Transaction.class);
-                        if (transaction != null) {
-                            allFetchedTransactions.add(transaction);
-                        }
-                    }
-                    // Sort by timestamp to ensure correct cumulative calculation
-                    Collections.sort(allFetchedTransactions, (t1, t2) -> Long.compare(t1.getTimestamp(), t2.getTimestamp()));
-                } else {
-                    Log.i(TAG, "[CalcGrowth] No transactions found for user " + userId + " up to the period end.");
-                }
-
-
-                List<Map<String, Object>> monthlyGrowthData = new ArrayList<>();
-                Calendar monthIteratorCalendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
-                // Start iterating from the target month and go backwards
-                monthIteratorCalendar.set(targetYear, targetMonth - 1, 1); // month is 0-indexed
-
-                SimpleDateFormat monthNameFormat = new SimpleDateFormat("MMM", Locale.ENGLISH);
-
-                for (int i = 0; i < numberOfMonths; i++) {
-                    // Determine the end of the current month we are calculating for
-                    Calendar currentMonthEndCalendar = (Calendar) monthIteratorCalendar.clone();
-                    currentMonthEndCalendar.set(Calendar.DAY_OF_MONTH, currentMonthEndCalendar.getActualMaximum(Calendar.DAY_OF_MONTH));
-                    currentMonthEndCalendar.set(Calendar.HOUR_OF_DAY, 23);
-                    currentMonthEndCalendar.set(Calendar.MINUTE, 59);
-                    currentMonthEndCalendar.set(Calendar.SECOND, 59);
-                    currentMonthEndCalendar.set(Calendar.MILLISECOND, 999);
-                    long currentMonthEndTimestamp = currentMonthEndCalendar.getTimeInMillis();
-
-                    double totalSavedUpToThisMonthEnd = 0.0;
-                    for (Transaction transaction : allFetchedTransactions) {
-                        // Only consider transactions up to the end of *this specific month* in the iteration
-                        if (transaction.getTimestamp() <= currentMonthEndTimestamp) {
-                            String type = transaction.getType() != null ? transaction.getType().toUpperCase() : "";
-                            switch (type) {
-                                case "INCOME":
-                                case "EXPENSE":
-                                    totalSavedUpToThisMonthEnd += transaction.getSavingsCalculated();
-                                    break;
-                                case "WITHDRAW":
-                                    totalSavedUpToThisMonthEnd -= transaction.getAmount();
-                                    break;
-                                case "SAVINGS_DEPOSIT":
-                                case "INTEREST_PAYMENT":
-                                    totalSavedUpToThisMonthEnd += transaction.getAmount();
-                                    break;
-                            }
-                        }
-                    }
-
-                    Map<String, Object> monthPoint = new HashMap<>();
-                    monthPoint.put("monthName", monthNameFormat.format(monthIteratorCalendar.getTime()));
-                    monthPoint.put("year", monthIteratorCalendar.get(Calendar.YEAR));
-                    monthPoint.put("savings", totalSavedUpToThisMonthEnd);
-                    monthlyGrowthData.add(monthPoint);
-
-                    Log.d(TAG, "[CalcGrowth] End of " + (monthIteratorCalendar.get(Calendar.MONTH) + 1) + "/" + monthIteratorCalendar.get(Calendar.YEAR) +
-                            ": Total Saved = " + totalSavedUpToThisMonthEnd);
-
-                    monthIteratorCalendar.add(Calendar.MONTH, -1);
-                }
-
-                Collections.reverse(monthlyGrowthData);
+            public void onSuccess(SortedMap<String, MonthlyRollup> rollups) {
+                List<Map<String, Object>> monthlyGrowthData = MonthlyRollupStore.growthSeries(
+                        rollups, targetYear, targetMonth, numberOfMonths);
+                Log.d(TAG, "[CalcGrowth] Computed " + monthlyGrowthData.size() + " month-end points from " + rollups.size() + " rollups.");
                 if (callback != null) callback.onSuccess(monthlyGrowthData);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError databaseError) {
-                Log.e(TAG, "[CalcGrowth] Failed to read transactions: " + databaseError.getMessage());
+            public void onError(String errorMessage) {
+                Log.e(TAG, "[CalcGrowth] Failed to load rollups: " + errorMessage);
                 if (callback != null)
-                    callback.onError("Failed to read transactions for growth chart: " + databaseError.getMessage());
+                    callback.onError("Failed to read transactions for growth chart: " + errorMessage);
             }
         });
     }
 
 
+    /**
+     * Projects the balance month by month, adding the user's average monthly INCOME savings
+     * over the last {@link ProjectionEngine#CONTRIBUTION_HISTORY_MONTHS} full months as an
+     * ongoing contribution. If that history can't be read the projection runs without one.
+     */
+    public static void calculateCompoundInterestProjection(
+            double currentTotalSavings,
+            double annualInterestRate,
+            ProjectionEngine.Compounding compounding,
+            int months,
+            CompoundInterestProjectionCallback callback
+    ) {
+        calculateCompoundInterestProjection(currentTotalSavings, annualInterestRate, compounding, months, null, callback);
+    }
+
+    /**
+     * As above; once {@code token} is cancelled the rollups read is detached and nothing is
+     * delivered.
+     */
     public static void calculateCompoundInterestProjection(
             double currentTotalSavings,
             double annualInterestRate,
+            ProjectionEngine.Compounding compounding,
+            int months,
+            CancellationToken token,
             CompoundInterestProjectionCallback callback
     ) {
+        FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
+        if (currentUser == null) {
+            Log.e(TAG, "[CompoundProjection] User not logged in.");
+            if (callback != null) callback.onError("User not logged in.");
+            return;
+        }
         if (currentTotalSavings < 0) {
             if (callback != null) callback.onError("No current savings to project.");
             return;
@@ -216,19 +180,130 @@ public class SavingsCalculator {
             if (callback != null) callback.onError("Invalid interest rate.");
             return;
         }
+        if (months < ProjectionEngine.MIN_MONTHS || months > ProjectionEngine.MAX_MONTHS) {
+            Log.e(TAG, "[CompoundProjection] Months must be between " + ProjectionEngine.MIN_MONTHS + " and " + ProjectionEngine.MAX_MONTHS + ".");
+            if (callback != null) callback.onError("Invalid projection horizon.");
+            return;
+        }
+        long currentTotalMinor = Money.toMinorUnits(currentTotalSavings);
+
+        MonthlyRollupStore.load(currentUser.getUid(), token, new MonthlyRollupStore.RollupCallback() {
+            @Override
+            public void onSuccess(SortedMap<String, MonthlyRollup> rollups) {
+                long[] history = MonthlyRollupStore.incomeSavingsHistory(
+                        rollups, System.currentTimeMillis(), ProjectionEngine.CONTRIBUTION_HISTORY_MONTHS);
+                project(ProjectionEngine.estimateMonthlyContribution(history));
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                Log.w(TAG, "[CompoundProjection] Failed to load rollups, projecting without contributions: " + errorMessage);
+                project(0L);
+            }
+
+            private void project(long monthlyContributionMinor) {
+                ProjectionEngine.Projection projection = ProjectionEngine.project(
+                        currentTotalMinor, annualInterestRate, compounding, monthlyContributionMinor, months);
+
+                Log.i(TAG, "[CompoundProjection] Current: " + currentTotalSavings +
+                        ", Rate (annual): " + (annualInterestRate * 100) + "%" +
+                        ", Compounding: " + compounding +
+                        ", Contribution (monthly): " + Money.toMajorUnits(monthlyContributionMinor) +
+                        ", Future Value (" + months + "m): " + projection.getFinalBalance() +
+                        ", Interest Earned (" + months + "m): " + projection.getInterestEarned());
+
+                if (callback != null) callback.onSuccess(projection);
+            }
+        });
+    }
 
-        double rateForSixMonths = annualInterestRate / 2.0;
-        double interestEarned = currentTotalSavings * rateForSixMonths;
-        double futureValue = currentTotalSavings + interestEarned;
 
-        Log.i(TAG, "[CompoundProjection] Current: " + currentTotalSavings +
-                ", Rate (annual): " + (annualInterestRate * 100) + "%" +
-                ", Future Value (6m): " + futureValue +
-                ", Interest Earned (6m): " + interestEarned);
+    /**
+     * Runs {@link OutcomeSimulator} on the user's last {@link #OUTCOME_HISTORY_MONTHS} months
+     * of rollups and delivers P10/P50/P90 month-end bands on the main thread. Without enough
+     * balance history to observe a rate, every month earns {@code fallbackAnnualRate} / 12.
+     */
+    public static void simulateSavingsOutcomes(
+            double currentTotalSavings,
+            double fallbackAnnualRate,
+            int months,
+            int trajectories,
+            long seed,
+            OutcomeSimulationCallback callback
+    ) {
+        simulateSavingsOutcomes(currentTotalSavings, fallbackAnnualRate, months, trajectories, seed, null, callback);
+    }
 
-        if (callback != null) {
-            callback.onSuccess(futureValue, interestEarned);
+    /**
+     * As above; cancelling {@code token} detaches the rollups read, stops the simulation
+     * between blocks of trajectories and suppresses the callback.
+     */
+    public static void simulateSavingsOutcomes(
+            double currentTotalSavings,
+            double fallbackAnnualRate,
+            int months,
+            int trajectories,
+            long seed,
+            CancellationToken token,
+            OutcomeSimulationCallback callback
+    ) {
+        FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
+        if (currentUser == null) {
+            Log.e(TAG, "[OutcomeSimulation] User not logged in.");
+            if (callback != null) callback.onError("User not logged in.");
+            return;
+        }
+        if (currentTotalSavings < 0 || fallbackAnnualRate < 0) {
+            if (callback != null) callback.onError("Invalid simulation inputs.");
+            return;
         }
+        if (months < 1 || months > OutcomeSimulator.MAX_MONTHS
+                || trajectories < 1 || trajectories > OutcomeSimulator.MAX_TRAJECTORIES
+                || (long) months * trajectories > OutcomeSimulator.MAX_CELLS) {
+            Log.e(TAG, "[OutcomeSimulation] Unsupported size: " + months + " months x " + trajectories + " trajectories.");
+            if (callback != null) callback.onError("Invalid simulation size.");
+            return;
+        }
+        long currentTotalMinor = Money.toMinorUnits(currentTotalSavings);
+
+        MonthlyRollupStore.load(currentUser.getUid(), token, new MonthlyRollupStore.RollupCallback() {
+            @Override
+            public void onSuccess(SortedMap<String, MonthlyRollup> rollups) {
+                MonthlyRollupStore.OutcomeHistory history = MonthlyRollupStore.outcomeHistory(
+                        rollups, System.currentTimeMillis(), OUTCOME_HISTORY_MONTHS);
+                double[] rates = history.getMonthlyRates().length > 0
+                        ? history.getMonthlyRates()
+                        : new double[]{fallbackAnnualRate / 12.0};
+                Log.i(TAG, "[OutcomeSimulation] " + trajectories + " trajectories over " + months + " months from "
+                        + history.getContributionsMinor().length + " contribution and " + rates.length + " rate samples.");
+
+                // Firebase delivers this on the main thread; the simulation runs on the fork-join pool.
+                Handler mainHandler = new Handler(Looper.getMainLooper());
+                ForkJoinPool.commonPool().execute(() -> {
+                    try {
+                        OutcomeSimulator.Bands bands = OutcomeSimulator.simulate(
+                                currentTotalMinor, history.getContributionsMinor(), rates, months, trajectories, seed,
+                                ForkJoinPool.commonPool(), token);
+                        mainHandler.post(() -> {
+                            if (callback != null && !CancellationToken.isCancelled(token)) callback.onSuccess(bands);
+                        });
+                    } catch (CancellationException e) {
+                        Log.d(TAG, "[OutcomeSimulation] Cancelled.");
+                    } catch (RuntimeException e) {
+                        Log.e(TAG, "[OutcomeSimulation] Simulation failed: " + e.getMessage());
+                        mainHandler.post(() -> {
+                            if (callback != null) callback.onError("Failed to simulate savings outcomes.");
+                        });
+                    }
+                });
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                Log.e(TAG, "[OutcomeSimulation] Failed to load rollups: " + errorMessage);
+                if (callback != null) callback.onError("Failed to read savings history: " + errorMessage);
+            }
+        });
     }
 
 
@@ -251,161 +326,232 @@ public class SavingsCalculator {
             return;
         }
 
-        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
-
-        calendar.set(year, month - 1, 1, 0, 0, 0); // month is 0-indexed
-        calendar.set(Calendar.MILLISECOND, 0);
-        long startTimestamp = calendar.getTimeInMillis();
+        String monthKey = MonthlyRollupStore.monthKey(year, month);
+        Log.i(TAG, "[CalcSelectedMonthIncomeSavings] User: " + userId + ", Month: " + monthKey);
 
-        calendar.set(year, month - 1, 1); // Reset to first day
-        calendar.add(Calendar.MONTH, 1);    // Go to first day of next month
-        calendar.add(Calendar.MILLISECOND, -1); // Go to last millisecond of selected month
-        long endTimestamp = calendar.getTimeInMillis();
-
-        Log.i(TAG, "[CalcSelectedMonthIncomeSavings] User: " + userId + ", Year: " + year + ", Month: " + month);
-        Log.i(TAG, "[CalcSelectedMonthIncomeSavings] Period Start: " + startTimestamp + " (" + new java.util.Date(startTimestamp) + ")");
-        Log.i(TAG, "[CalcSelectedMonthIncomeSavings] Period End:   " + endTimestamp + " (" + new java.util.Date(endTimestamp) + ")");
-
-        DatabaseReference userTransactionsRef = FirebaseDatabase.getInstance(DB_URL)
-                .getReference(SMART_SAVE_PROFILE_NODE)
-                .child(userId)
-                .child(TRANSACTIONS_SUB_NODE);
-
-        Query incomeSavingsQuery = userTransactionsRef.orderByChild("timestamp")
-                .startAt((double) startTimestamp)
-                .endAt((double) endTimestamp);
-
-        Log.d(TAG, "[CalcSelectedMonthIncomeSavings] Query Path: " + incomeSavingsQuery.getRef().toString());
-
-        incomeSavingsQuery.addListenerForSingleValueEvent(new ValueEventListener() {
+        MonthlyRollupStore.load(userId, new MonthlyRollupStore.RollupCallback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                double totalIncomeSavings = 0.0;
-                String currency = "BGN"; // Default
-                boolean currencyFound = false;
-
-                Log.i(TAG, "[CalcSelectedMonthIncomeSavings] onDataChange. Snapshot exists: " + dataSnapshot.exists() + ", Children in range: " + dataSnapshot.getChildrenCount());
-
-                if (!dataSnapshot.exists() || dataSnapshot.getChildrenCount() == 0) {
-                    Log.i(TAG, "[CalcSelectedMonthIncomeSavings] No transactions found in the selected month/year for user " + userId);
-                    if (callback != null) callback.onSuccess(0.0, currency);
+            public void onSuccess(SortedMap<String, MonthlyRollup> rollups) {
+                MonthlyRollup rollup = rollups.get(monthKey);
+                if (rollup == null) {
+                    Log.i(TAG, "[CalcSelectedMonthIncomeSavings] No transactions found in " + monthKey + " for user " + userId);
+                    if (callback != null) callback.onSuccess(0.0, "BGN");
                     return;
                 }
-
-                for (DataSnapshot txSnapshot : dataSnapshot.getChildren()) {
-                    Transaction transaction = txSnapshot.getValue(Transaction.class);
-                    if (transaction != null) {
-                        String type = transaction.getType() != null ? transaction.getType().toUpperCase() : "";
-                        if ("INCOME".equals(type)) {
-                            // Ensure transaction is within the exact month
-                            if (transaction.getTimestamp() >= startTimestamp && transaction.getTimestamp() <= endTimestamp) {
-                                totalIncomeSavings += transaction.getSavingsCalculated();
-                                Log.d(TAG, "[CalcSelectedMonthIncomeSavings]     +++ INCOME: Added savingsCalculated " + transaction.getSavingsCalculated() + ". Sum: " + totalIncomeSavings);
-                                if (!currencyFound && transaction.getCurrency() != null && !transaction.getCurrency().isEmpty()) {
-                                    currency = transaction.getCurrency();
-                                    currencyFound = true;
-                                }
-                            }
-                        }
-                    }
-                }
-                Log.i(TAG, "[CalcSelectedMonthIncomeSavings] FINAL Total income savings for " + month + "/" + year + " for user " + userId + ": " + totalIncomeSavings + " " + currency);
-                if (callback != null) callback.onSuccess(totalIncomeSavings, currency);
+                Log.i(TAG, "[CalcSelectedMonthIncomeSavings] FINAL Total income savings for " + monthKey + " for user " + userId + ": " + rollup.getIncomeSavings() + " " + rollup.getCurrency());
+                if (callback != null) callback.onSuccess(rollup.getIncomeSavings(), rollup.getCurrency());
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError databaseError) {
-                Log.e(TAG, "[CalcSelectedMonthIncomeSavings] onCancelled: " + databaseError.getMessage(), databaseError.toException());
+            public void onError(String errorMessage) {
+                Log.e(TAG, "[CalcSelectedMonthIncomeSavings] Failed to load rollups: " + errorMessage);
                 if (callback != null)
-                    callback.onError("Failed to read transactions for selected month's income savings: " + databaseError.getMessage());
+                    callback.onError("Failed to read transactions for selected month's income savings: " + errorMessage);
             }
         });
     }
 
+    /**
+     * Brings totalSaved up to date. When a current balance checkpoint exists, only
+     * transactions after it are read and folded into its running total; otherwise the whole
+     * ledger is rescanned and a fresh checkpoint is written.
+     * <p>
+     * The new total replaces the stored one through {@link BalanceWriter#compareAndSet}.
+     * Writers such as withdrawals move totalSaved by increments at any time. If one lands
+     * while the ledger is being summed, the compare-and-set loses and the sum is redone, up to
+     * {@link BalanceWriter#MAX_COMPARE_AND_SET_ATTEMPTS} times.
+     */
     public static void recalculateAndUpdatetotalSaved(CalculationCallback callback) {
-        // ... (your existing recalculateAndUpdatetotalSaved method - no changes here) ...
         FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
         if (currentUser == null) {
             Log.e(TAG, "User not logged in. Cannot recalculate savings.");
             if (callback != null) callback.onError("User not logged in.");
             return;
         }
-        String userId = currentUser.getUid();
+        recalculate(currentUser.getUid(), 1, callback);
+    }
+
+    /**
+     * As above, for {@code userId}.
+     */
+    public static void recalculateAndUpdatetotalSaved(String userId, CalculationCallback callback) {
+        recalculate(userId, 1, callback);
+    }
 
-        DatabaseReference userProfileTransactionsRef = FirebaseDatabase.getInstance(DB_URL)
+    private static void recalculate(String userId, int attempt, CalculationCallback callback) {
+        DatabaseReference userProfileRef = FirebaseDatabase.getInstance(DB_URL)
                 .getReference(SMART_SAVE_PROFILE_NODE)
-                .child(userId)
-                .child(TRANSACTIONS_SUB_NODE);
+                .child(userId);
 
-        userProfileTransactionsRef.addListenerForSingleValueEvent(new ValueEventListener() {
+        userProfileRef.child(BALANCE_CHECKPOINT_NODE).addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                if (!dataSnapshot.exists()) {
-                    Log.i(TAG, "No transactions found for user " + userId + ". Setting totalSaved to 0.");
-                    updateTotalSavedInProfile(userId, 0.0, callback);
+            public void onDataChange(@NonNull DataSnapshot checkpointSnapshot) {
+                BalanceCheckpoint checkpoint = checkpointSnapshot.getValue(BalanceCheckpoint.class);
+
+                // Read before the ledger, so an increment landing in between fails the compare-and-set.
+                userProfileRef.child(TOTAL_SAVED_FIELD).addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot totalSnapshot) {
+                        Double storedTotal = totalSnapshot.getValue(Double.class);
+                        long storedTotalMinor = storedTotal == null ? 0L : Money.toMinorUnits(storedTotal);
+                        if (checkpoint == null || !checkpoint.isCurrent()) {
+                            Log.i(TAG, "[Recalc] No current balance checkpoint for user " + userId + ". Running full rescan.");
+                            rescan(userId, storedTotalMinor, attempt, callback);
+                            return;
+                        }
+                        foldTransactionsSinceCheckpoint(userId, checkpoint, storedTotalMinor, attempt, callback);
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError databaseError) {
+                        Log.e(TAG, "[Recalc] Failed to read totalSaved: " + databaseError.getMessage());
+                        if (callback != null)
+                            callback.onError("Failed to read totalSaved: " + databaseError.getMessage());
+                    }
+                });
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                Log.e(TAG, "[Recalc] Failed to read balance checkpoint: " + databaseError.getMessage());
+                if (callback != null)
+                    callback.onError("Failed to read balance checkpoint: " + databaseError.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Reads the ledger starting at the checkpointed transaction itself. That transaction must
+     * come back first, which verifies the checkpoint still points at an existing ledger entry.
+     * The stored total may already include increments for the new transactions; the result
+     * comes from the checkpoint alone, so they are not counted twice.
+     */
+    private static void foldTransactionsSinceCheckpoint(String userId, BalanceCheckpoint checkpoint, long storedTotalMinor,
+                                                        int attempt, CalculationCallback callback) {
+        LedgerCache.forUser(userId).loadFrom(checkpoint.getLastTimestamp(), checkpoint.getLastKey(), new TransactionSource.Callback() {
+            @Override
+            public void onLoaded(TransactionColumns columns) {
+                if (columns.size() == 0 || !checkpoint.getLastKey().equals(columns.key(0))) {
+                    Log.w(TAG, "[Recalc] Checkpoint transaction " + checkpoint.getLastKey() + " no longer matches the ledger. Running full rescan.");
+                    rescan(userId, storedTotalMinor, attempt, callback);
                     return;
                 }
 
-                double newTotalSaved = 0.0;
-                Log.d(TAG, "--- Recalculating totalSaved for user: " + userId + " ---");
-                for (DataSnapshot txSnapshot : dataSnapshot.getChildren()) {
-                    Transaction transaction = txSnapshot.getValue(Transaction.class);
-                    if (transaction != null) {
-                        String type = transaction.getType() != null ? transaction.getType().toUpperCase() : "";
-                        switch (type) {
-                            case "INCOME":
-                            case "EXPENSE":
-                                newTotalSaved += transaction.getSavingsCalculated();
-                                Log.d(TAG, "    " + type + ": Added savingsCalculated " + transaction.getSavingsCalculated() + ". Current Sum: " + newTotalSaved);
-                                break;
-                            case "WITHDRAW":
-                                newTotalSaved -= transaction.getAmount();
-                                Log.d(TAG, "    WITHDRAW: Subtracted amount " + transaction.getAmount() + ". Current Sum: " + newTotalSaved);
-                                break;
-                            case "SAVINGS_DEPOSIT":
-                            case "INTEREST_PAYMENT":
-                                newTotalSaved += transaction.getAmount();
-                                Log.d(TAG, "    " + type + ": Added amount " + transaction.getAmount() + ". Current Sum: " + newTotalSaved);
-                                break;
-                            default:
-                                Log.d(TAG, "    UNKNOWN/SKIPPED Type: '" + type + "'. Sum remains: " + newTotalSaved);
-                                break;
-                        }
-                    }
+                // Row 0 is the checkpointed transaction itself and is already included.
+                int last = columns.size() - 1;
+                long runningTotalMinor = LedgerMath.foldSinceCheckpoint(checkpoint.getRunningTotalMinor(), columns);
+                double runningTotal = Money.toMajorUnits(runningTotalMinor);
+                long folded = last;
+                long transactionCount = checkpoint.getTransactionCount() + folded;
+                String lastKey = columns.key(last);
+                long lastTimestamp = columns.timestamp(last);
+
+                Log.i(TAG, "[Recalc] Folded " + folded + " new transactions for user " + userId + ". totalSaved: " + runningTotal);
+                CoalescingTransactionSource reads = LedgerCache.remoteReads(userId);
+                Log.d(TAG, "[Reads] Ledger queries issued: " + reads.getIssuedReads() + ", coalesced: " + reads.getCoalescedReads());
+                if (folded == 0 && storedTotalMinor == runningTotalMinor) {
+                    if (callback != null) callback.onSuccess(runningTotal);
+                    return;
                 }
-                Log.i(TAG, "--- FINAL Recalculated totalSaved for user " + userId + ": " + newTotalSaved + " ---");
-                updateTotalSavedInProfile(userId, newTotalSaved, callback);
+                BalanceCheckpoint next = folded == 0
+                        ? checkpoint
+                        : new BalanceCheckpoint(lastKey, lastTimestamp, runningTotalMinor, transactionCount);
+                commitTotalSaved(userId, storedTotalMinor, runningTotalMinor, next, attempt, callback);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError databaseError) {
-                Log.e(TAG, "Failed to read transactions for recalculation: " + databaseError.getMessage());
+            public void onError(String errorMessage) {
+                Log.e(TAG, "[Recalc] Failed to read transactions since checkpoint: " + errorMessage);
+                if (callback != null)
+                    callback.onError("Failed to read transactions: " + errorMessage);
+            }
+        });
+    }
+
+    /**
+     * Sums the whole ledger and stores the result together with a new balance checkpoint.
+     */
+    private static void rescan(String userId, long storedTotalMinor, int attempt, CalculationCallback callback) {
+        LedgerCache.forUser(userId).loadAll(new TransactionSource.Callback() {
+            @Override
+            public void onLoaded(TransactionColumns columns) {
+                if (columns.size() == 0) {
+                    Log.i(TAG, "No transactions found for user " + userId + ". Setting totalSaved to 0.");
+                    commitTotalSaved(userId, storedTotalMinor, 0L, null, attempt, callback);
+                    return;
+                }
+
+                int last = columns.size() - 1;
+                long newTotalSavedMinor = LedgerMath.totalSaved(columns);
+                Log.i(TAG, "--- FINAL Recalculated totalSaved for user " + userId + ": " + Money.toMajorUnits(newTotalSavedMinor) + " ---");
+                BalanceCheckpoint checkpoint = new BalanceCheckpoint(
+                        columns.key(last), columns.timestamp(last), newTotalSavedMinor, columns.size());
+                commitTotalSaved(userId, storedTotalMinor, newTotalSavedMinor, checkpoint, attempt, callback);
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                Log.e(TAG, "Failed to read transactions for recalculation: " + errorMessage);
                 if (callback != null)
-                    callback.onError("Failed to read transactions: " + databaseError.getMessage());
+                    callback.onError("Failed to read transactions: " + errorMessage);
             }
         });
     }
 
+    /**
+     * Replaces totalSaved if it still holds {@code expectedMinor}, then stores the checkpoint
+     * the new total was summed to. A lost race starts the recalculation over.
+     */
+    private static void commitTotalSaved(String userId, long expectedMinor, long newTotalMinor, BalanceCheckpoint checkpoint,
+                                         int attempt, CalculationCallback callback) {
+        double newTotal = Money.toMajorUnits(newTotalMinor);
+        BalanceWriter.compareAndSet(userId, expectedMinor, newTotalMinor, new BalanceWriter.CompareAndSetCallback() {
+            @Override
+            public void onCommitted() {
+                Log.i(TAG, "Successfully updated totalSaved for user " + userId + " to " + newTotal);
+                storeBalanceCheckpoint(userId, checkpoint);
+                if (callback != null) callback.onSuccess(newTotal);
+            }
+
+            @Override
+            public void onConflict(long actualMinor) {
+                if (attempt >= BalanceWriter.MAX_COMPARE_AND_SET_ATTEMPTS) {
+                    Log.e(TAG, "[Recalc] totalSaved for user " + userId + " kept changing; gave up after " + attempt + " attempts.");
+                    if (callback != null) callback.onError("totalSaved changed during recalculation.");
+                    return;
+                }
+                recalculate(userId, attempt + 1, callback);
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                if (callback != null) callback.onError(errorMessage);
+            }
+        });
+    }
 
-    private static void updateTotalSavedInProfile(String userId, double newTotal, CalculationCallback callback) {
-        DatabaseReference totalSavedFieldRef = FirebaseDatabase.getInstance(DB_URL)
+    /**
+     * Stores the point the ledger has been summed to. It is written after the total it
+     * describes, so a failed write only leaves an older checkpoint, and a null checkpoint
+     * clears it; either way the next recalculation falls back to a full rescan or a longer fold.
+     */
+    static void storeBalanceCheckpoint(String userId, BalanceCheckpoint checkpoint) {
+        FirebaseDatabase.getInstance(DB_URL)
                 .getReference(SMART_SAVE_PROFILE_NODE)
                 .child(userId)
-                .child("totalSaved");
-
-        totalSavedFieldRef.setValue(newTotal)
-                .addOnSuccessListener(aVoid -> {
-                    Log.i(TAG, "Successfully updated totalSaved for user " + userId + " to " + newTotal);
-                    if (callback != null) callback.onSuccess(newTotal);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to update totalSaved for user " + userId + ": " + e.getMessage());
-                    if (callback != null)
-                        callback.onError("Failed to update totalSaved: " + e.getMessage());
-                });
+                .child(BALANCE_CHECKPOINT_NODE)
+                .setValue(checkpoint)
+                .addOnFailureListener(e -> Log.w(TAG, "[Recalc] Failed to store balance checkpoint for user " + userId + ": " + e.getMessage()));
     }
 
     public static void calculateInterestEarnedLastMonth(InterestCalculationCallback callback) {
+        calculateInterestEarnedLastMonth(null, callback);
+    }
+
+    /**
+     * As above; nothing is computed or delivered once {@code token} is cancelled.
+     */
+    public static void calculateInterestEarnedLastMonth(CancellationToken token, InterestCalculationCallback callback) {
         FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
         if (currentUser == null) {
             Log.e(TAG, "[CalcInterest] User not logged in."); // Added prefix for clarity
@@ -414,88 +560,53 @@ public class SavingsCalculator {
         }
         String userId = currentUser.getUid();
 
-        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
-        calendar.set(Calendar.HOUR_OF_DAY, 23);
-        calendar.set(Calendar.MINUTE, 59);
-        calendar.set(Calendar.SECOND, 59);
-        calendar.set(Calendar.MILLISECOND, 999);
-        long endTimestamp = calendar.getTimeInMillis();
-
-        calendar.add(Calendar.DAY_OF_YEAR, -30);
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-        long startTimestamp = calendar.getTimeInMillis();
+        long[] window = LedgerMath.trailingWindow(System.currentTimeMillis());
+        long startTimestamp = window[0];
+        long endTimestamp = window[1];
 
         Log.i(TAG, "[CalcInterest] User: " + userId);
-        Log.i(TAG, "[CalcInterest] Start Timestamp: " + startTimestamp + " (" + new java.util.Date(startTimestamp) + ")"); // Use java.util.Date
-        Log.i(TAG, "[CalcInterest] End Timestamp:   " + endTimestamp + " (" + new java.util.Date(endTimestamp) + ")");
-
-        DatabaseReference userTransactionsRef = FirebaseDatabase.getInstance(DB_URL)
-                .getReference(SMART_SAVE_PROFILE_NODE)
-                .child(userId)
-                .child(TRANSACTIONS_SUB_NODE);
-
-        Query interestQuery = userTransactionsRef.orderByChild("timestamp")
-                .startAt((double) startTimestamp)
-                .endAt((double) endTimestamp);
-
-        Log.d(TAG, "[CalcInterest] Query Path: " + interestQuery.getRef().toString());
+        // The readable dates cost two Date strings per call, so they are only built when asked for.
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "[CalcInterest] Start Timestamp: " + startTimestamp + " (" + new java.util.Date(startTimestamp) + ")");
+            Log.d(TAG, "[CalcInterest] End Timestamp:   " + endTimestamp + " (" + new java.util.Date(endTimestamp) + ")");
+        }
 
-        interestQuery.addListenerForSingleValueEvent(new ValueEventListener() {
+        LedgerCache.forUser(userId).loadRange(startTimestamp, endTimestamp, new TransactionSource.Callback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                double totalInterest = 0.0;
-                String currency = "BGN";
-                boolean currencyFound = false;
-
-                Log.i(TAG, "[CalcInterest] onDataChange. Snapshot exists: " + dataSnapshot.exists() + ", Children: " + dataSnapshot.getChildrenCount());
-
-                if (!dataSnapshot.exists()) {
-                    Log.i(TAG, "[CalcInterest] No tx in date range for user " + userId);
-                    if (callback != null) callback.onSuccess(0.0, currency);
+            public void onLoaded(TransactionColumns columns) {
+                if (CancellationToken.isCancelled(token)) return;
+                Log.i(TAG, "[CalcInterest] Loaded " + columns.size() + " transactions in range.");
+
+                double totalInterest;
+                try {
+                    totalInterest = Money.toMajorUnits(LedgerMath.interest(columns, startTimestamp, endTimestamp, token));
+                } catch (CancellationException e) {
+                    Log.d(TAG, "[CalcInterest] Cancelled.");
                     return;
                 }
-
-                for (DataSnapshot txSnapshot : dataSnapshot.getChildren()) {
-                    Transaction transaction = txSnapshot.getValue(Transaction.class);
-                    Log.d(TAG, "[CalcInterest]   Processing Tx ID: " + txSnapshot.getKey() +
-                            ", Type: " + (transaction != null ? transaction.getType() : "N/A") +
-                            ", Amount: " + (transaction != null ? transaction.getAmount() : "N/A") +
-                            ", Timestamp: " + (transaction != null ? transaction.getTimestamp() : "N/A") +
-                            " (" + (transaction != null && transaction.getTimestamp() > 0 ? new java.util.Date(transaction.getTimestamp()) : "N/A") + ")");
-
-                    if (transaction != null) {
-                        String type = transaction.getType() != null ? transaction.getType().toUpperCase() : "";
-                        if ("INTEREST_PAYMENT".equals(type)) {
-                            totalInterest += transaction.getAmount();
-                            Log.d(TAG, "[CalcInterest]     +++ INTEREST_PAYMENT: Added " + transaction.getAmount() + ". Sum: " + totalInterest);
-                            if (!currencyFound && transaction.getCurrency() != null && !transaction.getCurrency().isEmpty()) {
-                                currency = transaction.getCurrency();
-                                currencyFound = true;
-                            }
-                        } else {
-                            Log.d(TAG, "[CalcInterest]     --- Not INTEREST_PAYMENT. Actual type: '" + type + "'");
-                        }
-                    }
-                }
+                String currency = LedgerMath.currency(columns, TransactionType.INTEREST_PAYMENT, startTimestamp, endTimestamp);
                 Log.i(TAG, "[CalcInterest] FINAL Total interest for user " + userId + ": " + totalInterest + " " + currency);
                 if (callback != null) callback.onSuccess(totalInterest, currency);
             }
 
-
             @Override
-            public void onCancelled(@NonNull DatabaseError databaseError) {
-                Log.e(TAG, "Failed to read transactions for monthly interest: " + databaseError.getMessage());
-                if (callback != null)
-                    callback.onError("Failed to read transactions for monthly interest: " + databaseError.getMessage());
+            public void onError(String errorMessage) {
+                Log.e(TAG, "Failed to read transactions for monthly interest: " + errorMessage);
+                if (callback != null && !CancellationToken.isCancelled(token))
+                    callback.onError("Failed to read transactions for monthly interest: " + errorMessage);
             }
         });
     }
 
 
     public static void calculateProgressThisMonth(MonthlyProgressCallback callback) {
+        calculateProgressThisMonth(null, callback);
+    }
+
+    /**
+     * As above; nothing is computed or delivered once {@code token} is cancelled.
+     */
+    public static void calculateProgressThisMonth(CancellationToken token, MonthlyProgressCallback callback) {
         FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
         if (currentUser == null) {
             Log.e(TAG, "[CalcProgress] User not logged in.");
@@ -504,91 +615,39 @@ public class SavingsCalculator {
         }
         String userId = currentUser.getUid();
 
-        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
-        calendar.set(Calendar.HOUR_OF_DAY, 23);
-        calendar.set(Calendar.MINUTE, 59);
-        calendar.set(Calendar.SECOND, 59);
-        calendar.set(Calendar.MILLISECOND, 999);
-        long endTimestamp = calendar.getTimeInMillis();
-
-        calendar.add(Calendar.DAY_OF_YEAR, -30);
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-        long startTimestamp = calendar.getTimeInMillis();
+        long[] window = LedgerMath.trailingWindow(System.currentTimeMillis());
+        long startTimestamp = window[0];
+        long endTimestamp = window[1];
 
         Log.i(TAG, "[CalcProgress] User: " + userId);
-        Log.i(TAG, "[CalcProgress] Period Start: " + startTimestamp + " (" + new java.util.Date(startTimestamp) + ")");
-        Log.i(TAG, "[CalcProgress] Period End:   " + endTimestamp + " (" + new java.util.Date(endTimestamp) + ")");
-
-        DatabaseReference userTransactionsRef = FirebaseDatabase.getInstance(DB_URL)
-                .getReference(SMART_SAVE_PROFILE_NODE)
-                .child(userId)
-                .child(TRANSACTIONS_SUB_NODE);
-
-        Query progressQuery = userTransactionsRef.orderByChild("timestamp")
-                .startAt((double) startTimestamp)
-                .endAt((double) endTimestamp);
-
-        Log.d(TAG, "[CalcProgress] Query Path: " + progressQuery.getRef().toString());
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "[CalcProgress] Period Start: " + startTimestamp + " (" + new java.util.Date(startTimestamp) + ")");
+            Log.d(TAG, "[CalcProgress] Period End:   " + endTimestamp + " (" + new java.util.Date(endTimestamp) + ")");
+        }
 
-        progressQuery.addListenerForSingleValueEvent(new ValueEventListener() {
+        LedgerCache.forUser(userId).loadRange(startTimestamp, endTimestamp, new TransactionSource.Callback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                double totalProgress = 0.0;
-                String currency = "BGN"; // Default
-                boolean currencyFound = false;
-
-                Log.i(TAG, "[CalcProgress] onDataChange. Snapshot exists: " + dataSnapshot.exists() + ", Children in range: " + dataSnapshot.getChildrenCount());
-
-                if (!dataSnapshot.exists()) {
-                    Log.i(TAG, "[CalcProgress] No tx in date range for user " + userId);
-                    if (callback != null) callback.onSuccess(0.0, currency);
+            public void onLoaded(TransactionColumns columns) {
+                if (CancellationToken.isCancelled(token)) return;
+                Log.i(TAG, "[CalcProgress] Loaded " + columns.size() + " transactions in range.");
+
+                double totalProgress;
+                try {
+                    totalProgress = Money.toMajorUnits(LedgerMath.progress(columns, startTimestamp, endTimestamp, token));
+                } catch (CancellationException e) {
+                    Log.d(TAG, "[CalcProgress] Cancelled.");
                     return;
                 }
-
-                for (DataSnapshot txSnapshot : dataSnapshot.getChildren()) {
-                    Transaction transaction = txSnapshot.getValue(Transaction.class);
-                    Log.d(TAG, "[CalcProgress]   Processing Tx ID: " + txSnapshot.getKey() +
-                            ", Type: " + (transaction != null ? transaction.getType() : "N/A") +
-                            ", Amount: " + (transaction != null ? transaction.getAmount() : "N/A") +
-                            ", SavingsCalculated: " + (transaction != null ? transaction.getSavingsCalculated() : "N/A") +
-                            ", Timestamp: " + (transaction != null ? transaction.getTimestamp() : "N/A"));
-
-                    if (transaction != null) {
-                        String type = transaction.getType() != null ? transaction.getType().toUpperCase() : "";
-                        switch (type) {
-                            case "INCOME":
-                                totalProgress += transaction.getSavingsCalculated();
-                                Log.d(TAG, "[CalcProgress]     +++ INCOME: Added savingsCalculated " + transaction.getSavingsCalculated() + ". Current Progress: " + totalProgress);
-                                break;
-                            case "INTEREST_PAYMENT":
-                                totalProgress += transaction.getAmount();
-                                Log.d(TAG, "[CalcProgress]     +++ INTEREST_PAYMENT: Added amount " + transaction.getAmount() + ". Current Progress: " + totalProgress);
-                                break;
-                            default:
-                                Log.d(TAG, "[CalcProgress]     --- Type '" + type + "' not included in progress. Skipping.");
-                                break; // Other types like WITHDRAW, EXPENSE (if not contributing to savings) are ignored
-                        }
-
-                        if (!currencyFound && (type.equals("INCOME") || type.equals("INTEREST_PAYMENT"))) {
-                            if (transaction.getCurrency() != null && !transaction.getCurrency().isEmpty()) {
-                                currency = transaction.getCurrency();
-                                currencyFound = true;
-                            }
-                        }
-                    }
-                }
+                String currency = LedgerMath.currency(columns, TransactionType.INCOME, startTimestamp, endTimestamp);
                 Log.i(TAG, "[CalcProgress] FINAL Progress this month for user " + userId + ": " + totalProgress + " " + currency);
                 if (callback != null) callback.onSuccess(totalProgress, currency);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError databaseError) {
-                Log.e(TAG, "[CalcProgress] onCancelled: " + databaseError.getMessage(), databaseError.toException());
-                if (callback != null)
-                    callback.onError("Failed to read transactions for monthly progress: " + databaseError.getMessage());
+            public void onError(String errorMessage) {
+                Log.e(TAG, "[CalcProgress] onCancelled: " + errorMessage);
+                if (callback != null && !CancellationToken.isCancelled(token))
+                    callback.onError("Failed to read transactions for monthly progress: " + errorMessage);
             }
         });
     }
@@ -612,78 +671,27 @@ public class SavingsCalculator {
             return;
         }
 
-        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
-
-        calendar.set(year, month - 1, 1, 0, 0, 0); // month is 0-indexed in Calendar
-        calendar.set(Calendar.MILLISECOND, 0);
-        long startTimestamp = calendar.getTimeInMillis();
-
-
-        calendar.set(year, month - 1, 1); // Reset to first day of current month
-        calendar.add(Calendar.MONTH, 1);    // Go to first day of next month
-        calendar.add(Calendar.MILLISECOND, -1); // Go to last millisecond of selected month
-        long endTimestamp = calendar.getTimeInMillis();
-
-
-        Log.i(TAG, "[CalcSelectedMonthInterest] User: " + userId + ", Year: " + year + ", Month: " + month);
-        Log.i(TAG, "[CalcSelectedMonthInterest] Period Start: " + startTimestamp + " (" + new java.util.Date(startTimestamp) + ")");
-        Log.i(TAG, "[CalcSelectedMonthInterest] Period End:   " + endTimestamp + " (" + new java.util.Date(endTimestamp) + ")");
-
-        DatabaseReference userTransactionsRef = FirebaseDatabase.getInstance(DB_URL)
-                .getReference(SMART_SAVE_PROFILE_NODE)
-                .child(userId)
-                .child(TRANSACTIONS_SUB_NODE);
-
-        Query interestQuery = userTransactionsRef.orderByChild("timestamp")
-                .startAt((double) startTimestamp)
-                .endAt((double) endTimestamp);
+        String monthKey = MonthlyRollupStore.monthKey(year, month);
+        Log.i(TAG, "[CalcSelectedMonthInterest] User: " + userId + ", Month: " + monthKey);
 
-        Log.d(TAG, "[CalcSelectedMonthInterest] Query Path: " + interestQuery.getRef().toString());
-
-        interestQuery.addListenerForSingleValueEvent(new ValueEventListener() {
+        MonthlyRollupStore.load(userId, new MonthlyRollupStore.RollupCallback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                double totalInterest = 0.0;
-                String currency = "BGN";
-                boolean currencyFound = false;
-
-                Log.i(TAG, "[CalcSelectedMonthInterest] onDataChange. Snapshot exists: " + dataSnapshot.exists() + ", Children in range: " + dataSnapshot.getChildrenCount());
-
-                if (!dataSnapshot.exists() || dataSnapshot.getChildrenCount() == 0) {
-                    Log.i(TAG, "[CalcSelectedMonthInterest] No transactions found in the selected month/year for user " + userId);
-                    if (callback != null)
-                        callback.onSuccess(0.0, currency); // Return 0 if no transactions
+            public void onSuccess(SortedMap<String, MonthlyRollup> rollups) {
+                MonthlyRollup rollup = rollups.get(monthKey);
+                if (rollup == null) {
+                    Log.i(TAG, "[CalcSelectedMonthInterest] No transactions found in " + monthKey + " for user " + userId);
+                    if (callback != null) callback.onSuccess(0.0, "BGN");
                     return;
                 }
-
-                for (DataSnapshot txSnapshot : dataSnapshot.getChildren()) {
-                    Transaction transaction = txSnapshot.getValue(Transaction.class);
-
-                    if (transaction != null) {
-                        String type = transaction.getType() != null ? transaction.getType().toUpperCase() : "";
-                        if ("INTEREST_PAYMENT".equals(type)) {
-                            // Ensure transaction is within the exact month (Firebase query is inclusive)
-                            if (transaction.getTimestamp() >= startTimestamp && transaction.getTimestamp() <= endTimestamp) {
-                                totalInterest += transaction.getAmount();
-                                Log.d(TAG, "[CalcSelectedMonthInterest]     +++ INTEREST_PAYMENT: Added " + transaction.getAmount() + ". Sum: " + totalInterest);
-                                if (!currencyFound && transaction.getCurrency() != null && !transaction.getCurrency().isEmpty()) {
-                                    currency = transaction.getCurrency();
-                                    currencyFound = true;
-                                }
-                            } else {
-                            }
-                        }
-                    }
-                }
-                Log.i(TAG, "[CalcSelectedMonthInterest] FINAL Total interest for " + month + "/" + year + " for user " + userId + ": " + totalInterest + " " + currency);
-                if (callback != null) callback.onSuccess(totalInterest, currency);
+                Log.i(TAG, "[CalcSelectedMonthInterest] FINAL Total interest for " + monthKey + " for user " + userId + ": " + rollup.getInterest() + " " + rollup.getCurrency());
+                if (callback != null) callback.onSuccess(rollup.getInterest(), rollup.getCurrency());
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError databaseError) {
-                Log.e(TAG, "[CalcSelectedMonthInterest] onCancelled: " + databaseError.getMessage(), databaseError.toException());
+            public void onError(String errorMessage) {
+                Log.e(TAG, "[CalcSelectedMonthInterest] Failed to load rollups: " + errorMessage);
                 if (callback != null)
-                    callback.onError("Failed to read transactions for selected month's interest: " + databaseError.getMessage());
+                    callback.onError("Failed to read transactions for selected month's interest: " + errorMessage);
             }
         });
     }
@@ -0,0 +1,447 @@
+package com.example.smartsave.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.smartsave.core.Clock;
+import com.example.smartsave.core.Money;
+import com.example.smartsave.core.MonthBoundaries;
+import com.example.smartsave.core.SettlementScheduler;
+import com.example.smartsave.core.TransactionColumns;
+import com.example.smartsave.core.TransactionSource;
+import com.example.smartsave.core.TransactionType;
+import com.example.smartsave.data.LedgerCache;
+import com.example.smartsave.model.PendingWithdrawal;
+import com.example.smartsave.model.Transaction;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes withdrawals under smartSaveProfile/{uid}.
+ * <p>
+ * A withdrawal is committed as one multi-path update: the PENDING_WITHDRAWAL transaction, the
+ * totalSaved debit and its entry in the pendingWithdrawals index land together or not at all,
+ * in one round trip. The index holds the open withdrawals under "entries" and their sum under
+ * "total", which is all the Withdraw screen reads.
+ * <p>
+ * The entries are also the settlement queue. Each records when it falls due, and
+ * {@link #settleDue} hands them to a {@link SettlementScheduler}. The scheduler settles every
+ * due entry in batches: each batch marks its transactions WITHDRAWAL and then takes them out
+ * of the index in one transaction (see {@link #settle}). The queue is on the server, so withdrawals that fell due while the
+ * app was not running are settled by the next pass. While it runs, a pass is also timed for
+ * the next due entry.
+ * <p>
+ * Withdrawals written before this could debit totalSaved and then fail to write the
+ * transaction, and none of them are in the index. {@link #reconcile} repairs the total from
+ * the ledger and backfills the index once per session.
+ */
+public final class WithdrawalStore {
+
+    private static final String TAG = "WithdrawalStore";
+    private static final String SMART_SAVE_PROFILE_NODE = "smartSaveProfile";
+    private static final String TRANSACTIONS_NODE = "transactions";
+    private static final String PENDING_WITHDRAWALS_NODE = "pendingWithdrawals";
+    private static final String ENTRIES_CHILD = "entries";
+    private static final String TOTAL_CHILD = "total";
+    // Set once the entries include every PENDING_WITHDRAWAL already in the ledger.
+    private static final String BACKFILLED_CHILD = "backfilled";
+    private static final String DB_URL = "https://smartsave-e0e7b-default-rtdb.europe-west1.firebasedatabase.app/";
+    private static final String DESCRIPTION = "Scheduled Withdrawal";
+    private static final String DUE_AT_CHILD = "dueAt";
+
+    /** How long a withdrawal stays pending before it is settled. */
+    public static final long SETTLEMENT_DELAY_MILLIS = MonthBoundaries.DAY_MILLIS;
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Guarded by the class; one scheduler and at most one timed pass per user.
+    private static final Map<String, SettlementScheduler> schedulers = new HashMap<>();
+    private static final Map<String, Runnable> wakeUps = new HashMap<>();
+
+    // Users whose totalSaved has been checked against the ledger since the app started.
+    private static final Set<String> reconciledUsers = new HashSet<>();
+
+    /** Path of the open withdrawals' sum, relative to the profile. */
+    public static final String PENDING_TOTAL_PATH = PENDING_WITHDRAWALS_NODE + "/" + TOTAL_CHILD;
+
+    public interface SettleCallback {
+        void onSuccess();
+
+        void onError(String errorMessage);
+    }
+
+    public interface SubmitCallback {
+        void onSuccess(String key, Transaction transaction);
+
+        void onError(String errorMessage);
+    }
+
+    private WithdrawalStore() {
+    }
+
+    private static DatabaseReference profileRef(String userId) {
+        return FirebaseDatabase.getInstance(DB_URL)
+                .getReference(SMART_SAVE_PROFILE_NODE)
+                .child(userId);
+    }
+
+    /**
+     * Records a pending withdrawal of {@code amountMinor} at {@code timestamp}, indexes it and
+     * debits totalSaved by the same amount, atomically.
+     */
+    public static void submit(String userId, long amountMinor, long timestamp, SubmitCallback callback) {
+        String key = Long.toString(timestamp);
+        double amount = Money.toMajorUnits(-amountMinor);
+
+        Map<String, Object> txData = new HashMap<>();
+        txData.put("amount", amount);
+        txData.put("currency", Money.DEFAULT_CURRENCY);
+        txData.put("type", TransactionType.PENDING_WITHDRAWAL.name());
+        txData.put("description", DESCRIPTION);
+        txData.put("date", timestamp);
+        txData.put("timestamp", timestamp);
+
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(TRANSACTIONS_NODE + "/" + key, txData);
+        updates.put(BalanceWriter.TOTAL_SAVED_FIELD, BalanceWriter.incrementBy(-amountMinor));
+        updates.put(entryPath(key), new PendingWithdrawal(amountMinor, timestamp, timestamp + SETTLEMENT_DELAY_MILLIS));
+        updates.put(PENDING_TOTAL_PATH, ServerValue.increment(Money.toMajorUnits(amountMinor)));
+
+        profileRef(userId).updateChildren(updates)
+                .addOnSuccessListener(aVoid -> {
+                    Log.i(TAG, "[Submit] Withdrawal " + key + " of " + Money.toMajorUnits(amountMinor) + " committed for user " + userId);
+                    Transaction transaction = new Transaction(DESCRIPTION, amount, TransactionType.PENDING_WITHDRAWAL.name(),
+                            0.0, timestamp, Money.DEFAULT_CURRENCY);
+                    transaction.setId(key);
+                    MonthlyRollupStore.load(userId, null);
+                    settleDue(userId);
+                    if (callback != null) callback.onSuccess(key, transaction);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "[Submit] Failed to commit withdrawal for user " + userId + ": " + e.getMessage());
+                    if (callback != null) callback.onError("Failed to submit withdrawal: " + e.getMessage());
+                });
+    }
+
+    /**
+     * Marks the pending withdrawals in {@code batch} as completed and takes them out of the
+     * index. Their amounts were debited from totalSaved when they were submitted, so it is not
+     * touched.
+     * <p>
+     * Each type is flipped by its own transaction, which changes only a PENDING_WITHDRAWAL and
+     * never writes a transaction that is gone. The entries are then removed in one transaction
+     * on the index, which re-sums the total from the entries left. Settling the same entries
+     * twice, from another device or an overlapping pass, therefore changes nothing the second
+     * time, and a pass interrupted between the two steps is finished by the next one.
+     */
+    public static void settle(String userId, List<SettlementScheduler.Settlement> batch, SettleCallback callback) {
+        if (batch.isEmpty()) {
+            removeFromIndex(userId, batch, 0, callback);
+            return;
+        }
+        DatabaseReference transactionsRef = profileRef(userId).child(TRANSACTIONS_NODE);
+        // Transaction callbacks all run on the main thread, so the counters need no lock.
+        int[] remaining = {batch.size()};
+        int[] missing = {0};
+        boolean[] failed = {false};
+        for (SettlementScheduler.Settlement settlement : batch) {
+            transactionsRef.child(settlement.getKey()).child("type").runTransaction(new com.google.firebase.database.Transaction.Handler() {
+                @NonNull
+                @Override
+                public com.google.firebase.database.Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                    String type = currentData.getValue(String.class);
+                    // Null locally may just mean not synced: committing it unchanged lets the server answer.
+                    if (type == null) return com.google.firebase.database.Transaction.success(currentData);
+                    if (!TransactionType.PENDING_WITHDRAWAL.name().equals(type)) {
+                        return com.google.firebase.database.Transaction.abort();
+                    }
+                    currentData.setValue(TransactionType.WITHDRAWAL.name());
+                    return com.google.firebase.database.Transaction.success(currentData);
+                }
+
+                @Override
+                public void onComplete(@Nullable DatabaseError error, boolean committed, @Nullable DataSnapshot currentData) {
+                    if (failed[0]) return;
+                    if (error != null) {
+                        failed[0] = true;
+                        Log.e(TAG, "[Settle] Failed to complete withdrawal " + settlement.getKey() + " for user " + userId + ": " + error.getMessage());
+                        if (callback != null) callback.onError("Failed to complete withdrawals: " + error.getMessage());
+                        return;
+                    }
+                    if (committed && (currentData == null || currentData.getValue() == null)) missing[0]++;
+                    if (--remaining[0] == 0) removeFromIndex(userId, batch, missing[0], callback);
+                }
+            });
+        }
+    }
+
+    private static void removeFromIndex(String userId, List<SettlementScheduler.Settlement> batch, int missing,
+                                        SettleCallback callback) {
+        Set<String> keys = new HashSet<>();
+        for (SettlementScheduler.Settlement settlement : batch) keys.add(settlement.getKey());
+        int[] removed = {0};
+        profileRef(userId).child(PENDING_WITHDRAWALS_NODE).runTransaction(new com.google.firebase.database.Transaction.Handler() {
+            @NonNull
+            @Override
+            public com.google.firebase.database.Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                removed[0] = 0;
+                if (currentData.getValue() == null) return com.google.firebase.database.Transaction.success(currentData);
+                MutableData entries = currentData.child(ENTRIES_CHILD);
+                long totalMinor = 0L;
+                for (MutableData entryData : entries.getChildren()) {
+                    if (keys.contains(entryData.getKey())) continue;
+                    PendingWithdrawal entry = entryData.getValue(PendingWithdrawal.class);
+                    if (entry != null) totalMinor = Money.add(totalMinor, entry.getAmountMinor());
+                }
+                for (String key : keys) {
+                    if (!entries.hasChild(key)) continue;
+                    entries.child(key).setValue(null);
+                    removed[0]++;
+                }
+                currentData.child(TOTAL_CHILD).setValue(Money.toMajorUnits(totalMinor));
+                return com.google.firebase.database.Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(@Nullable DatabaseError error, boolean committed, @Nullable DataSnapshot currentData) {
+                if (error != null) {
+                    Log.e(TAG, "[Settle] Failed to update the index for user " + userId + ": " + error.getMessage());
+                    if (callback != null) callback.onError("Failed to complete withdrawals: " + error.getMessage());
+                    return;
+                }
+                if (missing > 0) {
+                    Log.w(TAG, "[Settle] Dropped " + missing + " index entries without a transaction for user " + userId);
+                }
+                Log.i(TAG, "[Settle] Completed " + removed[0] + " of " + batch.size() + " withdrawals for user " + userId);
+                if (callback != null) callback.onSuccess();
+            }
+        });
+    }
+
+    /**
+     * Settles every withdrawal that is due and times the next pass for the earliest one left.
+     * Safe to call often: a call during a pass joins it.
+     */
+    public static void settleDue(String userId) {
+        SettlementScheduler scheduler;
+        synchronized (WithdrawalStore.class) {
+            scheduler = schedulers.get(userId);
+            if (scheduler == null) {
+                scheduler = new SettlementScheduler(new FirebaseSettlementQueue(userId), Clock.SYSTEM,
+                        SettlementScheduler.DEFAULT_BATCH_SIZE);
+                schedulers.put(userId, scheduler);
+            }
+            Runnable wakeUp = wakeUps.remove(userId);
+            if (wakeUp != null) mainHandler.removeCallbacks(wakeUp);
+        }
+        scheduler.runDue(new SettlementScheduler.Callback() {
+            @Override
+            public void onComplete(SettlementScheduler.Result result) {
+                if (result.getSettled() > 0) {
+                    Log.i(TAG, "[Settle] Settled " + result.getSettled() + " withdrawals in " + result.getBatches()
+                            + " batches for user " + userId);
+                }
+                if (result.getNextDueAt() != SettlementScheduler.NOTHING_QUEUED) {
+                    scheduleWakeUp(userId, result.getNextDueAt());
+                }
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                // Whatever is due stays queued for the next pass.
+                Log.w(TAG, "[Settle] Pass failed for user " + userId + ": " + errorMessage);
+            }
+        });
+    }
+
+    private static void scheduleWakeUp(String userId, long dueAt) {
+        Runnable wakeUp = () -> settleDue(userId);
+        synchronized (WithdrawalStore.class) {
+            Runnable previous = wakeUps.put(userId, wakeUp);
+            if (previous != null) mainHandler.removeCallbacks(previous);
+        }
+        mainHandler.postDelayed(wakeUp, Math.max(dueAt - System.currentTimeMillis(), 0L));
+    }
+
+    private static String entryPath(String key) {
+        return PENDING_WITHDRAWALS_NODE + "/" + ENTRIES_CHILD + "/" + key;
+    }
+
+    /**
+     * Brings totalSaved back in line with the ledger and fills in the pendingWithdrawals index,
+     * once per user per session. The recalculation derives the total from the transactions
+     * alone, so a debit whose transaction was never written is undone.
+     */
+    public static void reconcile(String userId) {
+        synchronized (reconciledUsers) {
+            if (!reconciledUsers.add(userId)) return;
+        }
+        backfillPendingIndex(userId);
+        SavingsCalculator.recalculateAndUpdatetotalSaved(userId, new SavingsCalculator.CalculationCallback() {
+            @Override
+            public void onSuccess(double newTotalSaved) {
+                Log.i(TAG, "[Reconcile] totalSaved for user " + userId + " is " + newTotalSaved);
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                Log.w(TAG, "[Reconcile] Failed for user " + userId + ": " + errorMessage);
+                synchronized (reconciledUsers) {
+                    reconciledUsers.remove(userId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Adds the ledger's PENDING_WITHDRAWAL transactions to the index unless that was done
+     * before, and gives entries indexed before settlement was scheduled their dueAt. Runs as
+     * a transaction on the small index node, merging with entries that submissions made
+     * meanwhile, and re-sums the total from the merged entries.
+     */
+    private static void backfillPendingIndex(String userId) {
+        DatabaseReference indexRef = profileRef(userId).child(PENDING_WITHDRAWALS_NODE);
+        indexRef.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                if (Boolean.TRUE.equals(snapshot.child(BACKFILLED_CHILD).getValue(Boolean.class))) {
+                    for (DataSnapshot entrySnapshot : snapshot.child(ENTRIES_CHILD).getChildren()) {
+                        PendingWithdrawal entry = entrySnapshot.getValue(PendingWithdrawal.class);
+                        if (entry != null && entry.getDueAt() == 0L) {
+                            mergeIntoIndex(userId, indexRef, new HashMap<>());
+                            return;
+                        }
+                    }
+                    return;
+                }
+                LedgerCache.forUser(userId).loadAll(new TransactionSource.Callback() {
+                    @Override
+                    public void onLoaded(TransactionColumns columns) {
+                        Map<String, PendingWithdrawal> fromLedger = new HashMap<>();
+                        for (int row = 0; row < columns.size(); row++) {
+                            if (columns.type(row) == TransactionType.PENDING_WITHDRAWAL) {
+                                fromLedger.put(columns.key(row),
+                                        new PendingWithdrawal(Math.abs(columns.amount(row)), columns.timestamp(row),
+                                                columns.timestamp(row) + SETTLEMENT_DELAY_MILLIS));
+                            }
+                        }
+                        mergeIntoIndex(userId, indexRef, fromLedger);
+                    }
+
+                    @Override
+                    public void onError(String errorMessage) {
+                        Log.w(TAG, "[Backfill] Failed to read transactions for user " + userId + ": " + errorMessage);
+                    }
+                });
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.w(TAG, "[Backfill] Failed to read index state for user " + userId + ": " + error.getMessage());
+            }
+        });
+    }
+
+    private static void mergeIntoIndex(String userId, DatabaseReference indexRef, Map<String, PendingWithdrawal> fromLedger) {
+        indexRef.runTransaction(new com.google.firebase.database.Transaction.Handler() {
+            @NonNull
+            @Override
+            public com.google.firebase.database.Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                // Once backfilled, the ledger's view may be stale; only the dueAt gaps are filled.
+                boolean backfilled = Boolean.TRUE.equals(currentData.child(BACKFILLED_CHILD).getValue(Boolean.class));
+                Map<String, PendingWithdrawal> entries = backfilled ? new HashMap<>() : new HashMap<>(fromLedger);
+                for (MutableData entryData : currentData.child(ENTRIES_CHILD).getChildren()) {
+                    PendingWithdrawal entry = entryData.getValue(PendingWithdrawal.class);
+                    if (entry == null) continue;
+                    if (entry.getDueAt() == 0L) entry.setDueAt(entry.getTimestamp() + SETTLEMENT_DELAY_MILLIS);
+                    entries.put(entryData.getKey(), entry);
+                }
+                long totalMinor = 0L;
+                for (PendingWithdrawal entry : entries.values()) {
+                    totalMinor = Money.add(totalMinor, entry.getAmountMinor());
+                }
+                currentData.child(ENTRIES_CHILD).setValue(entries);
+                currentData.child(TOTAL_CHILD).setValue(Money.toMajorUnits(totalMinor));
+                currentData.child(BACKFILLED_CHILD).setValue(true);
+                return com.google.firebase.database.Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(@Nullable DatabaseError error, boolean committed, @Nullable DataSnapshot currentData) {
+                if (error != null) {
+                    Log.w(TAG, "[Backfill] Failed to update index for user " + userId + ": " + error.getMessage());
+                } else if (committed) {
+                    Log.i(TAG, "[Backfill] Indexed " + fromLedger.size() + " pending withdrawals from the ledger for user " + userId);
+                }
+            }
+        });
+    }
+
+    /**
+     * The index entries as a {@link SettlementScheduler.Store}: earliest dueAt first, settled
+     * through {@link #settle}. {@link #reconcile} gives entries indexed before settlement was
+     * scheduled their dueAt; until it has, they sort first and count as due, so they can
+     * never hold back due entries behind a full batch.
+     */
+    private static final class FirebaseSettlementQueue implements SettlementScheduler.Store {
+        private final String userId;
+
+        FirebaseSettlementQueue(String userId) {
+            this.userId = userId;
+        }
+
+        @Override
+        public void loadEarliest(int limit, LoadCallback callback) {
+            profileRef(userId).child(PENDING_WITHDRAWALS_NODE).child(ENTRIES_CHILD)
+                    .orderByChild(DUE_AT_CHILD)
+                    .limitToFirst(limit)
+                    .addListenerForSingleValueEvent(new ValueEventListener() {
+                        @Override
+                        public void onDataChange(@NonNull DataSnapshot snapshot) {
+                            List<SettlementScheduler.Settlement> earliest = new ArrayList<>((int) snapshot.getChildrenCount());
+                            for (DataSnapshot entrySnapshot : snapshot.getChildren()) {
+                                PendingWithdrawal entry = entrySnapshot.getValue(PendingWithdrawal.class);
+                                if (entry == null) continue;
+                                earliest.add(new SettlementScheduler.Settlement(entrySnapshot.getKey(), entry.getAmountMinor(), entry.getDueAt()));
+                            }
+                            callback.onLoaded(earliest);
+                        }
+
+                        @Override
+                        public void onCancelled(@NonNull DatabaseError error) {
+                            callback.onError(error.getMessage());
+                        }
+                    });
+        }
+
+        @Override
+        public void commit(List<SettlementScheduler.Settlement> batch, CommitCallback callback) {
+            settle(userId, batch, new SettleCallback() {
+                @Override
+                public void onSuccess() {
+                    callback.onCommitted();
+                }
+
+                @Override
+                public void onError(String errorMessage) {
+                    callback.onError(errorMessage);
+                }
+            });
+        }
+    }
+}
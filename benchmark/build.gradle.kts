@@ -0,0 +1,35 @@
+// JMH benchmarks for the calculation paths in :core.
+//
+//   ./gradlew -p benchmark jmh
+//   ./gradlew -p benchmark jmh -PjmhIncludes=LedgerBenchmark -PjmhSizes=1000,100000
+//
+// Results are written to benchmark/build/results/jmh/results.txt, with allocation rates
+// from the GC profiler next to each score.
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    implementation(project(":core"))
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    profilers.add("gc")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    // The 10M-row ledger needs roughly 1.5 GB of live heap.
+    jvmArgs.addAll("-Xms4g", "-Xmx4g")
+
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes.add(it) }
+    providers.gradleProperty("jmhSizes").orNull?.let { sizes ->
+        benchmarkParameters.put("size", objects.listProperty<String>().value(sizes.split(",")))
+    }
+}
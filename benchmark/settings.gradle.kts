@@ -0,0 +1,22 @@
+// The benchmarks are a standalone build so they run on a plain JVM without the Android SDK.
+// It compiles the shared :core module from ../core and reuses the main version catalog.
+pluginManagement {
+    repositories {
+        gradlePluginPortal()
+        mavenCentral()
+    }
+}
+dependencyResolutionManagement {
+    repositories {
+        mavenCentral()
+    }
+    versionCatalogs {
+        create("libs") {
+            from(files("../gradle/libs.versions.toml"))
+        }
+    }
+}
+
+rootProject.name = "SmartSaveBenchmark"
+include(":core")
+project(":core").projectDir = file("../core")
@@ -0,0 +1,66 @@
+package com.example.smartsave.benchmark;
+
+import com.example.smartsave.core.TransactionColumns;
+import com.example.smartsave.core.TransactionFormat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-row cost of the Transaction list formatting helpers. Each invocation formats the next
+ * row of the ledger, so the type mix matches the data.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FormattingBenchmark {
+
+    private static final String DATE_PATTERN = "dd MMM yyyy, HH:mm";
+
+    @Param({"1000", "100000", "10000000"})
+    public int size;
+
+    private TransactionColumns ledger;
+    private int row;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ledger = SyntheticLedger.generate(size, SyntheticLedger.SEED).toColumns();
+    }
+
+    private int nextRow() {
+        int current = row;
+        row = current + 1 == ledger.size() ? 0 : current + 1;
+        return current;
+    }
+
+    @Benchmark
+    public String savingsImpact() {
+        int i = nextRow();
+        return TransactionFormat.savingsImpact(ledger.type(i), ledger.amount(i), ledger.savings(i), ledger.currency(i));
+    }
+
+    @Benchmark
+    public String displayAmount() {
+        int i = nextRow();
+        return TransactionFormat.displayAmount(ledger.type(i), ledger.amount(i), ledger.currency(i));
+    }
+
+    @Benchmark
+    public String formattedDate() {
+        return TransactionFormat.date(ledger.timestamp(nextRow()), DATE_PATTERN);
+    }
+}
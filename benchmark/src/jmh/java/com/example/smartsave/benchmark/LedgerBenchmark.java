@@ -0,0 +1,110 @@
+package com.example.smartsave.benchmark;
+
+import com.example.smartsave.core.LedgerMath;
+import com.example.smartsave.core.MonthBoundaries;
+import com.example.smartsave.core.TransactionColumns;
+import com.example.smartsave.core.TransactionType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The SavingsCalculator aggregation paths, measured on the core functions they delegate to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LedgerBenchmark {
+
+    private static final int GROWTH_MONTHS = 12;
+
+    @Param({"1000", "100000", "10000000"})
+    public int size;
+
+    private SyntheticLedger raw;
+    private TransactionColumns ledger;
+    private int selectedYear;
+    private int selectedMonth;
+    private long monthStart;
+    private long monthEnd;
+    private long windowStart;
+    private long windowEnd;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        raw = SyntheticLedger.generate(size, SyntheticLedger.SEED);
+        ledger = raw.toColumns();
+
+        // Select the month holding the middle of the ledger, as a user browsing history would.
+        int middleMonth = MonthBoundaries.indexOf(ledger.timestamp(ledger.size() / 2));
+        selectedYear = MonthBoundaries.yearOf(middleMonth);
+        selectedMonth = MonthBoundaries.monthOf(middleMonth);
+        monthStart = LedgerMath.monthStart(selectedYear, selectedMonth);
+        monthEnd = LedgerMath.monthEnd(selectedYear, selectedMonth);
+
+        long[] window = LedgerMath.trailingWindow(SyntheticLedger.END);
+        windowStart = window[0];
+        windowEnd = window[1];
+    }
+
+    /** Building the columnar ledger from backend rows, paid once per ledger read. */
+    @Benchmark
+    public TransactionColumns ingest() {
+        return raw.toColumns();
+    }
+
+    @Benchmark
+    public long totalRecalculation() {
+        return LedgerMath.totalSaved(ledger);
+    }
+
+    @Benchmark
+    public long selectedMonthInterest() {
+        return LedgerMath.interest(ledger, monthStart, monthEnd);
+    }
+
+    @Benchmark
+    public long selectedMonthIncomeSavings() {
+        return LedgerMath.incomeSavings(ledger, monthStart, monthEnd);
+    }
+
+    @Benchmark
+    public long rolling30DayProgress() {
+        return LedgerMath.progress(ledger, windowStart, windowEnd);
+    }
+
+    @Benchmark
+    public String rolling30DayCurrency() {
+        return LedgerMath.currency(ledger, TransactionType.INCOME, windowStart, windowEnd);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> monthlyGrowth() {
+        return LedgerMath.monthlyGrowth(ledger, selectedYear, selectedMonth, GROWTH_MONTHS);
+    }
+
+    /** Month bucket lookup for every row, as a rollup rebuild does. */
+    @Benchmark
+    public long monthBucketing() {
+        long checksum = 0L;
+        for (int i = 0, n = ledger.size(); i < n; i++) {
+            checksum += MonthBoundaries.indexOf(ledger.timestamp(i));
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.smartsave.benchmark;
+
+import com.example.smartsave.core.OutcomeSimulator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Monte Carlo outcome bands on the common fork-join pool, with three years of history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class OutcomeSimulationBenchmark {
+
+    private static final long[] CONTRIBUTIONS = {
+            12_000L, 9_500L, 0L, 15_250L, 11_000L, -4_000L, 13_400L, 8_800L, 10_100L, 0L, 14_000L, 12_600L,
+            9_900L, 11_300L, 7_500L, 16_000L, -2_500L, 10_800L, 12_200L, 9_000L, 13_700L, 11_900L, 0L, 10_400L,
+            12_800L, 8_600L, 14_500L, 9_700L, 11_100L, 10_000L, 13_300L, -1_000L, 12_400L, 9_300L, 15_800L, 11_600L
+    };
+    private static final double[] MONTHLY_RATES = {0.0020, 0.0025, 0.0021, 0.0030, 0.0018, 0.0024, 0.0026, 0.0022};
+
+    @Param({"6", "60", "360"})
+    public int months;
+
+    @Param({"10000"})
+    public int trajectories;
+
+    @Benchmark
+    public OutcomeSimulator.Bands simulate() {
+        return OutcomeSimulator.simulate(1_250_000L, CONTRIBUTIONS, MONTHLY_RATES, months, trajectories, 42L);
+    }
+}
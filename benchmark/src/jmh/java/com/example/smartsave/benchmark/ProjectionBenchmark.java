@@ -0,0 +1,37 @@
+package com.example.smartsave.benchmark;
+
+import com.example.smartsave.core.ProjectionEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full compound-interest projection, as the analytics screen requests it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProjectionBenchmark {
+
+    @Param({"6", "360"})
+    public int months;
+
+    @Param({"DAILY", "MONTHLY"})
+    public ProjectionEngine.Compounding compounding;
+
+    @Benchmark
+    public ProjectionEngine.Projection project() {
+        return ProjectionEngine.project(1_250_000L, 0.03, compounding, 15_000L, months);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.smartsave.benchmark;
+
+import com.example.smartsave.core.TransactionColumns;
+import com.example.smartsave.core.TransactionType;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic ledgers shaped like real SmartSave data: mostly card payments with a
+ * savings share, some income, and occasional deposits, interest and withdrawals, spread
+ * evenly over five years ending at {@link #END}.
+ */
+final class SyntheticLedger {
+
+    /** 2025-06-30T23:59:59.999Z; the benchmarks' "now". */
+    static final long END = 1751327999999L;
+    static final long SPAN = 5L * 365 * 24 * 60 * 60 * 1000;
+    static final long SEED = 20250630L;
+
+    final String[] keys;
+    final long[] timestamps;
+    final double[] amounts;
+    final double[] savings;
+    final TransactionType[] types;
+
+    private SyntheticLedger(int size) {
+        keys = new String[size];
+        timestamps = new long[size];
+        amounts = new double[size];
+        savings = new double[size];
+        types = new TransactionType[size];
+    }
+
+    /**
+     * Raw rows as the backend would deliver them, in decimal major units and timestamp order.
+     */
+    static SyntheticLedger generate(int size, long seed) {
+        SyntheticLedger ledger = new SyntheticLedger(size);
+        SplittableRandom random = new SplittableRandom(seed);
+        long step = Math.max(1L, SPAN / Math.max(1, size));
+        long timestamp = END - step * size;
+        for (int i = 0; i < size; i++) {
+            timestamp += step;
+            int roll = random.nextInt(100);
+            TransactionType type;
+            double amount;
+            double saved;
+            if (roll < 60) {
+                type = TransactionType.EXPENSE;
+                amount = cents(random, 1, 300);
+                saved = round2(amount * 0.05);
+            } else if (roll < 80) {
+                type = TransactionType.INCOME;
+                amount = cents(random, 100, 3000);
+                saved = round2(amount * 0.10);
+            } else if (roll < 88) {
+                type = TransactionType.SAVINGS_DEPOSIT;
+                amount = cents(random, 10, 500);
+                saved = 0.0;
+            } else if (roll < 93) {
+                type = TransactionType.INTEREST_PAYMENT;
+                amount = cents(random, 0, 20);
+                saved = 0.0;
+            } else if (roll < 98) {
+                type = TransactionType.WITHDRAW;
+                amount = cents(random, 10, 200);
+                saved = 0.0;
+            } else {
+                type = TransactionType.PENDING_WITHDRAWAL;
+                amount = -cents(random, 10, 200);
+                saved = 0.0;
+            }
+            ledger.keys[i] = Long.toString(timestamp);
+            ledger.timestamps[i] = timestamp;
+            ledger.amounts[i] = amount;
+            ledger.savings[i] = saved;
+            ledger.types[i] = type;
+        }
+        return ledger;
+    }
+
+    int size() {
+        return timestamps.length;
+    }
+
+    TransactionColumns toColumns() {
+        TransactionColumns.Builder builder = new TransactionColumns.Builder(size());
+        for (int i = 0; i < size(); i++) {
+            builder.add(keys[i], timestamps[i], amounts[i], savings[i], types[i], "BGN");
+        }
+        return builder.build();
+    }
+
+    private static double cents(SplittableRandom random, int minMajor, int maxMajor) {
+        return (minMajor * 100L + random.nextInt((maxMajor - minMajor) * 100 + 1)) / 100.0;
+    }
+
+    private static double round2(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
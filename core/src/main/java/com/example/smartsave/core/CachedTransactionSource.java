@@ -0,0 +1,199 @@
+package com.example.smartsave.core;
+
+import java.util.concurrent.Executor;
+
+/**
+ * {@link TransactionSource} that keeps the user's ledger in memory and in a
+ * {@link LedgerStore}, and only asks the remote source for rows from a resume point on.
+ * <p>
+ * The resume point is the last cached row, or the oldest PENDING_WITHDRAWAL row when there is
+ * one, because pending withdrawals are settled in place and have to be re-read until they
+ * do. The remote returns the resume row first, which confirms the cached head is still
+ * valid. Every row after it is replaced by the delta, and only those rows are rewritten in
+ * the store. A missing resume row means the ledger was edited behind the cache: the cache is
+ * invalidated and the whole ledger is downloaded again. When the remote can't be reached,
+ * the cached ledger is served as it is.
+ * <p>
+ * Store reads and writes run on {@code ioExecutor}, which must run tasks one at a time and
+ * in order. Callbacks run on the remote source's thread.
+ */
+public final class CachedTransactionSource implements TransactionSource {
+
+    private final TransactionSource remote;
+    private final LedgerStore store;
+    private final Executor ioExecutor;
+    private final Object lock = new Object();
+
+    // Guarded by lock.
+    private TransactionColumns cached;
+    private boolean storeRead;
+
+    /**
+     * @param store persistent copy, or null to cache in memory only
+     */
+    public CachedTransactionSource(TransactionSource remote, LedgerStore store, Executor ioExecutor) {
+        this.remote = remote;
+        this.store = store;
+        this.ioExecutor = ioExecutor;
+    }
+
+    @Override
+    public void loadAll(Callback callback) {
+        sync(callback);
+    }
+
+    @Override
+    public void loadRange(long fromTimestamp, long toTimestamp, Callback callback) {
+        sync(new Callback() {
+            @Override
+            public void onLoaded(TransactionColumns columns) {
+                callback.onLoaded(columns.slice(columns.lowerBound(fromTimestamp), columns.upperBound(toTimestamp)));
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                callback.onError(errorMessage);
+            }
+        });
+    }
+
+    @Override
+    public void loadFrom(long timestamp, String key, Callback callback) {
+        sync(new Callback() {
+            @Override
+            public void onLoaded(TransactionColumns columns) {
+                callback.onLoaded(columns.slice(columns.seek(timestamp, key), columns.size()));
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                callback.onError(errorMessage);
+            }
+        });
+    }
+
+    /**
+     * Brings the cache up to date with the remote and delivers the whole ledger.
+     */
+    public void sync(Callback callback) {
+        boolean readStore;
+        synchronized (lock) {
+            readStore = store != null && !storeRead && cached == null;
+        }
+        if (!readStore) {
+            syncWithRemote(callback);
+            return;
+        }
+        ioExecutor.execute(() -> {
+            TransactionColumns stored = store.read();
+            synchronized (lock) {
+                storeRead = true;
+                if (cached == null) cached = stored;
+            }
+            syncWithRemote(callback);
+        });
+    }
+
+    /**
+     * Row the next sync resumes from, or -1 when {@code columns} is empty.
+     */
+    public static int resumeRow(TransactionColumns columns) {
+        int pending = columns.firstRowOf(TransactionType.PENDING_WITHDRAWAL);
+        return pending >= 0 ? pending : columns.size() - 1;
+    }
+
+    /**
+     * The ledger as last synced, or null before the first sync.
+     */
+    public TransactionColumns getCached() {
+        synchronized (lock) {
+            return cached;
+        }
+    }
+
+    /**
+     * Folds in rows a caller read itself, e.g. from a live listener, where {@code delta} runs
+     * from a cached row to the end of the ledger. Returns the updated ledger, or null when
+     * the delta's first row isn't cached and a full {@link #sync} is needed instead.
+     */
+    public TransactionColumns applyDelta(TransactionColumns delta) {
+        TransactionColumns base = getCached();
+        if (base == null || delta.size() == 0) return null;
+        int anchor = base.indexOf(delta.timestamp(0), delta.key(0));
+        if (anchor < 0) return null;
+        TransactionColumns merged = base.append(anchor, delta);
+        update(base, anchor, merged);
+        return merged;
+    }
+
+    /**
+     * Drops the memory and stored copies, e.g. when rows before the resume point changed.
+     */
+    public void invalidate() {
+        synchronized (lock) {
+            cached = null;
+            storeRead = true;
+        }
+        if (store != null) ioExecutor.execute(store::clear);
+    }
+
+    private void syncWithRemote(Callback callback) {
+        TransactionColumns base = getCached();
+        if (base == null || base.size() == 0) {
+            downloadAll(base, callback);
+            return;
+        }
+        int anchor = resumeRow(base);
+        String anchorKey = base.key(anchor);
+        remote.loadFrom(base.timestamp(anchor), anchorKey, new Callback() {
+            @Override
+            public void onLoaded(TransactionColumns delta) {
+                if (delta.size() == 0 || delta.timestamp(0) != base.timestamp(anchor)
+                        || anchorKey == null || !anchorKey.equals(delta.key(0))) {
+                    // The cached head is stale, so it is no longer a fallback either.
+                    invalidate();
+                    downloadAll(null, callback);
+                    return;
+                }
+                TransactionColumns merged = base.append(anchor, delta);
+                update(base, anchor, merged);
+                callback.onLoaded(merged);
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                callback.onLoaded(base);
+            }
+        });
+    }
+
+    private void downloadAll(TransactionColumns fallback, Callback callback) {
+        remote.loadAll(new Callback() {
+            @Override
+            public void onLoaded(TransactionColumns columns) {
+                update(null, 0, columns);
+                callback.onLoaded(columns);
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                if (fallback != null) callback.onLoaded(fallback);
+                else callback.onError(errorMessage);
+            }
+        });
+    }
+
+    /**
+     * Replaces the cached ledger with {@code columns}, whose first {@code unchangedRows} rows
+     * are those of {@code base}. Store writes are queued under the lock so they run in the
+     * same order as the updates.
+     */
+    private void update(TransactionColumns base, int unchangedRows, TransactionColumns columns) {
+        synchronized (lock) {
+            // Another update got in first, so the stored rows may not be base's.
+            int unchanged = base != null && cached == base ? unchangedRows : 0;
+            cached = columns;
+            if (store != null) ioExecutor.execute(() -> store.append(columns, unchanged));
+        }
+    }
+}
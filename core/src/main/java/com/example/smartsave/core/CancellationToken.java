@@ -0,0 +1,62 @@
+package com.example.smartsave.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Lets a caller abandon a calculation it no longer needs.
+ * <p>
+ * Long scans poll {@link #throwIfCancelled(CancellationToken)} between blocks of rows, and
+ * whoever started an asynchronous read registers an action with {@link #onCancel} to detach
+ * it. A null token means the call can't be cancelled; the static helpers accept it.
+ */
+public final class CancellationToken {
+
+    private final Object lock = new Object();
+    private volatile boolean cancelled;
+
+    // Guarded by lock; null once cancelled.
+    private List<Runnable> actions = new ArrayList<>();
+
+    /**
+     * Marks the token cancelled and runs the registered actions, once.
+     */
+    public void cancel() {
+        List<Runnable> toRun;
+        synchronized (lock) {
+            if (cancelled) return;
+            cancelled = true;
+            toRun = actions;
+            actions = null;
+        }
+        for (Runnable action : toRun) {
+            action.run();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Runs {@code action} on cancellation, or right away if the token is already cancelled.
+     */
+    public void onCancel(Runnable action) {
+        synchronized (lock) {
+            if (!cancelled) {
+                actions.add(action);
+                return;
+            }
+        }
+        action.run();
+    }
+
+    public static boolean isCancelled(CancellationToken token) {
+        return token != null && token.cancelled;
+    }
+
+    public static void throwIfCancelled(CancellationToken token) {
+        if (token != null && token.cancelled) throw new CancellationException();
+    }
+}
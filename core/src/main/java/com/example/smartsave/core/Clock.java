@@ -0,0 +1,11 @@
+package com.example.smartsave.core;
+
+/**
+ * Where time-driven code gets the current time, so tests can run it against a simulated clock.
+ */
+public interface Clock {
+
+    Clock SYSTEM = System::currentTimeMillis;
+
+    long currentTimeMillis();
+}
@@ -0,0 +1,195 @@
+package com.example.smartsave.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link TransactionSource} that lets concurrent reads share one remote query.
+ * <p>
+ * A read that asks for the same rows as an in-flight query, or for a subset of them, waits
+ * for that query instead of issuing its own. When the query completes, every waiter gets its
+ * own slice of the result; on failure they all get the error. A full load covers every read,
+ * a range covers the ranges inside it, and a read from (timestamp, key) covers later reads
+ * from and ranges starting after that timestamp. A joined read sees the ledger as of the
+ * shared query, which was issued no earlier than the first waiter asked.
+ * <p>
+ * Counters for issued and coalesced reads are kept so the saving can be measured.
+ */
+public final class CoalescingTransactionSource implements TransactionSource {
+
+    private final TransactionSource remote;
+    private final Object lock = new Object();
+
+    // Guarded by lock.
+    private final List<Flight> inFlight = new ArrayList<>();
+    private long issuedReads;
+    private long coalescedReads;
+
+    public CoalescingTransactionSource(TransactionSource remote) {
+        this.remote = remote;
+    }
+
+    @Override
+    public void loadAll(Callback callback) {
+        load(new Request(Request.ALL, Long.MIN_VALUE, Long.MAX_VALUE, null), callback);
+    }
+
+    @Override
+    public void loadRange(long fromTimestamp, long toTimestamp, Callback callback) {
+        load(new Request(Request.RANGE, fromTimestamp, toTimestamp, null), callback);
+    }
+
+    @Override
+    public void loadFrom(long timestamp, String key, Callback callback) {
+        load(new Request(Request.FROM, timestamp, Long.MAX_VALUE, key), callback);
+    }
+
+    /**
+     * Reads sent to the remote source.
+     */
+    public long getIssuedReads() {
+        synchronized (lock) {
+            return issuedReads;
+        }
+    }
+
+    /**
+     * Reads answered by a query some other caller had already issued.
+     */
+    public long getCoalescedReads() {
+        synchronized (lock) {
+            return coalescedReads;
+        }
+    }
+
+    private void load(Request request, Callback callback) {
+        Flight flight;
+        synchronized (lock) {
+            for (Flight candidate : inFlight) {
+                if (candidate.request.covers(request)) {
+                    candidate.waiters.add(new Waiter(request, callback));
+                    coalescedReads++;
+                    return;
+                }
+            }
+            flight = new Flight(request);
+            flight.waiters.add(new Waiter(request, callback));
+            inFlight.add(flight);
+            issuedReads++;
+        }
+
+        Callback fanOut = new Callback() {
+            @Override
+            public void onLoaded(TransactionColumns columns) {
+                for (Waiter waiter : land(flight)) {
+                    waiter.callback.onLoaded(waiter.request.restrict(columns));
+                }
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                for (Waiter waiter : land(flight)) {
+                    waiter.callback.onError(errorMessage);
+                }
+            }
+        };
+        switch (request.kind) {
+            case Request.ALL:
+                remote.loadAll(fanOut);
+                break;
+            case Request.RANGE:
+                remote.loadRange(request.fromTimestamp, request.toTimestamp, fanOut);
+                break;
+            default:
+                remote.loadFrom(request.fromTimestamp, request.key, fanOut);
+                break;
+        }
+    }
+
+    /**
+     * Takes a completed flight out of the in-flight list, so no more readers join it, and
+     * returns everyone who was waiting on it.
+     */
+    private List<Waiter> land(Flight flight) {
+        synchronized (lock) {
+            inFlight.remove(flight);
+            return new ArrayList<>(flight.waiters);
+        }
+    }
+
+    private static final class Request {
+        static final int ALL = 0;
+        static final int RANGE = 1;
+        static final int FROM = 2;
+
+        final int kind;
+        final long fromTimestamp;
+        final long toTimestamp;
+        final String key;
+
+        Request(int kind, long fromTimestamp, long toTimestamp, String key) {
+            this.kind = kind;
+            this.fromTimestamp = fromTimestamp;
+            this.toTimestamp = toTimestamp;
+            this.key = key;
+        }
+
+        /**
+         * Whether every row {@code other} asks for is in this request's result.
+         */
+        boolean covers(Request other) {
+            switch (kind) {
+                case ALL:
+                    return true;
+                case RANGE:
+                    return other.kind == RANGE
+                            && fromTimestamp <= other.fromTimestamp && other.toTimestamp <= toTimestamp;
+                default:
+                    if (other.kind == RANGE) return other.fromTimestamp > fromTimestamp;
+                    return other.kind == FROM && !startsBefore(other);
+            }
+        }
+
+        /**
+         * Whether {@code other}'s (timestamp, key) start sorts before this one's.
+         */
+        private boolean startsBefore(Request other) {
+            if (other.fromTimestamp != fromTimestamp) return other.fromTimestamp < fromTimestamp;
+            if (key == null) return false;
+            return other.key == null || other.key.compareTo(key) < 0;
+        }
+
+        /**
+         * This request's rows out of a result that covers them.
+         */
+        TransactionColumns restrict(TransactionColumns columns) {
+            switch (kind) {
+                case ALL:
+                    return columns;
+                case RANGE:
+                    return columns.slice(columns.lowerBound(fromTimestamp), columns.upperBound(toTimestamp));
+                default:
+                    return columns.slice(columns.seek(fromTimestamp, key), columns.size());
+            }
+        }
+    }
+
+    private static final class Waiter {
+        final Request request;
+        final Callback callback;
+
+        Waiter(Request request, Callback callback) {
+            this.request = request;
+            this.callback = callback;
+        }
+    }
+
+    private static final class Flight {
+        final Request request;
+        final List<Waiter> waiters = new ArrayList<>();
+
+        Flight(Request request) {
+            this.request = request;
+        }
+    }
+}
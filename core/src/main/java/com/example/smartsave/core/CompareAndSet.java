@@ -0,0 +1,38 @@
+package com.example.smartsave.core;
+
+/**
+ * What a compare-and-set over a decimal amount does on each run of its transaction handler.
+ * <p>
+ * Firebase runs the handler first against the locally cached value. That value is null when
+ * no listener keeps the node synced, even if the server holds an amount, so null can't be
+ * taken as a mismatch: the handler leaves it unchanged and lets the server send the real
+ * value, then runs again. A missing amount counts as zero, so when zero is expected the new
+ * amount is written straight away; the server rejects the write if it had a value after all.
+ */
+public final class CompareAndSet {
+
+    public enum Step {
+        /** Write the new amount. */
+        WRITE,
+        /** Commit the null unchanged so the server answers with what it holds. */
+        ASK_SERVER,
+        /** The amount differs from the expected one. */
+        ABORT
+    }
+
+    private CompareAndSet() {
+    }
+
+    public static Step step(Double current, long expectedMinor) {
+        if (current == null) return expectedMinor == 0L ? Step.WRITE : Step.ASK_SERVER;
+        return Money.toMinorUnits(current) == expectedMinor ? Step.WRITE : Step.ABORT;
+    }
+
+    /**
+     * Whether a committed run actually swapped the amount. A commit that leaves the node null
+     * means the server held nothing, which is a mismatch unless zero was expected.
+     */
+    public static boolean swapped(Double committed, long expectedMinor) {
+        return committed != null || expectedMinor == 0L;
+    }
+}
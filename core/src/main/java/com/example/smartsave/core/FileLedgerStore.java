@@ -0,0 +1,158 @@
+package com.example.smartsave.core;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+/**
+ * {@link LedgerStore} backed by one binary file per user.
+ * <p>
+ * Rows are written in ledger order with types by name, so a file survives changes to the
+ * {@link TransactionType} ordinals. Full writes go to a temporary file that replaces the old
+ * one only when complete. Appends truncate the file after the unchanged rows and write the
+ * rest in place; the row count in the header is lowered first and raised last, so an
+ * interrupted append leaves a shorter valid ledger. A missing, truncated or older-format
+ * file reads as empty, which makes the caller fall back to a full download.
+ */
+public final class FileLedgerStore implements LedgerStore {
+
+    private static final int MAGIC = 0x534C4447; // "SLDG"
+    private static final int FORMAT_VERSION = 2;
+    private static final int COUNT_OFFSET = 8;
+
+    private final File file;
+
+    // File offset just past each stored row, as last read or written; null when unknown.
+    private long[] rowEnds;
+    private int storedRows;
+
+    public FileLedgerStore(File directory, String userId) {
+        // Firebase uids are alphanumeric; anything else is replaced so the id can't leave the directory.
+        this.file = new File(directory, "ledger-" + userId.replaceAll("[^A-Za-z0-9_-]", "_") + ".bin");
+    }
+
+    @Override
+    public TransactionColumns read() {
+        rowEnds = null;
+        if (!file.isFile()) return null;
+        try {
+            byte[] bytes = new byte[(int) file.length()];
+            try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+                in.readFully(bytes);
+            }
+            ByteArrayInputStream buffer = new ByteArrayInputStream(bytes);
+            DataInputStream in = new DataInputStream(buffer);
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) return null;
+            int size = in.readInt();
+            if (size < 0) return null;
+            TransactionColumns.Builder builder = new TransactionColumns.Builder(size);
+            long[] ends = new long[size];
+            for (int i = 0; i < size; i++) {
+                String key = in.readBoolean() ? in.readUTF() : null;
+                long timestamp = in.readLong();
+                long amountMinor = in.readLong();
+                long savingsMinor = in.readLong();
+                TransactionType type = TransactionType.parse(in.readUTF());
+                String currency = in.readUTF();
+                String description = in.readBoolean() ? in.readUTF() : null;
+                builder.addMinor(key, timestamp, amountMinor, savingsMinor, type, currency, description);
+                ends[i] = bytes.length - buffer.available();
+            }
+            rowEnds = ends;
+            storedRows = size;
+            return builder.build();
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void write(TransactionColumns columns) {
+        File temp = new File(file.getPath() + ".tmp");
+        long[] ends = new long[columns.size()];
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(columns.size());
+            for (int i = 0; i < columns.size(); i++) {
+                writeRow(out, columns, i);
+                ends[i] = out.size();
+            }
+        } catch (IOException e) {
+            temp.delete();
+            rowEnds = null;
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            // Some filesystems won't rename over an existing file.
+            file.delete();
+            if (!temp.renameTo(file)) {
+                temp.delete();
+                rowEnds = null;
+                return;
+            }
+        }
+        rowEnds = ends;
+        storedRows = columns.size();
+    }
+
+    @Override
+    public void append(TransactionColumns columns, int unchangedRows) {
+        // Without the offsets of what is on disk, or with a file shorter than they say, rewrite it all.
+        if (unchangedRows == 0 || rowEnds == null || unchangedRows > storedRows
+                || file.length() < rowEnds[storedRows - 1]) {
+            write(columns);
+            return;
+        }
+        long start = rowEnds[unchangedRows - 1];
+        long[] ends = Arrays.copyOf(rowEnds, columns.size());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            DataOutputStream rows = new DataOutputStream(bytes);
+            for (int i = unchangedRows; i < columns.size(); i++) {
+                writeRow(rows, columns, i);
+                ends[i] = start + rows.size();
+            }
+            out.seek(COUNT_OFFSET);
+            out.writeInt(unchangedRows);
+            out.setLength(start);
+            out.seek(start);
+            out.write(bytes.toByteArray());
+            out.seek(COUNT_OFFSET);
+            out.writeInt(columns.size());
+        } catch (IOException e) {
+            clear();
+            return;
+        }
+        rowEnds = ends;
+        storedRows = columns.size();
+    }
+
+    @Override
+    public void clear() {
+        rowEnds = null;
+        file.delete();
+    }
+
+    private static void writeRow(DataOutputStream out, TransactionColumns columns, int row) throws IOException {
+        String key = columns.key(row);
+        out.writeBoolean(key != null);
+        if (key != null) out.writeUTF(key);
+        out.writeLong(columns.timestamp(row));
+        out.writeLong(columns.amount(row));
+        out.writeLong(columns.savings(row));
+        out.writeUTF(columns.type(row).name());
+        out.writeUTF(columns.currency(row));
+        String description = columns.description(row);
+        out.writeBoolean(description != null);
+        if (description != null) out.writeUTF(description);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.smartsave.core;
+
+/**
+ * {@link TransactionSource} over a ledger already held in memory, for load tests,
+ * benchmarks and JVM tests. Callbacks run synchronously on the calling thread.
+ */
+public final class InMemoryTransactionSource implements TransactionSource {
+
+    private volatile TransactionColumns ledger;
+
+    public InMemoryTransactionSource(TransactionColumns ledger) {
+        this.ledger = ledger;
+    }
+
+    public TransactionColumns getLedger() {
+        return ledger;
+    }
+
+    public void setLedger(TransactionColumns ledger) {
+        this.ledger = ledger;
+    }
+
+    @Override
+    public void loadAll(Callback callback) {
+        callback.onLoaded(ledger);
+    }
+
+    @Override
+    public void loadRange(long fromTimestamp, long toTimestamp, Callback callback) {
+        TransactionColumns columns = ledger;
+        callback.onLoaded(columns.slice(columns.lowerBound(fromTimestamp), columns.upperBound(toTimestamp)));
+    }
+
+    @Override
+    public void loadFrom(long timestamp, String key, Callback callback) {
+        TransactionColumns columns = ledger;
+        callback.onLoaded(columns.slice(columns.seek(timestamp, key), columns.size()));
+    }
+}
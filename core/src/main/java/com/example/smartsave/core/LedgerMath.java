@@ -0,0 +1,158 @@
+package com.example.smartsave.core;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The savings calculations as pure functions over {@link TransactionColumns}. Amounts in
+ * and out are minor units; nothing here does I/O, logging or Android calls. Each
+ * calculation reports its counters to {@link LedgerTrace} when tracing is enabled.
+ */
+public final class LedgerMath {
+
+    /** Days covered by the dashboard's "this month" figures, ending today. */
+    public static final int TRAILING_WINDOW_DAYS = 30;
+
+    /** Rows scanned between cancellation checks. */
+    static final int CANCELLATION_CHECK_ROWS = 8192;
+
+    private LedgerMath() {
+    }
+
+    /**
+     * Sum of every row's balance effect.
+     */
+    public static long totalSaved(TransactionColumns columns) {
+        LedgerTrace.Call call = LedgerTrace.begin("totalSaved");
+        long total = columns.sumBalance(0, columns.size(), call);
+        LedgerTrace.end(call);
+        return total;
+    }
+
+    /**
+     * {@link #totalSaved(TransactionColumns)}, abandoned with a
+     * {@link java.util.concurrent.CancellationException} once {@code token} is cancelled.
+     */
+    public static long totalSaved(TransactionColumns columns, CancellationToken token) {
+        LedgerTrace.Call call = LedgerTrace.begin("totalSaved");
+        long total = 0L;
+        for (int from = 0; from < columns.size(); from += CANCELLATION_CHECK_ROWS) {
+            CancellationToken.throwIfCancelled(token);
+            total = Money.add(total, columns.sumBalance(from, Math.min(from + CANCELLATION_CHECK_ROWS, columns.size()), call));
+        }
+        LedgerTrace.end(call);
+        return total;
+    }
+
+    /**
+     * Extends a checkpointed total with {@code delta}, whose first row is the checkpointed
+     * transaction itself and is therefore skipped.
+     */
+    public static long foldSinceCheckpoint(long checkpointTotal, TransactionColumns delta) {
+        LedgerTrace.Call call = LedgerTrace.begin("foldSinceCheckpoint");
+        long total = Money.add(checkpointTotal, delta.sumBalance(1, delta.size(), call));
+        LedgerTrace.end(call);
+        return total;
+    }
+
+    public static long interest(TransactionColumns columns, long fromTimestamp, long toTimestamp) {
+        LedgerTrace.Call call = LedgerTrace.begin("interest");
+        long total = columns.sumAmounts(TransactionType.INTEREST_PAYMENT, fromTimestamp, toTimestamp, call);
+        LedgerTrace.end(call);
+        return total;
+    }
+
+    /**
+     * {@link #interest(TransactionColumns, long, long)}, abandoned with a
+     * {@link java.util.concurrent.CancellationException} once {@code token} is cancelled.
+     */
+    public static long interest(TransactionColumns columns, long fromTimestamp, long toTimestamp, CancellationToken token) {
+        LedgerTrace.Call call = LedgerTrace.begin("interest");
+        int end = columns.upperBound(toTimestamp);
+        long total = 0L;
+        for (int from = columns.lowerBound(fromTimestamp); from < end; from += CANCELLATION_CHECK_ROWS) {
+            CancellationToken.throwIfCancelled(token);
+            int to = Math.min(from + CANCELLATION_CHECK_ROWS, end);
+            total = Money.add(total, columns.sumAmountsInRows(TransactionType.INTEREST_PAYMENT, from, to, call));
+        }
+        LedgerTrace.end(call);
+        return total;
+    }
+
+    public static long incomeSavings(TransactionColumns columns, long fromTimestamp, long toTimestamp) {
+        LedgerTrace.Call call = LedgerTrace.begin("incomeSavings");
+        long total = columns.sumSavings(TransactionType.INCOME, fromTimestamp, toTimestamp, call);
+        LedgerTrace.end(call);
+        return total;
+    }
+
+    /**
+     * Progress counts INCOME savings and INTEREST_PAYMENT amounts; other types are ignored.
+     */
+    public static long progress(TransactionColumns columns, long fromTimestamp, long toTimestamp) {
+        LedgerTrace.Call call = LedgerTrace.begin("progress");
+        long total = Money.add(
+                columns.sumSavings(TransactionType.INCOME, fromTimestamp, toTimestamp, call),
+                columns.sumAmounts(TransactionType.INTEREST_PAYMENT, fromTimestamp, toTimestamp, call));
+        LedgerTrace.end(call);
+        return total;
+    }
+
+    /**
+     * {@link #progress(TransactionColumns, long, long)}, abandoned with a
+     * {@link java.util.concurrent.CancellationException} once {@code token} is cancelled.
+     */
+    public static long progress(TransactionColumns columns, long fromTimestamp, long toTimestamp, CancellationToken token) {
+        LedgerTrace.Call call = LedgerTrace.begin("progress");
+        int end = columns.upperBound(toTimestamp);
+        long total = 0L;
+        for (int from = columns.lowerBound(fromTimestamp); from < end; from += CANCELLATION_CHECK_ROWS) {
+            CancellationToken.throwIfCancelled(token);
+            int to = Math.min(from + CANCELLATION_CHECK_ROWS, end);
+            total = Money.add(total, Money.add(
+                    columns.sumSavingsInRows(TransactionType.INCOME, from, to, call),
+                    columns.sumAmountsInRows(TransactionType.INTEREST_PAYMENT, from, to, call)));
+        }
+        LedgerTrace.end(call);
+        return total;
+    }
+
+    public static String currency(TransactionColumns columns, TransactionType type, long fromTimestamp, long toTimestamp) {
+        LedgerTrace.Call call = LedgerTrace.begin("currency");
+        String currency = columns.firstCurrency(type, fromTimestamp, toTimestamp, call);
+        LedgerTrace.end(call);
+        return currency;
+    }
+
+    public static List<Map<String, Object>> monthlyGrowth(TransactionColumns columns, int year, int month, int numberOfMonths) {
+        LedgerTrace.Call call = LedgerTrace.begin("monthlyGrowth");
+        List<Map<String, Object>> points = SavingsGrowthEngine.computeMonthEndBalances(columns, year, month, numberOfMonths, call);
+        LedgerTrace.end(call);
+        return points;
+    }
+
+    /**
+     * First millisecond of the given UTC month, 1 for January.
+     */
+    public static long monthStart(int year, int month) {
+        return MonthBoundaries.monthStart(year, month);
+    }
+
+    /**
+     * Last millisecond of the given UTC month, 1 for January.
+     */
+    public static long monthEnd(int year, int month) {
+        return MonthBoundaries.monthEnd(year, month);
+    }
+
+    /**
+     * {start, end} of the trailing window: from the start of the UTC day
+     * {@link #TRAILING_WINDOW_DAYS} days before {@code nowMillis} to the end of that day.
+     */
+    public static long[] trailingWindow(long nowMillis) {
+        long today = MonthBoundaries.dayStart(nowMillis);
+        long startTimestamp = today - TRAILING_WINDOW_DAYS * MonthBoundaries.DAY_MILLIS;
+        long endTimestamp = today + MonthBoundaries.DAY_MILLIS - 1;
+        return new long[]{startTimestamp, endTimestamp};
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.smartsave.core;
+
+/**
+ * Persistent copy of one user's ledger, used by {@link CachedTransactionSource}.
+ * Implementations are called from a single I/O thread at a time.
+ */
+public interface LedgerStore {
+
+    /**
+     * The stored ledger, or null when nothing usable is stored.
+     */
+    TransactionColumns read();
+
+    void write(TransactionColumns columns);
+
+    /**
+     * Stores {@code columns}, whose first {@code unchangedRows} rows match the ledger last
+     * read or stored, so only the rows after them need writing.
+     */
+    void append(TransactionColumns columns, int unchangedRows);
+
+    void clear();
+}
@@ -0,0 +1,139 @@
+package com.example.smartsave.core;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in tracing for the ledger calculations.
+ * <p>
+ * While no listener is installed, {@link #begin(String)} returns null after a single
+ * volatile read and every scan runs its untraced loop, so nothing is counted, formatted or
+ * allocated per row. With a listener installed each call reports rows scanned, rows
+ * matched and elapsed time; per-row samples are additionally reported for every
+ * {@code rowSampleInterval}-th matched row when that interval is positive.
+ */
+public final class LedgerTrace {
+
+    public interface Listener {
+        void onCall(CallStats stats);
+
+        /**
+         * @param valueMinor the amount the scan used for this row, in minor units
+         */
+        void onRowSample(String operation, String key, long timestamp, TransactionType type, long valueMinor);
+    }
+
+    public static final class CallStats {
+        private final String operation;
+        private final long rowsScanned;
+        private final long rowsMatched;
+        private final long elapsedNanos;
+
+        CallStats(String operation, long rowsScanned, long rowsMatched, long elapsedNanos) {
+            this.operation = operation;
+            this.rowsScanned = rowsScanned;
+            this.rowsMatched = rowsMatched;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public long getRowsScanned() {
+            return rowsScanned;
+        }
+
+        public long getRowsMatched() {
+            return rowsMatched;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return operation + ": scanned=" + rowsScanned + ", matched=" + rowsMatched
+                    + ", elapsed=" + TimeUnit.NANOSECONDS.toMicros(elapsedNanos) + "us";
+        }
+    }
+
+    /**
+     * One traced calculation. Not thread-safe; each call gets its own instance.
+     */
+    public static final class Call {
+        private final Listener listener;
+        private final String operation;
+        private final int rowSampleInterval;
+        private final long startNanos;
+        private long rowsScanned;
+        private long rowsMatched;
+
+        private Call(Listener listener, String operation, int rowSampleInterval) {
+            this.listener = listener;
+            this.operation = operation;
+            this.rowSampleInterval = rowSampleInterval;
+            this.startNanos = System.nanoTime();
+        }
+
+        void addRows(long scanned, long matched) {
+            rowsScanned += scanned;
+            rowsMatched += matched;
+        }
+
+        /**
+         * True when the {@code matchedSoFar}-th matched row of the current scan should be sampled.
+         */
+        boolean shouldSample(long matchedSoFar) {
+            return rowSampleInterval > 0 && matchedSoFar % rowSampleInterval == 0;
+        }
+
+        void sample(String key, long timestamp, TransactionType type, long valueMinor) {
+            listener.onRowSample(operation, key, timestamp, type, valueMinor);
+        }
+
+        public void end() {
+            listener.onCall(new CallStats(operation, rowsScanned, rowsMatched, System.nanoTime() - startNanos));
+        }
+    }
+
+    private static volatile Listener listener;
+    private static volatile int rowSampleInterval;
+
+    private LedgerTrace() {
+    }
+
+    /**
+     * @param rowSampleInterval report every n-th matched row; 0 reports call counters only
+     */
+    public static void enable(Listener listener, int rowSampleInterval) {
+        if (rowSampleInterval < 0) {
+            throw new IllegalArgumentException("rowSampleInterval must not be negative");
+        }
+        LedgerTrace.rowSampleInterval = rowSampleInterval;
+        LedgerTrace.listener = listener;
+    }
+
+    public static void disable() {
+        listener = null;
+    }
+
+    public static boolean isEnabled() {
+        return listener != null;
+    }
+
+    /**
+     * Starts tracing a calculation, or returns null when tracing is off.
+     */
+    public static Call begin(String operation) {
+        Listener current = listener;
+        return current == null ? null : new Call(current, operation, rowSampleInterval);
+    }
+
+    /**
+     * Ends a call started by {@link #begin(String)}; a null call is ignored.
+     */
+    public static void end(Call call) {
+        if (call != null) call.end();
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.smartsave.core;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+
+/**
+ * An amount of money held as a whole number of minor units (stotinki, cents) plus a currency code.
+ * <p>
+ * Firebase and the REST API still carry amounts as decimal numbers in major units; they are
+ * converted with {@link #toMinorUnits(double)} on the way in and {@link #toMajorUnits(long)}
+ * on the way out. Hot loops add and subtract the raw {@code long}s through the static helpers
+ * and only wrap the result in a {@code Money} at the end.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final String DEFAULT_CURRENCY = "BGN";
+
+    private static final int SCALE = 2;
+    private static final long MINOR_PER_MAJOR = 100L;
+    // Below this magnitude value * 100 stays well inside the range where doubles hold every integer exactly.
+    private static final double FAST_PATH_LIMIT = 1e13;
+
+    private final long minorUnits;
+    private final String currency;
+
+    private Money(long minorUnits, String currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency == null || currency.isEmpty() ? DEFAULT_CURRENCY : currency;
+    }
+
+    public static Money ofMinor(long minorUnits, String currency) {
+        return new Money(minorUnits, currency);
+    }
+
+    public static Money ofMajor(double majorUnits, String currency) {
+        return new Money(toMinorUnits(majorUnits), currency);
+    }
+
+    public static Money zero(String currency) {
+        return new Money(0L, currency);
+    }
+
+    /**
+     * Converts a decimal amount read from Firebase or JSON to minor units. Values with at most
+     * two decimals convert exactly; finer values are rounded half-even.
+     */
+    public static long toMinorUnits(double majorUnits) {
+        if (Double.isNaN(majorUnits) || Double.isInfinite(majorUnits)) {
+            throw new IllegalArgumentException("Not a finite amount: " + majorUnits);
+        }
+        if (Math.abs(majorUnits) < FAST_PATH_LIMIT) {
+            double scaled = majorUnits * MINOR_PER_MAJOR;
+            double rounded = Math.rint(scaled);
+            // rint is half-even; only a value sitting on .5 after scaling needs the exact decimal check.
+            if (Math.abs(scaled - rounded) != 0.5) {
+                return (long) rounded;
+            }
+        }
+        return BigDecimal.valueOf(majorUnits).setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Nearest double to the decimal amount; {@link #toMinorUnits(double)} maps it back exactly.
+     */
+    public static double toMajorUnits(long minorUnits) {
+        return minorUnits / (double) MINOR_PER_MAJOR;
+    }
+
+    public static long add(long minorA, long minorB) {
+        return Math.addExact(minorA, minorB);
+    }
+
+    public static long subtract(long minorA, long minorB) {
+        return Math.subtractExact(minorA, minorB);
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public double getMajorUnits() {
+        return toMajorUnits(minorUnits);
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(add(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(subtract(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money negate() {
+        return new Money(Math.negateExact(minorUnits), currency);
+    }
+
+    public Money abs() {
+        return minorUnits < 0 ? negate() : this;
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0L;
+    }
+
+    /**
+     * Plain "12.34 BGN" rendering, without grouping separators.
+     */
+    public String format() {
+        return String.format(Locale.US, "%.2f %s", getMajorUnits(), currency);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Money)) return false;
+        Money money = (Money) o;
+        return minorUnits == money.minorUnits && currency.equals(money.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(minorUnits) + currency.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Money{" + BigDecimal.valueOf(minorUnits, SCALE).toPlainString() + " " + currency + '}';
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " vs " + other.currency);
+        }
+    }
+}
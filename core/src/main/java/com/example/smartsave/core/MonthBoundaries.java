@@ -0,0 +1,131 @@
+package com.example.smartsave.core;
+
+/**
+ * UTC month boundaries as epoch milliseconds.
+ * <p>
+ * Months are addressed by an epoch-month index, 0 for January 1970, so consecutive months
+ * are consecutive ints and month arithmetic is plain addition. Start times for
+ * {@link #FIRST_YEAR}..{@link #LAST_YEAR} are computed once into a table; a timestamp's
+ * month is an arithmetic estimate corrected against that table, with no Calendar
+ * instances involved. Months outside the table fall back to the same civil-date
+ * arithmetic the table is built from.
+ */
+public final class MonthBoundaries {
+
+    public static final int FIRST_YEAR = 1970;
+    public static final int LAST_YEAR = 2099;
+
+    public static final long DAY_MILLIS = 86_400_000L;
+
+    private static final String[] SHORT_NAMES = {
+            "Jan", "Feb", "Mar", "Apr", "May", "Jun",
+            "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+
+    // STARTS[i] is the first millisecond of epoch month i; the extra entry bounds the last month.
+    private static final long[] STARTS = new long[(LAST_YEAR - FIRST_YEAR + 1) * 12 + 1];
+
+    static {
+        for (int i = 0; i < STARTS.length; i++) {
+            STARTS[i] = computeStart(i);
+        }
+    }
+
+    private MonthBoundaries() {
+    }
+
+    /**
+     * Epoch-month index of the given month, 1 for January.
+     */
+    public static int index(int year, int month) {
+        return (year - 1970) * 12 + (month - 1);
+    }
+
+    public static int yearOf(int monthIndex) {
+        return 1970 + Math.floorDiv(monthIndex, 12);
+    }
+
+    /**
+     * Month of the given index, 1 for January.
+     */
+    public static int monthOf(int monthIndex) {
+        return Math.floorMod(monthIndex, 12) + 1;
+    }
+
+    /**
+     * English three-letter name of the given month, 1 for January, as the growth chart labels it.
+     */
+    public static String shortName(int month) {
+        return SHORT_NAMES[month - 1];
+    }
+
+    /**
+     * First millisecond of the given epoch month.
+     */
+    public static long start(int monthIndex) {
+        return monthIndex >= 0 && monthIndex < STARTS.length ? STARTS[monthIndex] : computeStart(monthIndex);
+    }
+
+    /**
+     * Last millisecond of the given epoch month.
+     */
+    public static long end(int monthIndex) {
+        return start(monthIndex + 1) - 1;
+    }
+
+    public static long monthStart(int year, int month) {
+        return start(index(year, month));
+    }
+
+    public static long monthEnd(int year, int month) {
+        return end(index(year, month));
+    }
+
+    /**
+     * Epoch month containing {@code timestamp}.
+     */
+    public static int indexOf(long timestamp) {
+        // 400 Gregorian years are exactly 146097 days and 4800 months, so this estimate is off by at most one.
+        int guess = (int) Math.floorDiv(Math.floorDiv(timestamp, DAY_MILLIS) * 4800L, 146097L);
+        while (start(guess) > timestamp) guess--;
+        while (start(guess + 1) <= timestamp) guess++;
+        return guess;
+    }
+
+    /**
+     * Exclusive end of each of {@code count} consecutive months starting at {@code firstIndex},
+     * i.e. the start of the month after each one.
+     */
+    public static long[] exclusiveEnds(int firstIndex, int count) {
+        long[] ends = new long[count];
+        for (int i = 0; i < count; i++) {
+            ends[i] = start(firstIndex + i + 1);
+        }
+        return ends;
+    }
+
+    /**
+     * First millisecond of the UTC day containing {@code timestamp}.
+     */
+    public static long dayStart(long timestamp) {
+        return Math.floorDiv(timestamp, DAY_MILLIS) * DAY_MILLIS;
+    }
+
+    private static long computeStart(int monthIndex) {
+        return daysFromCivil(yearOf(monthIndex), monthOf(monthIndex)) * DAY_MILLIS;
+    }
+
+    /**
+     * Days from 1970-01-01 to the first of the given month in the proleptic Gregorian calendar.
+     */
+    private static long daysFromCivil(long year, int month) {
+        // Count years from March so the leap day falls at the end of each cycle year.
+        if (month <= 2) year--;
+        long era = Math.floorDiv(year, 400L);
+        long yearOfEra = year - era * 400L;
+        int monthFromMarch = (month + 9) % 12;
+        long dayOfYear = (153L * monthFromMarch + 2) / 5;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468L;
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.smartsave.core;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Monte Carlo spread of savings outcomes.
+ * <p>
+ * Every trajectory starts from the current balance and, each month, draws one historical
+ * monthly contribution and one historical monthly rate with replacement, so the bands
+ * reflect how irregular the user's saving and earning have actually been. Trajectories are
+ * simulated in fixed-size blocks on a fork-join pool. Each block owns its
+ * {@link SplittableRandom}, split from the seed in block order before any work starts, and
+ * writes only its own result array, so the output depends on the seed alone and not on the
+ * pool's parallelism or scheduling. A cancelled {@link CancellationToken} stops the remaining
+ * blocks from starting.
+ */
+public final class OutcomeSimulator {
+
+    public static final int MAX_MONTHS = ProjectionEngine.MAX_MONTHS;
+    public static final int MAX_TRAJECTORIES = 100_000;
+
+    /** Upper bound on months * trajectories; every simulated balance is kept until the bands are read. */
+    public static final int MAX_CELLS = 1 << 22;
+
+    private static final int BLOCK_SIZE = 1024;
+
+    public static final class Bands {
+        private final long[] p10;
+        private final long[] p50;
+        private final long[] p90;
+
+        Bands(long[] p10, long[] p50, long[] p90) {
+            this.p10 = p10;
+            this.p50 = p50;
+            this.p90 = p90;
+        }
+
+        public int getMonths() {
+            return p50.length;
+        }
+
+        /**
+         * Month-end balance that 10% of trajectories fall below, 1 for the first simulated month.
+         */
+        public long getP10Minor(int month) {
+            return p10[month - 1];
+        }
+
+        public long getP50Minor(int month) {
+            return p50[month - 1];
+        }
+
+        public long getP90Minor(int month) {
+            return p90[month - 1];
+        }
+    }
+
+    private OutcomeSimulator() {
+    }
+
+    public static Bands simulate(
+            long startBalanceMinor,
+            long[] contributionSamplesMinor,
+            double[] monthlyRateSamples,
+            int months,
+            int trajectories,
+            long seed
+    ) {
+        return simulate(startBalanceMinor, contributionSamplesMinor, monthlyRateSamples, months, trajectories, seed,
+                ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param contributionSamplesMinor historical monthly contributions to resample; empty for none
+     * @param monthlyRateSamples       historical monthly rates to resample, 0.0025 for 0.25%; at least one
+     * @param months                   horizon, 1 to {@link #MAX_MONTHS}
+     * @param trajectories             1 to {@link #MAX_TRAJECTORIES}, with months * trajectories at most {@link #MAX_CELLS}
+     */
+    public static Bands simulate(
+            long startBalanceMinor,
+            long[] contributionSamplesMinor,
+            double[] monthlyRateSamples,
+            int months,
+            int trajectories,
+            long seed,
+            ForkJoinPool pool
+    ) {
+        return simulate(startBalanceMinor, contributionSamplesMinor, monthlyRateSamples, months, trajectories, seed,
+                pool, null);
+    }
+
+    /**
+     * As {@link #simulate(long, long[], double[], int, int, long, ForkJoinPool)}, throwing
+     * {@link java.util.concurrent.CancellationException} once {@code token} is cancelled.
+     */
+    public static Bands simulate(
+            long startBalanceMinor,
+            long[] contributionSamplesMinor,
+            double[] monthlyRateSamples,
+            int months,
+            int trajectories,
+            long seed,
+            ForkJoinPool pool,
+            CancellationToken token
+    ) {
+        if (months < 1 || months > MAX_MONTHS) {
+            throw new IllegalArgumentException("months must be between 1 and " + MAX_MONTHS);
+        }
+        if (trajectories < 1 || trajectories > MAX_TRAJECTORIES) {
+            throw new IllegalArgumentException("trajectories must be between 1 and " + MAX_TRAJECTORIES);
+        }
+        if ((long) months * trajectories > MAX_CELLS) {
+            throw new IllegalArgumentException("months * trajectories must not exceed " + MAX_CELLS);
+        }
+        if (monthlyRateSamples.length == 0) {
+            throw new IllegalArgumentException("At least one monthly rate sample is required");
+        }
+
+        // Inputs are copied so the workers read arrays nobody else can touch.
+        long[] contributions = contributionSamplesMinor.length == 0
+                ? new long[]{0L}
+                : contributionSamplesMinor.clone();
+        double[] rates = monthlyRateSamples.clone();
+
+        int blockCount = (trajectories + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] blockRandoms = new SplittableRandom[blockCount];
+        for (int b = 0; b < blockCount; b++) {
+            blockRandoms[b] = root.split();
+        }
+
+        // blocks[b][month * blockSize + t] is trajectory t of block b at the end of month + 1.
+        long[][] blocks = new long[blockCount][];
+        pool.invoke(new SimulateBlocks(startBalanceMinor, contributions, rates, months, trajectories,
+                blockRandoms, blocks, token, 0, blockCount));
+
+        long[] p10 = new long[months];
+        long[] p50 = new long[months];
+        long[] p90 = new long[months];
+        pool.invoke(new ExtractBands(blocks, trajectories, p10, p50, p90, token, 0, months));
+        return new Bands(p10, p50, p90);
+    }
+
+    private static int blockSize(int block, int trajectories) {
+        return Math.min(BLOCK_SIZE, trajectories - block * BLOCK_SIZE);
+    }
+
+    private static final class SimulateBlocks extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long startBalanceMinor;
+        private final long[] contributions;
+        private final double[] rates;
+        private final int months;
+        private final int trajectories;
+        private final SplittableRandom[] blockRandoms;
+        private final long[][] blocks;
+        private final CancellationToken token;
+        private final int fromBlock;
+        private final int toBlock;
+
+        SimulateBlocks(long startBalanceMinor, long[] contributions, double[] rates, int months, int trajectories,
+                       SplittableRandom[] blockRandoms, long[][] blocks, CancellationToken token,
+                       int fromBlock, int toBlock) {
+            this.startBalanceMinor = startBalanceMinor;
+            this.contributions = contributions;
+            this.rates = rates;
+            this.months = months;
+            this.trajectories = trajectories;
+            this.blockRandoms = blockRandoms;
+            this.blocks = blocks;
+            this.token = token;
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+        }
+
+        @Override
+        protected void compute() {
+            if (toBlock - fromBlock > 1) {
+                int mid = (fromBlock + toBlock) >>> 1;
+                invokeAll(
+                        new SimulateBlocks(startBalanceMinor, contributions, rates, months, trajectories,
+                                blockRandoms, blocks, token, fromBlock, mid),
+                        new SimulateBlocks(startBalanceMinor, contributions, rates, months, trajectories,
+                                blockRandoms, blocks, token, mid, toBlock));
+                return;
+            }
+            CancellationToken.throwIfCancelled(token);
+            int count = blockSize(fromBlock, trajectories);
+            SplittableRandom random = blockRandoms[fromBlock];
+            long[] values = new long[months * count];
+            for (int t = 0; t < count; t++) {
+                double balance = startBalanceMinor;
+                for (int m = 0; m < months; m++) {
+                    double rate = rates[random.nextInt(rates.length)];
+                    long contribution = contributions[random.nextInt(contributions.length)];
+                    balance = balance * (1.0 + rate) + contribution;
+                    values[m * count + t] = Math.round(balance);
+                }
+            }
+            blocks[fromBlock] = values;
+        }
+    }
+
+    private static final class ExtractBands extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int MONTHS_PER_TASK = 4;
+
+        private final long[][] blocks;
+        private final int trajectories;
+        private final long[] p10;
+        private final long[] p50;
+        private final long[] p90;
+        private final CancellationToken token;
+        private final int fromMonth;
+        private final int toMonth;
+
+        ExtractBands(long[][] blocks, int trajectories, long[] p10, long[] p50, long[] p90, CancellationToken token,
+                     int fromMonth, int toMonth) {
+            this.blocks = blocks;
+            this.trajectories = trajectories;
+            this.p10 = p10;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.token = token;
+            this.fromMonth = fromMonth;
+            this.toMonth = toMonth;
+        }
+
+        @Override
+        protected void compute() {
+            if (toMonth - fromMonth > MONTHS_PER_TASK) {
+                int mid = (fromMonth + toMonth) >>> 1;
+                invokeAll(new ExtractBands(blocks, trajectories, p10, p50, p90, token, fromMonth, mid),
+                        new ExtractBands(blocks, trajectories, p10, p50, p90, token, mid, toMonth));
+                return;
+            }
+            long[] column = new long[trajectories];
+            for (int m = fromMonth; m < toMonth; m++) {
+                CancellationToken.throwIfCancelled(token);
+                int filled = 0;
+                for (int b = 0; b < blocks.length; b++) {
+                    int count = blockSize(b, trajectories);
+                    System.arraycopy(blocks[b], m * count, column, filled, count);
+                    filled += count;
+                }
+                Arrays.sort(column);
+                p10[m] = percentile(column, 0.10);
+                p50[m] = percentile(column, 0.50);
+                p90[m] = percentile(column, 0.90);
+            }
+        }
+
+        /**
+         * Nearest-rank percentile of a sorted array.
+         */
+        private static long percentile(long[] sorted, double fraction) {
+            int rank = (int) Math.ceil(fraction * sorted.length);
+            return sorted[Math.max(rank - 1, 0)];
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.smartsave.core;
+
+/**
+ * Month-by-month compound-interest projection of a savings balance with a steady monthly
+ * contribution.
+ * <p>
+ * Each month grows the balance by a fixed factor derived from the annual rate and the
+ * compounding frequency, and the contribution is added at the end of the month. Month k is
+ * evaluated in closed form, {@code B0*g^k + c*(g^k - 1)/(g - 1)}, carrying {@code g^k}
+ * forward, so a projection costs one multiply-add per month whatever the compounding
+ * frequency. Balances are rounded to minor units only as each month is written out.
+ */
+public final class ProjectionEngine {
+
+    public static final int MIN_MONTHS = 6;
+    public static final int MAX_MONTHS = 360;
+
+    /** Full months of INCOME savings history the contribution estimate averages over. */
+    public static final int CONTRIBUTION_HISTORY_MONTHS = 6;
+
+    public enum Compounding {
+        DAILY(365),
+        MONTHLY(12);
+
+        private final int periodsPerYear;
+
+        Compounding(int periodsPerYear) {
+            this.periodsPerYear = periodsPerYear;
+        }
+
+        /**
+         * Growth of one unit over one month (a twelfth of a year) at the given annual rate.
+         */
+        public double monthlyGrowthFactor(double annualRate) {
+            double periodRate = annualRate / periodsPerYear;
+            return Math.pow(1.0 + periodRate, periodsPerYear / 12.0);
+        }
+    }
+
+    public static final class Projection {
+        private final long startBalanceMinor;
+        private final long monthlyContributionMinor;
+        private final long[] monthEndBalancesMinor;
+
+        Projection(long startBalanceMinor, long monthlyContributionMinor, long[] monthEndBalancesMinor) {
+            this.startBalanceMinor = startBalanceMinor;
+            this.monthlyContributionMinor = monthlyContributionMinor;
+            this.monthEndBalancesMinor = monthEndBalancesMinor;
+        }
+
+        public int getMonths() {
+            return monthEndBalancesMinor.length;
+        }
+
+        public long getStartBalanceMinor() {
+            return startBalanceMinor;
+        }
+
+        public long getMonthlyContributionMinor() {
+            return monthlyContributionMinor;
+        }
+
+        /**
+         * Projected balance at the end of month {@code month}, 1 for the first projected month.
+         */
+        public long getBalanceMinor(int month) {
+            return monthEndBalancesMinor[month - 1];
+        }
+
+        public long getFinalBalanceMinor() {
+            return monthEndBalancesMinor[monthEndBalancesMinor.length - 1];
+        }
+
+        public long getTotalContributionsMinor(int month) {
+            return monthlyContributionMinor * month;
+        }
+
+        /**
+         * Interest earned by the end of month {@code month}: growth that isn't the starting
+         * balance or a contribution.
+         */
+        public long getInterestEarnedMinor(int month) {
+            return getBalanceMinor(month) - startBalanceMinor - getTotalContributionsMinor(month);
+        }
+
+        public double getFinalBalance() {
+            return Money.toMajorUnits(getFinalBalanceMinor());
+        }
+
+        public double getInterestEarned() {
+            return Money.toMajorUnits(getInterestEarnedMinor(getMonths()));
+        }
+
+        /**
+         * Month-end balances in major units, oldest first.
+         */
+        public double[] getMonthEndBalances() {
+            double[] balances = new double[monthEndBalancesMinor.length];
+            for (int i = 0; i < balances.length; i++) {
+                balances[i] = Money.toMajorUnits(monthEndBalancesMinor[i]);
+            }
+            return balances;
+        }
+    }
+
+    private ProjectionEngine() {
+    }
+
+    /**
+     * @param currentBalanceMinor      balance at the start of the projection
+     * @param annualRate               nominal annual rate, 0.03 for 3%
+     * @param monthlyContributionMinor amount added at the end of every month
+     * @param months                   horizon, {@link #MIN_MONTHS} to {@link #MAX_MONTHS}
+     */
+    public static Projection project(
+            long currentBalanceMinor,
+            double annualRate,
+            Compounding compounding,
+            long monthlyContributionMinor,
+            int months
+    ) {
+        if (months < MIN_MONTHS || months > MAX_MONTHS) {
+            throw new IllegalArgumentException("months must be between " + MIN_MONTHS + " and " + MAX_MONTHS);
+        }
+        if (annualRate < 0 || Double.isNaN(annualRate) || Double.isInfinite(annualRate)) {
+            throw new IllegalArgumentException("Invalid annualRate: " + annualRate);
+        }
+
+        double growth = compounding.monthlyGrowthFactor(annualRate);
+        double start = currentBalanceMinor;
+        double contribution = monthlyContributionMinor;
+        long[] balances = new long[months];
+        double growthToMonth = 1.0;
+        for (int k = 1; k <= months; k++) {
+            growthToMonth *= growth;
+            // Sum of a geometric series of contributions; linear when the rate is zero.
+            double contributed = growth == 1.0
+                    ? contribution * k
+                    : contribution * (growthToMonth - 1.0) / (growth - 1.0);
+            balances[k - 1] = Math.round(start * growthToMonth + contributed);
+        }
+        return new Projection(currentBalanceMinor, monthlyContributionMinor, balances);
+    }
+
+    /**
+     * Average monthly contribution from per-month INCOME savings, oldest first. Months with
+     * no income count as zero so irregular savers aren't over-projected; a negative average
+     * is treated as no contribution.
+     */
+    public static long estimateMonthlyContribution(long[] monthlyIncomeSavingsMinor) {
+        if (monthlyIncomeSavingsMinor.length == 0) return 0L;
+        long total = 0L;
+        for (long monthSavings : monthlyIncomeSavingsMinor) {
+            total = Money.add(total, monthSavings);
+        }
+        return Math.max(total / monthlyIncomeSavingsMinor.length, 0L);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.smartsave.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds month-end cumulative savings points for the growth chart.
+ * <p>
+ * The ledger columns are already sorted, so a single walk while the month-end
+ * boundaries advance yields every point in O(n + months) instead of O(months * n).
+ */
+public final class SavingsGrowthEngine {
+
+    public static final int MAX_MONTHS = 120;
+
+    private SavingsGrowthEngine() {
+    }
+
+    /**
+     * @param columns        ledger rows up to (at least) the end of the target month
+     * @param targetYear     year of the last charted month
+     * @param targetMonth    last charted month, 1 for January
+     * @param numberOfMonths how many months to chart, ending with the target month
+     * @return points ordered oldest to newest, each with "monthName", "year" and "savings"
+     */
+    public static List<Map<String, Object>> computeMonthEndBalances(
+            TransactionColumns columns,
+            int targetYear,
+            int targetMonth,
+            int numberOfMonths
+    ) {
+        return computeMonthEndBalances(columns, targetYear, targetMonth, numberOfMonths, null);
+    }
+
+    static List<Map<String, Object>> computeMonthEndBalances(
+            TransactionColumns columns,
+            int targetYear,
+            int targetMonth,
+            int numberOfMonths,
+            LedgerTrace.Call call
+    ) {
+        if (numberOfMonths <= 0 || numberOfMonths > MAX_MONTHS) {
+            throw new IllegalArgumentException("numberOfMonths must be between 1 and " + MAX_MONTHS);
+        }
+        if (targetMonth < 1 || targetMonth > 12) {
+            throw new IllegalArgumentException("Invalid targetMonth: " + targetMonth);
+        }
+
+        int firstMonth = MonthBoundaries.index(targetYear, targetMonth) - (numberOfMonths - 1);
+        // The first millisecond of the next month bounds each month exclusively.
+        long[] nextMonthStarts = MonthBoundaries.exclusiveEnds(firstMonth, numberOfMonths);
+
+        long[] balances = columns.cumulativeBalances(nextMonthStarts, call);
+
+        List<Map<String, Object>> monthlyGrowthData = new ArrayList<>(numberOfMonths);
+        for (int i = 0; i < numberOfMonths; i++) {
+            Map<String, Object> monthPoint = new HashMap<>();
+            monthPoint.put("monthName", MonthBoundaries.shortName(MonthBoundaries.monthOf(firstMonth + i)));
+            monthPoint.put("year", MonthBoundaries.yearOf(firstMonth + i));
+            monthPoint.put("savings", Money.toMajorUnits(balances[i]));
+            monthlyGrowthData.add(monthPoint);
+        }
+        return monthlyGrowthData;
+    }
+}
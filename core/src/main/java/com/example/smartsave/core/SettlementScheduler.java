@@ -0,0 +1,224 @@
+package com.example.smartsave.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Settles queued withdrawals once they fall due.
+ * <p>
+ * The queue lives in a {@link Store}, so it survives the process; nothing is held in memory
+ * between passes. {@link #runDue} takes the earliest entries a batch at a time and commits
+ * every due entry of a batch in one write, until none are due. A pass after downtime
+ * therefore catches up on everything that fell due meanwhile. The result says when the next
+ * entry falls due, so the caller knows when to run again. A call made while a pass is
+ * running joins it.
+ * <p>
+ * Callbacks may run on any thread the store uses. A store that completes synchronously is
+ * fine: batches are looped, not recursed.
+ */
+public final class SettlementScheduler {
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /** {@link Result#getNextDueAt()} when the queue is empty. */
+    public static final long NOTHING_QUEUED = Long.MAX_VALUE;
+
+    public static final class Settlement {
+        private final String key;
+        private final long amountMinor;
+        private final long dueAt;
+
+        public Settlement(String key, long amountMinor, long dueAt) {
+            this.key = key;
+            this.amountMinor = amountMinor;
+            this.dueAt = dueAt;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getAmountMinor() {
+            return amountMinor;
+        }
+
+        public long getDueAt() {
+            return dueAt;
+        }
+    }
+
+    public interface Store {
+
+        interface LoadCallback {
+            void onLoaded(List<Settlement> earliest);
+
+            void onError(String errorMessage);
+        }
+
+        interface CommitCallback {
+            void onCommitted();
+
+            void onError(String errorMessage);
+        }
+
+        /**
+         * Up to {@code limit} queued settlements with the earliest due times.
+         */
+        void loadEarliest(int limit, LoadCallback callback);
+
+        /**
+         * Settles every entry of {@code batch} and takes it off the queue, all or nothing.
+         */
+        void commit(List<Settlement> batch, CommitCallback callback);
+    }
+
+    public static final class Result {
+        private final int settled;
+        private final int batches;
+        private final long nextDueAt;
+
+        Result(int settled, int batches, long nextDueAt) {
+            this.settled = settled;
+            this.batches = batches;
+            this.nextDueAt = nextDueAt;
+        }
+
+        public int getSettled() {
+            return settled;
+        }
+
+        public int getBatches() {
+            return batches;
+        }
+
+        /**
+         * Due time of the earliest entry still queued, or {@link #NOTHING_QUEUED}.
+         */
+        public long getNextDueAt() {
+            return nextDueAt;
+        }
+    }
+
+    public interface Callback {
+        void onComplete(Result result);
+
+        void onError(String errorMessage);
+    }
+
+    private final Store store;
+    private final Clock clock;
+    private final int batchSize;
+    private final Object lock = new Object();
+
+    // Guarded by lock; null when no pass is running.
+    private List<Callback> waiters;
+
+    public SettlementScheduler(Store store, Clock clock, int batchSize) {
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        this.store = store;
+        this.clock = clock;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Settles everything due at the current time.
+     */
+    public void runDue(Callback callback) {
+        synchronized (lock) {
+            if (waiters != null) {
+                waiters.add(callback);
+                return;
+            }
+            waiters = new ArrayList<>();
+            waiters.add(callback);
+        }
+        new Pass(clock.currentTimeMillis()).step();
+    }
+
+    private List<Callback> finishPass() {
+        synchronized (lock) {
+            List<Callback> done = waiters;
+            waiters = null;
+            return done;
+        }
+    }
+
+    /**
+     * One run over the queue. {@link #step} issues the next load unless another thread or a
+     * caller further up the stack is already looping, in which case that loop picks it up.
+     * Only one load or commit is outstanding at a time, so the counts have a single writer.
+     */
+    private final class Pass implements Store.LoadCallback {
+        private final long now;
+        // Steps requested and not yet issued; whoever raises it from zero issues them all.
+        private final AtomicInteger pendingSteps = new AtomicInteger();
+        private volatile int settled;
+        private volatile int batches;
+
+        Pass(long now) {
+            this.now = now;
+        }
+
+        void step() {
+            if (pendingSteps.getAndIncrement() != 0) return;
+            do {
+                store.loadEarliest(batchSize, this);
+            } while (pendingSteps.decrementAndGet() != 0);
+        }
+
+        @Override
+        public void onLoaded(List<Settlement> earliest) {
+            List<Settlement> due = new ArrayList<>(earliest.size());
+            long nextDueAt = NOTHING_QUEUED;
+            for (Settlement settlement : earliest) {
+                if (settlement.getDueAt() <= now) {
+                    due.add(settlement);
+                } else {
+                    nextDueAt = Math.min(nextDueAt, settlement.getDueAt());
+                }
+            }
+            if (due.isEmpty()) {
+                complete(nextDueAt);
+                return;
+            }
+            boolean lastBatch = earliest.size() < batchSize;
+            long laterDueAt = nextDueAt;
+            store.commit(due, new Store.CommitCallback() {
+                @Override
+                public void onCommitted() {
+                    settled += due.size();
+                    batches++;
+                    if (lastBatch) {
+                        complete(laterDueAt);
+                    } else {
+                        step();
+                    }
+                }
+
+                @Override
+                public void onError(String errorMessage) {
+                    fail(errorMessage);
+                }
+            });
+        }
+
+        @Override
+        public void onError(String errorMessage) {
+            fail(errorMessage);
+        }
+
+        private void complete(long nextDueAt) {
+            Result result = new Result(settled, batches, nextDueAt);
+            for (Callback callback : finishPass()) {
+                if (callback != null) callback.onComplete(result);
+            }
+        }
+
+        private void fail(String errorMessage) {
+            for (Callback callback : finishPass()) {
+                if (callback != null) callback.onError(errorMessage);
+            }
+        }
+    }
+}
@@ -0,0 +1,502 @@
+package com.example.smartsave.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Column-oriented, timestamp-sorted view of a transactions ledger.
+ * <p>
+ * Amounts are held as long minor units (cents), types as {@link TransactionType} codes and currencies as
+ * indexes into a small dictionary, so aggregations walk primitive arrays without
+ * allocating or touching strings. Rows are ordered by (timestamp, key), the same order
+ * orderByChild("timestamp") returns. Instances are built by a {@link TransactionSource}
+ * adapter and are immutable once built.
+ */
+public final class TransactionColumns {
+
+    private final int size;
+    private final String[] keys;
+    private final long[] timestamps;
+    private final long[] amounts;
+    private final long[] savings;
+    private final byte[] types;
+    private final short[] currencies;
+    private final String[] currencyDictionary;
+    // Display-only; never read by the aggregations.
+    private final String[] descriptions;
+
+    private TransactionColumns(int size, String[] keys, long[] timestamps, long[] amounts, long[] savings,
+                               byte[] types, short[] currencies, String[] currencyDictionary, String[] descriptions) {
+        this.size = size;
+        this.keys = keys;
+        this.timestamps = timestamps;
+        this.amounts = amounts;
+        this.savings = savings;
+        this.types = types;
+        this.currencies = currencies;
+        this.currencyDictionary = currencyDictionary;
+        this.descriptions = descriptions;
+    }
+
+    public static TransactionColumns empty() {
+        return new Builder(0).build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String key(int row) {
+        return keys[row];
+    }
+
+    public long timestamp(int row) {
+        return timestamps[row];
+    }
+
+    public long amount(int row) {
+        return amounts[row];
+    }
+
+    public long savings(int row) {
+        return savings[row];
+    }
+
+    public TransactionType type(int row) {
+        return TransactionType.fromCode(types[row]);
+    }
+
+    public String currency(int row) {
+        return currencyDictionary[currencies[row]];
+    }
+
+    public String description(int row) {
+        return descriptions[row];
+    }
+
+    /**
+     * First row whose timestamp is {@code >= timestamp}.
+     */
+    public int lowerBound(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < timestamp) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * First row whose timestamp is {@code > timestamp}.
+     */
+    public int upperBound(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] <= timestamp) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Index of the row with this (timestamp, key), or -1 when it is not in the ledger.
+     */
+    public int indexOf(long timestamp, String key) {
+        for (int i = lowerBound(timestamp); i < size && timestamps[i] == timestamp; i++) {
+            if (keys[i] != null && keys[i].equals(key)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * First row at or after (timestamp, key) in ledger order: the row itself when it is
+     * present, as Firebase's startAt(timestamp, key) returns it.
+     */
+    public int seek(long timestamp, String key) {
+        int row = lowerBound(timestamp);
+        while (row < size && timestamps[row] == timestamp
+                && keys[row] != null && key != null && keys[row].compareTo(key) < 0) {
+            row++;
+        }
+        return row;
+    }
+
+    /**
+     * Rows [fromRow, toRow) as their own columns, sharing the currency dictionary.
+     */
+    public TransactionColumns slice(int fromRow, int toRow) {
+        if (fromRow == 0 && toRow == size) return this;
+        return new TransactionColumns(toRow - fromRow,
+                Arrays.copyOfRange(keys, fromRow, toRow),
+                Arrays.copyOfRange(timestamps, fromRow, toRow),
+                Arrays.copyOfRange(amounts, fromRow, toRow),
+                Arrays.copyOfRange(savings, fromRow, toRow),
+                Arrays.copyOfRange(types, fromRow, toRow),
+                Arrays.copyOfRange(currencies, fromRow, toRow),
+                currencyDictionary,
+                Arrays.copyOfRange(descriptions, fromRow, toRow));
+    }
+
+    /**
+     * Rows [0, headRows) of this ledger followed by every row of {@code tail}, which must not
+     * sort before them. Columns are block-copied; only the currency codes of the tail are
+     * remapped, and only when its dictionary differs.
+     */
+    public TransactionColumns append(int headRows, TransactionColumns tail) {
+        int total = headRows + tail.size;
+        String[] mergedKeys = Arrays.copyOf(keys, total);
+        long[] mergedTimestamps = Arrays.copyOf(timestamps, total);
+        long[] mergedAmounts = Arrays.copyOf(amounts, total);
+        long[] mergedSavings = Arrays.copyOf(savings, total);
+        byte[] mergedTypes = Arrays.copyOf(types, total);
+        short[] mergedCurrencies = Arrays.copyOf(currencies, total);
+        String[] mergedDescriptions = Arrays.copyOf(descriptions, total);
+        System.arraycopy(tail.keys, 0, mergedKeys, headRows, tail.size);
+        System.arraycopy(tail.timestamps, 0, mergedTimestamps, headRows, tail.size);
+        System.arraycopy(tail.amounts, 0, mergedAmounts, headRows, tail.size);
+        System.arraycopy(tail.savings, 0, mergedSavings, headRows, tail.size);
+        System.arraycopy(tail.types, 0, mergedTypes, headRows, tail.size);
+        System.arraycopy(tail.descriptions, 0, mergedDescriptions, headRows, tail.size);
+
+        String[] dictionary = currencyDictionary;
+        short[] remap = new short[tail.currencyDictionary.length];
+        boolean sameCodes = true;
+        for (int code = 0; code < remap.length; code++) {
+            int merged = Arrays.asList(dictionary).indexOf(tail.currencyDictionary[code]);
+            if (merged < 0) {
+                merged = dictionary.length;
+                dictionary = Arrays.copyOf(dictionary, merged + 1);
+                dictionary[merged] = tail.currencyDictionary[code];
+            }
+            remap[code] = (short) merged;
+            sameCodes &= merged == code;
+        }
+        if (sameCodes) {
+            System.arraycopy(tail.currencies, 0, mergedCurrencies, headRows, tail.size);
+        } else {
+            for (int i = 0; i < tail.size; i++) {
+                mergedCurrencies[headRows + i] = remap[tail.currencies[i]];
+            }
+        }
+        return new TransactionColumns(total, mergedKeys, mergedTimestamps, mergedAmounts, mergedSavings,
+                mergedTypes, mergedCurrencies, dictionary, mergedDescriptions);
+    }
+
+    /**
+     * Effect of one row on totalSaved, in minor units.
+     */
+    public long balanceEffect(int row) {
+        return TransactionType.balanceEffect(types[row], amounts[row], savings[row]);
+    }
+
+    /**
+     * Net balance change of rows [fromRow, toRow), in minor units.
+     */
+    public long sumBalance(int fromRow, int toRow) {
+        long total = 0L;
+        for (int i = fromRow; i < toRow; i++) {
+            total = Money.add(total, balanceEffect(i));
+        }
+        return total;
+    }
+
+    /**
+     * {@link #sumBalance(int, int)}, counting rows with a non-zero effect as matched when {@code call} is set.
+     */
+    long sumBalance(int fromRow, int toRow, LedgerTrace.Call call) {
+        if (call == null) return sumBalance(fromRow, toRow);
+        long total = 0L;
+        long matched = 0L;
+        for (int i = fromRow; i < toRow; i++) {
+            long effect = balanceEffect(i);
+            if (effect == 0L) continue;
+            total = Money.add(total, effect);
+            if (call.shouldSample(++matched)) call.sample(keys[i], timestamps[i], type(i), effect);
+        }
+        call.addRows(Math.max(toRow - fromRow, 0), matched);
+        return total;
+    }
+
+    /**
+     * Sum of {@code amount} for rows of the given type with timestamps in [fromTimestamp, toTimestamp].
+     */
+    public long sumAmounts(TransactionType type, long fromTimestamp, long toTimestamp) {
+        return sumWhere(amounts, type, fromTimestamp, toTimestamp, null);
+    }
+
+    long sumAmounts(TransactionType type, long fromTimestamp, long toTimestamp, LedgerTrace.Call call) {
+        return sumWhere(amounts, type, fromTimestamp, toTimestamp, call);
+    }
+
+    /**
+     * Sum of {@code savingsCalculated} for rows of the given type with timestamps in [fromTimestamp, toTimestamp].
+     */
+    public long sumSavings(TransactionType type, long fromTimestamp, long toTimestamp) {
+        return sumWhere(savings, type, fromTimestamp, toTimestamp, null);
+    }
+
+    long sumSavings(TransactionType type, long fromTimestamp, long toTimestamp, LedgerTrace.Call call) {
+        return sumWhere(savings, type, fromTimestamp, toTimestamp, call);
+    }
+
+    /**
+     * Like {@link #sumAmounts(TransactionType, long, long, LedgerTrace.Call)}, over rows [start, end).
+     */
+    long sumAmountsInRows(TransactionType type, int start, int end, LedgerTrace.Call call) {
+        return sumRows(amounts, type, start, end, call);
+    }
+
+    /**
+     * Like {@link #sumSavings(TransactionType, long, long, LedgerTrace.Call)}, over rows [start, end).
+     */
+    long sumSavingsInRows(TransactionType type, int start, int end, LedgerTrace.Call call) {
+        return sumRows(savings, type, start, end, call);
+    }
+
+    private long sumWhere(long[] values, TransactionType type, long fromTimestamp, long toTimestamp, LedgerTrace.Call call) {
+        return sumRows(values, type, lowerBound(fromTimestamp), upperBound(toTimestamp), call);
+    }
+
+    private long sumRows(long[] values, TransactionType type, int start, int end, LedgerTrace.Call call) {
+        byte code = type.code();
+        long total = 0L;
+        if (call == null) {
+            for (int i = start; i < end; i++) {
+                if (types[i] == code) total = Money.add(total, values[i]);
+            }
+            return total;
+        }
+        long matched = 0L;
+        for (int i = start; i < end; i++) {
+            if (types[i] != code) continue;
+            total = Money.add(total, values[i]);
+            if (call.shouldSample(++matched)) call.sample(keys[i], timestamps[i], type, values[i]);
+        }
+        call.addRows(Math.max(end - start, 0), matched);
+        return total;
+    }
+
+    /**
+     * Currency of the first row of the given type in [fromTimestamp, toTimestamp], or BGN.
+     */
+    public String firstCurrency(TransactionType type, long fromTimestamp, long toTimestamp) {
+        return firstCurrency(type, fromTimestamp, toTimestamp, null);
+    }
+
+    String firstCurrency(TransactionType type, long fromTimestamp, long toTimestamp, LedgerTrace.Call call) {
+        byte code = type.code();
+        int start = lowerBound(fromTimestamp);
+        int end = upperBound(toTimestamp);
+        for (int i = start; i < end; i++) {
+            if (types[i] == code) {
+                if (call != null) call.addRows(i - start + 1, 1);
+                return currencyDictionary[currencies[i]];
+            }
+        }
+        if (call != null) call.addRows(Math.max(end - start, 0), 0);
+        return Money.DEFAULT_CURRENCY;
+    }
+
+    /**
+     * Index of the first row of the given type, or -1 when there is none.
+     */
+    public int firstRowOf(TransactionType type) {
+        byte code = type.code();
+        for (int i = 0; i < size; i++) {
+            if (types[i] == code) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Cumulative balance at each boundary, where {@code exclusiveEnds} is ascending and each
+     * balance covers every row with a timestamp strictly before the boundary.
+     */
+    public long[] cumulativeBalances(long[] exclusiveEnds) {
+        return cumulativeBalances(exclusiveEnds, null);
+    }
+
+    long[] cumulativeBalances(long[] exclusiveEnds, LedgerTrace.Call call) {
+        long[] balances = new long[exclusiveEnds.length];
+        long runningTotal = 0L;
+        int row = 0;
+        if (call == null) {
+            for (int b = 0; b < exclusiveEnds.length; b++) {
+                long end = exclusiveEnds[b];
+                while (row < size && timestamps[row] < end) {
+                    runningTotal = Money.add(runningTotal, balanceEffect(row));
+                    row++;
+                }
+                balances[b] = runningTotal;
+            }
+            return balances;
+        }
+        long matched = 0L;
+        for (int b = 0; b < exclusiveEnds.length; b++) {
+            long end = exclusiveEnds[b];
+            while (row < size && timestamps[row] < end) {
+                long effect = balanceEffect(row);
+                if (effect != 0L) {
+                    runningTotal = Money.add(runningTotal, effect);
+                    if (call.shouldSample(++matched)) call.sample(keys[row], timestamps[row], type(row), effect);
+                }
+                row++;
+            }
+            balances[b] = runningTotal;
+        }
+        call.addRows(row, matched);
+        return balances;
+    }
+
+    public static final class Builder {
+        private int size;
+        private String[] keys;
+        private long[] timestamps;
+        private long[] amounts;
+        private long[] savings;
+        private byte[] types;
+        private short[] currencies;
+        private String[] descriptions;
+        private final Map<String, Short> currencyIndex = new HashMap<>();
+        private String[] currencyDictionary = new String[4];
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 16);
+            keys = new String[capacity];
+            timestamps = new long[capacity];
+            amounts = new long[capacity];
+            savings = new long[capacity];
+            types = new byte[capacity];
+            currencies = new short[capacity];
+            descriptions = new String[capacity];
+        }
+
+        public Builder add(String key, long timestamp, double amount, double savingsCalculated, TransactionType type, String currency) {
+            return addMinor(key, timestamp, Money.toMinorUnits(amount), Money.toMinorUnits(savingsCalculated), type, currency);
+        }
+
+        public Builder addMinor(String key, long timestamp, long amountMinor, long savingsMinor, TransactionType type, String currency) {
+            return addMinor(key, timestamp, amountMinor, savingsMinor, type, currency, null);
+        }
+
+        public Builder addMinor(String key, long timestamp, long amountMinor, long savingsMinor, TransactionType type,
+                                String currency, String description) {
+            if (size == timestamps.length) grow();
+            keys[size] = key;
+            timestamps[size] = timestamp;
+            amounts[size] = amountMinor;
+            savings[size] = savingsMinor;
+            types[size] = (type != null ? type : TransactionType.UNKNOWN).code();
+            currencies[size] = currencyCode(currency == null || currency.isEmpty() ? Money.DEFAULT_CURRENCY : currency);
+            descriptions[size] = description;
+            size++;
+            return this;
+        }
+
+        /**
+         * Columns trimmed to the rows added so far. The built instance owns its arrays, so the
+         * builder can keep adding rows and build again without affecting it.
+         */
+        public TransactionColumns build() {
+            if (!isSorted()) sortRows();
+            return new TransactionColumns(size,
+                    Arrays.copyOf(keys, size),
+                    Arrays.copyOf(timestamps, size),
+                    Arrays.copyOf(amounts, size),
+                    Arrays.copyOf(savings, size),
+                    Arrays.copyOf(types, size),
+                    Arrays.copyOf(currencies, size),
+                    Arrays.copyOf(currencyDictionary, currencyIndex.size()),
+                    Arrays.copyOf(descriptions, size));
+        }
+
+        private short currencyCode(String currency) {
+            Short code = currencyIndex.get(currency);
+            if (code != null) return code;
+            short next = (short) currencyIndex.size();
+            if (next == currencyDictionary.length) {
+                currencyDictionary = Arrays.copyOf(currencyDictionary, next * 2);
+            }
+            currencyDictionary[next] = currency;
+            currencyIndex.put(currency, next);
+            return next;
+        }
+
+        private void grow() {
+            int capacity = timestamps.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+            savings = Arrays.copyOf(savings, capacity);
+            types = Arrays.copyOf(types, capacity);
+            currencies = Arrays.copyOf(currencies, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+        }
+
+        private int compareRows(int a, int b) {
+            int byTime = Long.compare(timestamps[a], timestamps[b]);
+            if (byTime != 0) return byTime;
+            if (keys[a] == null || keys[b] == null) return keys[a] == null ? (keys[b] == null ? 0 : -1) : 1;
+            return keys[a].compareTo(keys[b]);
+        }
+
+        private boolean isSorted() {
+            for (int i = 1; i < size; i++) {
+                if (compareRows(i - 1, i) > 0) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Merge-sorts a row permutation, then applies it to every column.
+         */
+        private void sortRows() {
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            int[] scratch = new int[size];
+            for (int width = 1; width < size; width *= 2) {
+                for (int lo = 0; lo < size - width; lo += 2 * width) {
+                    int mid = lo + width;
+                    int hi = Math.min(lo + 2 * width, size);
+                    int i = lo, j = mid, k = lo;
+                    while (i < mid && j < hi) {
+                        scratch[k++] = compareRows(order[i], order[j]) <= 0 ? order[i++] : order[j++];
+                    }
+                    while (i < mid) scratch[k++] = order[i++];
+                    while (j < hi) scratch[k++] = order[j++];
+                    System.arraycopy(scratch, lo, order, lo, hi - lo);
+                }
+            }
+
+            String[] sortedKeys = new String[size];
+            long[] sortedTimestamps = new long[size];
+            long[] sortedAmounts = new long[size];
+            long[] sortedSavings = new long[size];
+            byte[] sortedTypes = new byte[size];
+            short[] sortedCurrencies = new short[size];
+            String[] sortedDescriptions = new String[size];
+            for (int i = 0; i < size; i++) {
+                int row = order[i];
+                sortedKeys[i] = keys[row];
+                sortedTimestamps[i] = timestamps[row];
+                sortedAmounts[i] = amounts[row];
+                sortedSavings[i] = savings[row];
+                sortedTypes[i] = types[row];
+                sortedCurrencies[i] = currencies[row];
+                sortedDescriptions[i] = descriptions[row];
+            }
+            keys = sortedKeys;
+            timestamps = sortedTimestamps;
+            amounts = sortedAmounts;
+            savings = sortedSavings;
+            types = sortedTypes;
+            currencies = sortedCurrencies;
+            descriptions = sortedDescriptions;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.smartsave.core;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Text shown for a transaction in the dashboard list, kept here so the rules can be
+ * exercised and benchmarked off-device.
+ * <p>
+ * Date formatters are cached per thread and pattern, and rebuilt only when the default
+ * locale or time zone changes. Amounts are written digit by digit from minor units instead
+ * of going through {@link String#format}; the output matches {@code "%.2f"} in
+ * {@link Locale#US}.
+ */
+public final class TransactionFormat {
+
+    private static final ThreadLocal<DateFormats> DATE_FORMATS = new ThreadLocal<DateFormats>() {
+        @Override
+        protected DateFormats initialValue() {
+            return new DateFormats();
+        }
+    };
+
+    private TransactionFormat() {
+    }
+
+    /**
+     * Timestamp in the device locale and time zone, or "Processing" while it is not set yet.
+     */
+    public static String date(long timestamp, String pattern) {
+        if (timestamp == 0L) return "Processing";
+        return DATE_FORMATS.get().forPattern(pattern).format(new Date(timestamp));
+    }
+
+    /**
+     * Signed effect on savings, e.g. "+ 1.20 BGN", or "" when the row does not move savings.
+     */
+    public static String savingsImpact(TransactionType type, long amountMinor, long savingsMinor, String currency) {
+        switch (type) {
+            case INCOME:
+            case EXPENSE:
+                if (savingsMinor > 0) {
+                    return amount("+ ", savingsMinor, currency);
+                } else if (savingsMinor < 0) {
+                    return amount("", savingsMinor, currency);
+                }
+                return "";
+            case WITHDRAW:
+            case PENDING_WITHDRAWAL:
+            case WITHDRAWAL:
+                return amount("- ", Math.abs(amountMinor), currency);
+            case SAVINGS_DEPOSIT:
+            case INTEREST_PAYMENT:
+                return amount("+ ", amountMinor, currency);
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * The purchase amount line, e.g. "Amount: 12.00 BGN"; empty for savings-only rows.
+     */
+    public static String displayAmount(TransactionType type, long amountMinor, String currency) {
+        switch (type) {
+            case INCOME:
+            case EXPENSE:
+                return amount("Amount: ", amountMinor, currency);
+            case WITHDRAW:
+            case PENDING_WITHDRAWAL:
+            case WITHDRAWAL:
+            case SAVINGS_DEPOSIT:
+            case INTEREST_PAYMENT:
+                return "";
+            default:
+                if (amountMinor != 0) {
+                    return amount("Amount: ", amountMinor, currency);
+                }
+                return "";
+        }
+    }
+
+    /**
+     * Appends {@code minorUnits} as a major-unit decimal with two places, e.g. -1205 as "-12.05".
+     */
+    public static StringBuilder appendDecimal(StringBuilder out, long minorUnits) {
+        // Work on the negated value so Long.MIN_VALUE needs no special case.
+        long negative = minorUnits < 0 ? minorUnits : -minorUnits;
+        if (minorUnits < 0) out.append('-');
+        long major = -(negative / 100);
+        int cents = (int) -(negative % 100);
+        out.append(major);
+        return out.append('.').append((char) ('0' + cents / 10)).append((char) ('0' + cents % 10));
+    }
+
+    private static String amount(String prefix, long minorUnits, String currency) {
+        StringBuilder out = new StringBuilder(prefix.length() + currency.length() + 24).append(prefix);
+        return appendDecimal(out, minorUnits).append(' ').append(currency).toString();
+    }
+
+    /**
+     * One thread's formatters, dropped together when the default locale or time zone changes.
+     */
+    private static final class DateFormats {
+        private final Map<String, SimpleDateFormat> byPattern = new HashMap<>();
+        private Locale locale;
+        private TimeZone timeZone;
+
+        SimpleDateFormat forPattern(String pattern) {
+            Locale currentLocale = Locale.getDefault();
+            TimeZone currentTimeZone = TimeZone.getDefault();
+            if (!currentLocale.equals(locale) || !currentTimeZone.equals(timeZone)) {
+                byPattern.clear();
+                locale = currentLocale;
+                timeZone = currentTimeZone;
+            }
+            SimpleDateFormat format = byPattern.get(pattern);
+            if (format == null) {
+                format = new SimpleDateFormat(pattern, currentLocale);
+                byPattern.put(pattern, format);
+            }
+            return format;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.smartsave.core;
+
+/**
+ * Where a user's ledger comes from. Implementations adapt a backend (Firebase, the REST
+ * API, an in-memory ledger) to {@link TransactionColumns}; all calculation lives in
+ * {@link LedgerMath}, which never touches a source directly.
+ * <p>
+ * Callbacks may run on any thread the backend uses; Firebase delivers them on the main thread.
+ */
+public interface TransactionSource {
+
+    interface Callback {
+        void onLoaded(TransactionColumns columns);
+
+        void onError(String errorMessage);
+    }
+
+    /**
+     * Every transaction in the ledger.
+     */
+    void loadAll(Callback callback);
+
+    /**
+     * Transactions with {@code fromTimestamp <= timestamp <= toTimestamp}.
+     */
+    void loadRange(long fromTimestamp, long toTimestamp, Callback callback);
+
+    /**
+     * Transactions at or after (timestamp, key) in ledger order. When that transaction still
+     * exists it is the first row returned, which lets callers verify a checkpoint.
+     */
+    void loadFrom(long timestamp, String key, Callback callback);
+}
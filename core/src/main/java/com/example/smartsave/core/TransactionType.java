@@ -0,0 +1,98 @@
+package com.example.smartsave.core;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Transaction types as stored in the "type" field, parsed once when a transaction is read.
+ * <p>
+ * How each type moves totalSaved is fixed by the ordinal-indexed tables below, so every
+ * aggregation and screen applies the same rule: INCOME and EXPENSE contribute their
+ * savingsCalculated, deposits and interest add their amount, and every withdrawal type
+ * (WITHDRAW, PENDING_WITHDRAWAL, settled WITHDRAWAL) subtracts the absolute amount.
+ */
+public enum TransactionType {
+    UNKNOWN,
+    INCOME,
+    EXPENSE,
+    WITHDRAW,
+    SAVINGS_DEPOSIT,
+    INTEREST_PAYMENT,
+    PENDING_WITHDRAWAL,
+    WITHDRAWAL;
+
+    /**
+     * Bumped whenever the balance-effect tables change, so stored checkpoints and rollups
+     * summed under older rules are rebuilt instead of extended.
+     */
+    public static final int RULES_VERSION = 1;
+
+    private static final TransactionType[] VALUES = values();
+
+    // Weight applied to savingsCalculated, indexed by ordinal.
+    private static final long[] SAVINGS_WEIGHT = new long[VALUES.length];
+    // Weight applied to |amount|, indexed by ordinal.
+    private static final long[] AMOUNT_WEIGHT = new long[VALUES.length];
+
+    private static final Map<String, TransactionType> BY_NAME = new HashMap<>();
+
+    static {
+        SAVINGS_WEIGHT[INCOME.ordinal()] = 1;
+        SAVINGS_WEIGHT[EXPENSE.ordinal()] = 1;
+        AMOUNT_WEIGHT[SAVINGS_DEPOSIT.ordinal()] = 1;
+        AMOUNT_WEIGHT[INTEREST_PAYMENT.ordinal()] = 1;
+        AMOUNT_WEIGHT[WITHDRAW.ordinal()] = -1;
+        AMOUNT_WEIGHT[PENDING_WITHDRAWAL.ordinal()] = -1;
+        AMOUNT_WEIGHT[WITHDRAWAL.ordinal()] = -1;
+
+        for (TransactionType type : VALUES) {
+            BY_NAME.put(type.name(), type);
+        }
+    }
+
+    /**
+     * Parses a stored type string; unrecognized or missing values map to {@link #UNKNOWN}.
+     */
+    public static TransactionType parse(String value) {
+        if (value == null) return UNKNOWN;
+        TransactionType type = BY_NAME.get(value);
+        if (type == null) {
+            type = BY_NAME.get(value.trim().toUpperCase(Locale.ROOT));
+        }
+        return type != null ? type : UNKNOWN;
+    }
+
+    public static TransactionType fromCode(int code) {
+        return VALUES[code];
+    }
+
+    /**
+     * Effect on totalSaved of a row with the given type code; the inputs may be in any unit.
+     */
+    public static long balanceEffect(int code, long amount, long savingsCalculated) {
+        return SAVINGS_WEIGHT[code] * savingsCalculated + AMOUNT_WEIGHT[code] * Math.abs(amount);
+    }
+
+    public static double balanceEffect(int code, double amount, double savingsCalculated) {
+        return SAVINGS_WEIGHT[code] * savingsCalculated + AMOUNT_WEIGHT[code] * Math.abs(amount);
+    }
+
+    /**
+     * Compact code stored in columnar arrays; equal to the ordinal.
+     */
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    public boolean isWithdrawal() {
+        return AMOUNT_WEIGHT[ordinal()] < 0;
+    }
+
+    /**
+     * True for types whose effect comes from savingsCalculated rather than the amount.
+     */
+    public boolean contributesSavings() {
+        return SAVINGS_WEIGHT[ordinal()] != 0;
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.smartsave.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class CachedTransactionSourceTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void firstLoadDownloadsEverythingAndLaterLoadsOnlyFetchTheDelta() {
+        CountingSource remote = new CountingSource(ledger(row("a", 100, TransactionType.INCOME), row("b", 200, TransactionType.INTEREST_PAYMENT)));
+        MemoryStore store = new MemoryStore();
+        CachedTransactionSource cache = new CachedTransactionSource(remote, store, DIRECT);
+
+        assertEquals(2, load(cache).size());
+        assertEquals(1, remote.fullLoads);
+        assertEquals(2, store.stored.size());
+
+        remote.setLedger(ledger(row("a", 100, TransactionType.INCOME), row("b", 200, TransactionType.INTEREST_PAYMENT),
+                row("c", 300, TransactionType.INCOME)));
+        TransactionColumns synced = load(cache);
+
+        assertEquals(3, synced.size());
+        assertEquals("c", synced.key(2));
+        assertEquals(1, remote.fullLoads);
+        assertEquals(1, remote.deltaLoads);
+        assertEquals(2, remote.lastDeltaSize);
+    }
+
+    @Test
+    public void storedLedgerIsReusedByANewInstance() {
+        CountingSource remote = new CountingSource(ledger(row("a", 100, TransactionType.INCOME), row("b", 200, TransactionType.INCOME)));
+        MemoryStore store = new MemoryStore();
+        load(new CachedTransactionSource(remote, store, DIRECT));
+
+        CountingSource restarted = new CountingSource(remote.getLedger());
+        TransactionColumns columns = load(new CachedTransactionSource(restarted, store, DIRECT));
+
+        assertEquals(2, columns.size());
+        assertEquals(0, restarted.fullLoads);
+        assertEquals(1, restarted.deltaLoads);
+    }
+
+    @Test
+    public void pendingWithdrawalSettledInPlaceIsReRead() {
+        CountingSource remote = new CountingSource(ledger(row("a", 100, TransactionType.INCOME),
+                row("w", 200, TransactionType.PENDING_WITHDRAWAL), row("b", 300, TransactionType.INCOME)));
+        CachedTransactionSource cache = new CachedTransactionSource(remote, null, DIRECT);
+        load(cache);
+
+        remote.setLedger(ledger(row("a", 100, TransactionType.INCOME),
+                row("w", 200, TransactionType.WITHDRAWAL), row("b", 300, TransactionType.INCOME)));
+        TransactionColumns columns = load(cache);
+
+        assertEquals(TransactionType.WITHDRAWAL, columns.type(1));
+        assertEquals(1, remote.fullLoads);
+    }
+
+    @Test
+    public void missingResumeRowFallsBackToAFullDownload() {
+        CountingSource remote = new CountingSource(ledger(row("a", 100, TransactionType.INCOME), row("b", 200, TransactionType.INCOME)));
+        CachedTransactionSource cache = new CachedTransactionSource(remote, null, DIRECT);
+        load(cache);
+
+        remote.setLedger(ledger(row("a", 100, TransactionType.INCOME), row("c", 300, TransactionType.INCOME)));
+        TransactionColumns columns = load(cache);
+
+        assertEquals(2, columns.size());
+        assertEquals("c", columns.key(1));
+        assertEquals(2, remote.fullLoads);
+    }
+
+    @Test
+    public void remoteFailureServesTheCachedLedger() {
+        CountingSource remote = new CountingSource(ledger(row("a", 100, TransactionType.INCOME)));
+        CachedTransactionSource cache = new CachedTransactionSource(remote, null, DIRECT);
+        TransactionColumns first = load(cache);
+
+        remote.failing = true;
+
+        assertSame(first, load(cache));
+    }
+
+    @Test
+    public void rangeReadsAreServedFromTheCache() {
+        CountingSource remote = new CountingSource(ledger(row("a", 100, TransactionType.INCOME),
+                row("b", 200, TransactionType.INCOME), row("c", 300, TransactionType.INCOME)));
+        CachedTransactionSource cache = new CachedTransactionSource(remote, null, DIRECT);
+
+        TransactionColumns[] range = new TransactionColumns[1];
+        cache.loadRange(150, 300, callback(range));
+
+        assertEquals(2, range[0].size());
+        assertEquals("b", range[0].key(0));
+    }
+
+    @Test
+    public void applyDeltaRequiresACachedFirstRow() {
+        CountingSource remote = new CountingSource(ledger(row("a", 100, TransactionType.INCOME), row("b", 200, TransactionType.INCOME)));
+        CachedTransactionSource cache = new CachedTransactionSource(remote, null, DIRECT);
+        load(cache);
+
+        TransactionColumns merged = cache.applyDelta(ledger(row("b", 200, TransactionType.INCOME), row("c", 300, TransactionType.INCOME)));
+        assertEquals(3, merged.size());
+        assertNull(cache.applyDelta(ledger(row("x", 250, TransactionType.INCOME))));
+    }
+
+    @Test
+    public void fileStoreRoundTripsEveryColumn() throws Exception {
+        File directory = folder.newFolder();
+        TransactionColumns columns = new TransactionColumns.Builder(2)
+                .addMinor("a", 100, 12_345, 1_234, TransactionType.INCOME, "EUR", "Salary")
+                .addMinor("b", 200, -5_000, 0, TransactionType.PENDING_WITHDRAWAL, "BGN", null)
+                .build();
+
+        new FileLedgerStore(directory, "user/1").write(columns);
+        TransactionColumns read = new FileLedgerStore(directory, "user/1").read();
+
+        assertEquals(2, read.size());
+        assertEquals("a", read.key(0));
+        assertEquals(12_345, read.amount(0));
+        assertEquals(1_234, read.savings(0));
+        assertEquals("EUR", read.currency(0));
+        assertEquals("Salary", read.description(0));
+        assertEquals(TransactionType.PENDING_WITHDRAWAL, read.type(1));
+        assertNull(read.description(1));
+        assertNull(new FileLedgerStore(directory, "someone-else").read());
+    }
+
+    @Test
+    public void fileStoreRewritesOnlyRowsAfterTheUnchangedOnes() throws Exception {
+        File directory = folder.newFolder();
+        FileLedgerStore store = new FileLedgerStore(directory, "u1");
+        store.write(ledger(row("a", 100, TransactionType.INCOME), row("w", 200, TransactionType.PENDING_WITHDRAWAL)));
+
+        // Row 0 differs on purpose: an append must leave the stored copy of it alone.
+        store.append(ledger(row("z", 100, TransactionType.INCOME), row("w", 200, TransactionType.WITHDRAWAL),
+                row("c", 300, TransactionType.INCOME)), 1);
+        TransactionColumns read = new FileLedgerStore(directory, "u1").read();
+
+        assertEquals(3, read.size());
+        assertEquals("a", read.key(0));
+        assertEquals(TransactionType.WITHDRAWAL, read.type(1));
+        assertEquals("c", read.key(2));
+    }
+
+    @Test
+    public void fileStoreKeepsNullKeysNull() throws Exception {
+        File directory = folder.newFolder();
+        new FileLedgerStore(directory, "u1").write(new TransactionColumns.Builder(1)
+                .addMinor(null, 100, 1_000, 100, TransactionType.INCOME, "BGN")
+                .build());
+
+        assertNull(new FileLedgerStore(directory, "u1").read().key(0));
+    }
+
+    private static TransactionColumns load(CachedTransactionSource cache) {
+        TransactionColumns[] result = new TransactionColumns[1];
+        cache.loadAll(callback(result));
+        return result[0];
+    }
+
+    private static TransactionSource.Callback callback(TransactionColumns[] result) {
+        return new TransactionSource.Callback() {
+            @Override
+            public void onLoaded(TransactionColumns columns) {
+                result[0] = columns;
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                throw new AssertionError(errorMessage);
+            }
+        };
+    }
+
+    private static Object[] row(String key, long timestamp, TransactionType type) {
+        return new Object[]{key, timestamp, type};
+    }
+
+    private static TransactionColumns ledger(Object[]... rows) {
+        TransactionColumns.Builder builder = new TransactionColumns.Builder(rows.length);
+        for (Object[] row : rows) {
+            builder.addMinor((String) row[0], (Long) row[1], 1_000, 100, (TransactionType) row[2], "BGN");
+        }
+        return builder.build();
+    }
+
+    /**
+     * In-memory stand-in for the Firebase source that counts full and delta reads.
+     */
+    private static final class CountingSource implements TransactionSource {
+        private final InMemoryTransactionSource delegate;
+        int fullLoads;
+        int deltaLoads;
+        int lastDeltaSize;
+        boolean failing;
+
+        CountingSource(TransactionColumns ledger) {
+            delegate = new InMemoryTransactionSource(ledger);
+        }
+
+        TransactionColumns getLedger() {
+            return delegate.getLedger();
+        }
+
+        void setLedger(TransactionColumns ledger) {
+            delegate.setLedger(ledger);
+        }
+
+        @Override
+        public void loadAll(Callback callback) {
+            if (failing) {
+                callback.onError("offline");
+                return;
+            }
+            fullLoads++;
+            delegate.loadAll(callback);
+        }
+
+        @Override
+        public void loadRange(long fromTimestamp, long toTimestamp, Callback callback) {
+            throw new AssertionError("range reads must be served from the cache");
+        }
+
+        @Override
+        public void loadFrom(long timestamp, String key, Callback callback) {
+            if (failing) {
+                callback.onError("offline");
+                return;
+            }
+            deltaLoads++;
+            delegate.loadFrom(timestamp, key, new Callback() {
+                @Override
+                public void onLoaded(TransactionColumns columns) {
+                    lastDeltaSize = columns.size();
+                    callback.onLoaded(columns);
+                }
+
+                @Override
+                public void onError(String errorMessage) {
+                    callback.onError(errorMessage);
+                }
+            });
+        }
+    }
+
+    private static final class MemoryStore implements LedgerStore {
+        TransactionColumns stored;
+
+        @Override
+        public TransactionColumns read() {
+            return stored;
+        }
+
+        @Override
+        public void write(TransactionColumns columns) {
+            stored = columns;
+        }
+
+        @Override
+        public void append(TransactionColumns columns, int unchangedRows) {
+            stored = columns;
+        }
+
+        @Override
+        public void clear() {
+            stored = null;
+        }
+    }
+}
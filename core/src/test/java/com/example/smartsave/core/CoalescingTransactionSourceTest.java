@@ -0,0 +1,175 @@
+package com.example.smartsave.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CoalescingTransactionSourceTest {
+
+    @Test
+    public void identicalConcurrentReadsShareOneQuery() {
+        DeferredSource remote = new DeferredSource(ledger("a", 100, "b", 200, "c", 300));
+        CoalescingTransactionSource source = new CoalescingTransactionSource(remote);
+
+        TransactionColumns[] first = new TransactionColumns[1];
+        TransactionColumns[] second = new TransactionColumns[1];
+        source.loadFrom(200, "b", callback(first));
+        source.loadFrom(200, "b", callback(second));
+        remote.completeAll();
+
+        assertEquals(1, remote.queries);
+        assertEquals(2, first[0].size());
+        assertEquals(2, second[0].size());
+        assertEquals(1, source.getIssuedReads());
+        assertEquals(1, source.getCoalescedReads());
+    }
+
+    @Test
+    public void containedReadsGetTheirOwnSlice() {
+        DeferredSource remote = new DeferredSource(ledger("a", 100, "b", 200, "c", 300));
+        CoalescingTransactionSource source = new CoalescingTransactionSource(remote);
+
+        TransactionColumns[] all = new TransactionColumns[1];
+        TransactionColumns[] range = new TransactionColumns[1];
+        TransactionColumns[] from = new TransactionColumns[1];
+        source.loadAll(callback(all));
+        source.loadRange(150, 250, callback(range));
+        source.loadFrom(300, "c", callback(from));
+        remote.completeAll();
+
+        assertEquals(1, remote.queries);
+        assertEquals(3, all[0].size());
+        assertEquals(1, range[0].size());
+        assertEquals("b", range[0].key(0));
+        assertEquals(1, from[0].size());
+        assertEquals("c", from[0].key(0));
+    }
+
+    @Test
+    public void readsOutsideAnInFlightQueryAreIssued() {
+        DeferredSource remote = new DeferredSource(ledger("a", 100, "b", 200, "c", 300));
+        CoalescingTransactionSource source = new CoalescingTransactionSource(remote);
+
+        source.loadFrom(200, "b", callback(new TransactionColumns[1]));
+        source.loadFrom(100, "a", callback(new TransactionColumns[1]));
+        source.loadRange(100, 300, callback(new TransactionColumns[1]));
+        remote.completeAll();
+
+        assertEquals(3, remote.queries);
+        assertEquals(0, source.getCoalescedReads());
+    }
+
+    @Test
+    public void completedQueriesAreNotJoined() {
+        DeferredSource remote = new DeferredSource(ledger("a", 100));
+        CoalescingTransactionSource source = new CoalescingTransactionSource(remote);
+
+        source.loadAll(callback(new TransactionColumns[1]));
+        remote.completeAll();
+        source.loadAll(callback(new TransactionColumns[1]));
+        remote.completeAll();
+
+        assertEquals(2, remote.queries);
+    }
+
+    @Test
+    public void errorsReachEveryWaiter() {
+        DeferredSource remote = new DeferredSource(ledger("a", 100));
+        CoalescingTransactionSource source = new CoalescingTransactionSource(remote);
+        List<String> errors = new ArrayList<>();
+        TransactionSource.Callback failing = new TransactionSource.Callback() {
+            @Override
+            public void onLoaded(TransactionColumns columns) {
+                throw new AssertionError("expected an error");
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                errors.add(errorMessage);
+            }
+        };
+
+        source.loadAll(failing);
+        source.loadAll(failing);
+        remote.failAll("offline");
+
+        assertEquals(2, errors.size());
+        assertEquals("offline", errors.get(1));
+        assertEquals(1, remote.queries);
+    }
+
+    private static TransactionSource.Callback callback(TransactionColumns[] result) {
+        return new TransactionSource.Callback() {
+            @Override
+            public void onLoaded(TransactionColumns columns) {
+                result[0] = columns;
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                throw new AssertionError(errorMessage);
+            }
+        };
+    }
+
+    private static TransactionColumns ledger(Object... keysAndTimestamps) {
+        TransactionColumns.Builder builder = new TransactionColumns.Builder(keysAndTimestamps.length / 2);
+        for (int i = 0; i < keysAndTimestamps.length; i += 2) {
+            builder.addMinor((String) keysAndTimestamps[i], ((Integer) keysAndTimestamps[i + 1]).longValue(),
+                    1_000, 100, TransactionType.INCOME, "BGN");
+        }
+        return builder.build();
+    }
+
+    /**
+     * Holds every query until the test completes it, the way a network round trip would.
+     */
+    private static final class DeferredSource implements TransactionSource {
+        private final InMemoryTransactionSource delegate;
+        final List<Runnable> pending = new ArrayList<>();
+        final List<Callback> pendingCallbacks = new ArrayList<>();
+        int queries;
+
+        DeferredSource(TransactionColumns ledger) {
+            delegate = new InMemoryTransactionSource(ledger);
+        }
+
+        @Override
+        public void loadAll(Callback callback) {
+            defer(callback, () -> delegate.loadAll(callback));
+        }
+
+        @Override
+        public void loadRange(long fromTimestamp, long toTimestamp, Callback callback) {
+            defer(callback, () -> delegate.loadRange(fromTimestamp, toTimestamp, callback));
+        }
+
+        @Override
+        public void loadFrom(long timestamp, String key, Callback callback) {
+            defer(callback, () -> delegate.loadFrom(timestamp, key, callback));
+        }
+
+        void completeAll() {
+            List<Runnable> queued = new ArrayList<>(pending);
+            pending.clear();
+            pendingCallbacks.clear();
+            for (Runnable query : queued) query.run();
+        }
+
+        void failAll(String errorMessage) {
+            List<Callback> queued = new ArrayList<>(pendingCallbacks);
+            pending.clear();
+            pendingCallbacks.clear();
+            for (Callback callback : queued) callback.onError(errorMessage);
+        }
+
+        private void defer(Callback callback, Runnable query) {
+            queries++;
+            pending.add(query);
+            pendingCallbacks.add(callback);
+        }
+    }
+}
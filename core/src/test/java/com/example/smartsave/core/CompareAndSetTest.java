@@ -0,0 +1,33 @@
+package com.example.smartsave.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompareAndSetTest {
+
+    @Test
+    public void nullOnTheFirstLocalRunAsksTheServerInsteadOfAborting() {
+        assertEquals(CompareAndSet.Step.ASK_SERVER, CompareAndSet.step(null, 12_50));
+    }
+
+    @Test
+    public void theServerValueThenDecides() {
+        assertEquals(CompareAndSet.Step.WRITE, CompareAndSet.step(12.5, 12_50));
+        assertEquals(CompareAndSet.Step.ABORT, CompareAndSet.step(12.49, 12_50));
+    }
+
+    @Test
+    public void missingAmountCountsAsZero() {
+        assertEquals(CompareAndSet.Step.WRITE, CompareAndSet.step(null, 0));
+        assertTrue(CompareAndSet.swapped(null, 0));
+    }
+
+    @Test
+    public void commitOfAnUntouchedNullIsNotASwap() {
+        assertFalse(CompareAndSet.swapped(null, 12_50));
+        assertTrue(CompareAndSet.swapped(0.0, 12_50));
+    }
+}
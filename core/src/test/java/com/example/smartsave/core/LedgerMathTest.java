@@ -0,0 +1,46 @@
+package com.example.smartsave.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class LedgerMathTest {
+
+    // Spans several cancellation chunks, with a window that starts and ends mid-chunk.
+    private static final int ROWS = LedgerMath.CANCELLATION_CHECK_ROWS * 3 + 17;
+
+    private static TransactionColumns ledger() {
+        TransactionColumns.Builder builder = new TransactionColumns.Builder(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            TransactionType type = i % 3 == 0 ? TransactionType.INTEREST_PAYMENT
+                    : i % 3 == 1 ? TransactionType.INCOME : TransactionType.EXPENSE;
+            builder.addMinor("k" + i, i, 100 + i, i % 7, type, "BGN");
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void cancellableScansMatchThePlainOnes() {
+        TransactionColumns columns = ledger();
+        long from = 1_000;
+        long to = ROWS - 1_000;
+        CancellationToken token = new CancellationToken();
+
+        assertEquals(LedgerMath.interest(columns, from, to), LedgerMath.interest(columns, from, to, token));
+        assertEquals(LedgerMath.progress(columns, from, to), LedgerMath.progress(columns, from, to, token));
+        assertEquals(0, LedgerMath.progress(columns, ROWS, ROWS + 10, token));
+    }
+
+    @Test
+    public void cancelledScansThrow() {
+        TransactionColumns columns = ledger();
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+
+        assertThrows(CancellationException.class, () -> LedgerMath.interest(columns, 0, ROWS, token));
+        assertThrows(CancellationException.class, () -> LedgerMath.progress(columns, 0, ROWS, token));
+    }
+}
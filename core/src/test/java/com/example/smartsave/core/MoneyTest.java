@@ -0,0 +1,60 @@
+package com.example.smartsave.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class MoneyTest {
+
+    @Test
+    public void minorUnitsRoundTripThroughTheirDecimal() {
+        // Up to 2^52 minor units every amount has its own double, so the round trip is exact.
+        long[] samples = {0L, 1L, -1L, 5L, 10L, 99L, 12_345L, -12_345L, 1_000_000_07L,
+                999_999_999_999L, -999_999_999_999L, 4_503_599_627_370_495L};
+        for (long minor : samples) {
+            assertEquals(Long.toString(minor), minor, Money.toMinorUnits(Money.toMajorUnits(minor)));
+        }
+        for (long minor = -100_000; minor <= 100_000; minor++) {
+            assertEquals(Long.toString(minor), minor, Money.toMinorUnits(Money.toMajorUnits(minor)));
+        }
+    }
+
+    @Test
+    public void decimalsWithTwoPlacesConvertExactly() {
+        assertEquals(10L, Money.toMinorUnits(0.1));
+        assertEquals(30L, Money.toMinorUnits(0.1 + 0.2));
+        assertEquals(-1_999L, Money.toMinorUnits(-19.99));
+        assertEquals(1_234_567_891_234L, Money.toMinorUnits(12_345_678_912.34));
+    }
+
+    @Test
+    public void finerDecimalsRoundHalfEven() {
+        assertEquals(0L, Money.toMinorUnits(0.005));
+        assertEquals(2L, Money.toMinorUnits(0.015));
+        assertEquals(2L, Money.toMinorUnits(0.025));
+        assertEquals(-2L, Money.toMinorUnits(-0.025));
+        assertEquals(1L, Money.toMinorUnits(0.0051));
+    }
+
+    @Test
+    public void nonFiniteAmountsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Money.toMinorUnits(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> Money.toMinorUnits(Double.POSITIVE_INFINITY));
+        assertThrows(ArithmeticException.class, () -> Money.toMinorUnits(1e300));
+    }
+
+    @Test
+    public void arithmeticOverflowThrowsInsteadOfWrapping() {
+        assertThrows(ArithmeticException.class, () -> Money.add(Long.MAX_VALUE, 1L));
+        assertThrows(ArithmeticException.class, () -> Money.subtract(Long.MIN_VALUE, 1L));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MIN_VALUE, "BGN").negate());
+
+        TransactionColumns columns = new TransactionColumns.Builder(2)
+                .addMinor("a", 100, 0, Long.MAX_VALUE, TransactionType.INCOME, "BGN")
+                .addMinor("b", 200, 0, 1, TransactionType.INCOME, "BGN")
+                .build();
+        assertThrows(ArithmeticException.class, () -> columns.sumBalance(0, 2));
+        assertThrows(ArithmeticException.class, () -> columns.cumulativeBalances(new long[]{300}));
+    }
+}
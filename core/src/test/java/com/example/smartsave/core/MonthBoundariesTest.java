@@ -0,0 +1,40 @@
+package com.example.smartsave.core;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+public class MonthBoundariesTest {
+
+    @Test
+    public void everyMonthFrom1600To2400MatchesGregorianCalendar() {
+        GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        // Proleptic Gregorian throughout, as MonthBoundaries is.
+        calendar.setGregorianChange(new Date(Long.MIN_VALUE));
+        calendar.clear();
+        for (int year = 1600; year <= 2400; year++) {
+            for (int month = 1; month <= 12; month++) {
+                calendar.set(year, month - 1, 1, 0, 0, 0);
+                long start = calendar.getTimeInMillis();
+                calendar.add(Calendar.MONTH, 1);
+                long nextStart = calendar.getTimeInMillis();
+                int index = MonthBoundaries.index(year, month);
+                String at = year + "-" + month;
+
+                assertEquals(at, start, MonthBoundaries.monthStart(year, month));
+                assertEquals(at, nextStart - 1, MonthBoundaries.monthEnd(year, month));
+                assertEquals(at, year, MonthBoundaries.yearOf(index));
+                assertEquals(at, month, MonthBoundaries.monthOf(index));
+                assertEquals(at, index, MonthBoundaries.indexOf(start));
+                assertEquals(at, index, MonthBoundaries.indexOf(nextStart - 1));
+                assertEquals(at, index - 1, MonthBoundaries.indexOf(start - 1));
+                assertEquals(at, index, MonthBoundaries.indexOf(start + (nextStart - start) / 2));
+            }
+        }
+    }
+}
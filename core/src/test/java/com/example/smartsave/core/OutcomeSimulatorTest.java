@@ -0,0 +1,36 @@
+package com.example.smartsave.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+public class OutcomeSimulatorTest {
+
+    private static final long[] CONTRIBUTIONS = {10_000, 25_000, 0, -5_000, 40_000};
+    private static final double[] RATES = {0.0, 0.001, 0.0025, 0.004};
+
+    @Test
+    public void resultsDependOnTheSeedAloneNotThePool() {
+        int months = 60;
+        // Several blocks, so the common pool really does split the work.
+        int trajectories = 5_000;
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            OutcomeSimulator.Bands sequential = OutcomeSimulator.simulate(100_000, CONTRIBUTIONS, RATES,
+                    months, trajectories, 42L, single);
+            OutcomeSimulator.Bands parallel = OutcomeSimulator.simulate(100_000, CONTRIBUTIONS, RATES,
+                    months, trajectories, 42L, ForkJoinPool.commonPool());
+
+            assertEquals(months, parallel.getMonths());
+            for (int month = 1; month <= months; month++) {
+                assertEquals("p10 month " + month, sequential.getP10Minor(month), parallel.getP10Minor(month));
+                assertEquals("p50 month " + month, sequential.getP50Minor(month), parallel.getP50Minor(month));
+                assertEquals("p90 month " + month, sequential.getP90Minor(month), parallel.getP90Minor(month));
+            }
+        } finally {
+            single.shutdown();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.smartsave.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class ProjectionEngineTest {
+
+    @Test
+    public void closedFormMatchesMonthByMonthCompounding() {
+        double[] rates = {0.001, 0.025, 0.05, 0.12};
+        for (ProjectionEngine.Compounding compounding : ProjectionEngine.Compounding.values()) {
+            for (double rate : rates) {
+                for (int months : new int[]{ProjectionEngine.MIN_MONTHS, 120, ProjectionEngine.MAX_MONTHS}) {
+                    ProjectionEngine.Projection projection =
+                            ProjectionEngine.project(1_234_567, rate, compounding, 25_000, months);
+
+                    double growth = compounding.monthlyGrowthFactor(rate);
+                    double balance = 1_234_567;
+                    assertEquals(months, projection.getMonths());
+                    for (int month = 1; month <= months; month++) {
+                        balance = balance * growth + 25_000;
+                        // The two orders of evaluation differ only in rounding: at most a minor unit.
+                        assertEquals(compounding + " " + rate + " month " + month,
+                                balance, projection.getBalanceMinor(month), Math.max(1.0, balance * 1e-12));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void zeroRateOnlyAddsContributions() {
+        for (ProjectionEngine.Compounding compounding : ProjectionEngine.Compounding.values()) {
+            ProjectionEngine.Projection projection =
+                    ProjectionEngine.project(100_000, 0.0, compounding, 12_345, ProjectionEngine.MAX_MONTHS);
+            for (int month = 1; month <= ProjectionEngine.MAX_MONTHS; month++) {
+                assertEquals(100_000 + 12_345L * month, projection.getBalanceMinor(month));
+                assertEquals(0L, projection.getInterestEarnedMinor(month));
+            }
+        }
+    }
+
+    @Test
+    public void horizonIsLimitedToSixThroughThreeHundredSixtyMonths() {
+        ProjectionEngine.Compounding monthly = ProjectionEngine.Compounding.MONTHLY;
+        assertEquals(6, ProjectionEngine.project(0, 0.03, monthly, 100, 6).getMonths());
+        assertEquals(360, ProjectionEngine.project(0, 0.03, monthly, 100, 360).getMonths());
+        assertThrows(IllegalArgumentException.class, () -> ProjectionEngine.project(0, 0.03, monthly, 100, 5));
+        assertThrows(IllegalArgumentException.class, () -> ProjectionEngine.project(0, 0.03, monthly, 100, 361));
+        assertThrows(IllegalArgumentException.class, () -> ProjectionEngine.project(0, -0.01, monthly, 100, 12));
+        assertThrows(IllegalArgumentException.class, () -> ProjectionEngine.project(0, Double.NaN, monthly, 100, 12));
+    }
+}
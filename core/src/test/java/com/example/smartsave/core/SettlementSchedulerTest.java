@@ -0,0 +1,226 @@
+package com.example.smartsave.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SettlementSchedulerTest {
+
+    private static final long DAY = MonthBoundaries.DAY_MILLIS;
+
+    @Test
+    public void catchesUpOnEverythingDueInOnePass() {
+        FakeClock clock = new FakeClock(10 * DAY);
+        MemoryStore store = new MemoryStore();
+        // 5000 fell due during ten days of downtime; 7 are due tomorrow.
+        for (int i = 0; i < 5000; i++) store.queue("w" + i, 100, i * (10 * DAY / 5000));
+        for (int i = 0; i < 7; i++) store.queue("later" + i, 100, 11 * DAY + i);
+
+        SettlementScheduler.Result result = run(new SettlementScheduler(store, clock, 100));
+
+        assertEquals(5000, result.getSettled());
+        assertEquals(50, result.getBatches());
+        assertEquals(50, store.commits);
+        assertEquals(5000, store.settled.size());
+        assertEquals(7, store.queued.size());
+        assertEquals(11 * DAY, result.getNextDueAt());
+    }
+
+    @Test
+    public void settlesEntriesOnceTheClockReachesThem() {
+        FakeClock clock = new FakeClock(0);
+        MemoryStore store = new MemoryStore();
+        store.queue("a", 100, DAY);
+        store.queue("b", 250, 2 * DAY);
+        SettlementScheduler scheduler = new SettlementScheduler(store, clock, 10);
+
+        SettlementScheduler.Result early = run(scheduler);
+        assertEquals(0, early.getSettled());
+        assertEquals(DAY, early.getNextDueAt());
+
+        clock.now = DAY;
+        SettlementScheduler.Result first = run(scheduler);
+        assertEquals(1, first.getSettled());
+        assertEquals("a", store.settled.get(0).getKey());
+        assertEquals(2 * DAY, first.getNextDueAt());
+
+        clock.now = 3 * DAY;
+        SettlementScheduler.Result rest = run(scheduler);
+        assertEquals(1, rest.getSettled());
+        assertEquals(SettlementScheduler.NOTHING_QUEUED, rest.getNextDueAt());
+    }
+
+    @Test
+    public void aFailedBatchStaysQueued() {
+        FakeClock clock = new FakeClock(DAY);
+        MemoryStore store = new MemoryStore();
+        for (int i = 0; i < 30; i++) store.queue("w" + i, 100, i);
+        store.failOnCommit = 1;
+        String[] error = new String[1];
+
+        new SettlementScheduler(store, clock, 10).runDue(new SettlementScheduler.Callback() {
+            @Override
+            public void onComplete(SettlementScheduler.Result result) {
+                throw new AssertionError("expected an error");
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                error[0] = errorMessage;
+            }
+        });
+
+        assertEquals("offline", error[0]);
+        assertEquals(10, store.settled.size());
+        assertEquals(20, store.queued.size());
+
+        store.failOnCommit = -1;
+        SettlementScheduler.Result retry = run(new SettlementScheduler(store, clock, 10));
+        assertEquals(20, retry.getSettled());
+        assertEquals(0, store.queued.size());
+    }
+
+    @Test
+    public void passesFinishWhenTheStoreCompletesOnOtherThreads() throws Exception {
+        ExecutorService storeThreads = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 200; round++) {
+                MemoryStore memory = new MemoryStore();
+                for (int i = 0; i < 50; i++) memory.queue("w" + i, 100, i);
+                SettlementScheduler scheduler = new SettlementScheduler(new ThreadedStore(memory, storeThreads),
+                        new FakeClock(DAY), 5);
+                CountDownLatch done = new CountDownLatch(1);
+                int[] settled = new int[1];
+
+                scheduler.runDue(new SettlementScheduler.Callback() {
+                    @Override
+                    public void onComplete(SettlementScheduler.Result result) {
+                        settled[0] = result.getSettled();
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onError(String errorMessage) {
+                        throw new AssertionError(errorMessage);
+                    }
+                });
+
+                assertTrue(done.await(10, TimeUnit.SECONDS));
+                assertEquals(50, settled[0]);
+                // The pass is over, so a new call starts another one instead of joining it.
+                assertEquals(0, run(scheduler).getSettled());
+            }
+        } finally {
+            storeThreads.shutdownNow();
+        }
+    }
+
+    private static SettlementScheduler.Result run(SettlementScheduler scheduler) {
+        SettlementScheduler.Result[] result = new SettlementScheduler.Result[1];
+        scheduler.runDue(new SettlementScheduler.Callback() {
+            @Override
+            public void onComplete(SettlementScheduler.Result completed) {
+                result[0] = completed;
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                throw new AssertionError(errorMessage);
+            }
+        });
+        return result[0];
+    }
+
+    private static final class FakeClock implements Clock {
+        long now;
+
+        FakeClock(long now) {
+            this.now = now;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+    }
+
+    /**
+     * Completes loads on the caller's thread and commits on a pool thread, so a commit's
+     * callback can race the loop that issued the load.
+     */
+    private static final class ThreadedStore implements SettlementScheduler.Store {
+        private final MemoryStore delegate;
+        private final ExecutorService threads;
+
+        ThreadedStore(MemoryStore delegate, ExecutorService threads) {
+            this.delegate = delegate;
+            this.threads = threads;
+        }
+
+        @Override
+        public void loadEarliest(int limit, LoadCallback callback) {
+            synchronized (delegate) {
+                delegate.loadEarliest(limit, callback);
+            }
+        }
+
+        @Override
+        public void commit(List<SettlementScheduler.Settlement> batch, CommitCallback callback) {
+            threads.execute(() -> {
+                synchronized (delegate) {
+                    delegate.queued.removeAll(batch);
+                    delegate.settled.addAll(batch);
+                }
+                callback.onCommitted();
+            });
+        }
+    }
+
+    /**
+     * Queue ordered by due time, completing every call synchronously.
+     */
+    private static final class MemoryStore implements SettlementScheduler.Store {
+        final TreeSet<SettlementScheduler.Settlement> queued = new TreeSet<>(
+                Comparator.comparingLong(SettlementScheduler.Settlement::getDueAt)
+                        .thenComparing(SettlementScheduler.Settlement::getKey));
+        final List<SettlementScheduler.Settlement> settled = new ArrayList<>();
+        int commits;
+        // 0-based commit that fails, or -1.
+        int failOnCommit = -1;
+
+        void queue(String key, long amountMinor, long dueAt) {
+            queued.add(new SettlementScheduler.Settlement(key, amountMinor, dueAt));
+        }
+
+        @Override
+        public void loadEarliest(int limit, LoadCallback callback) {
+            List<SettlementScheduler.Settlement> earliest = new ArrayList<>(limit);
+            for (SettlementScheduler.Settlement settlement : queued) {
+                if (earliest.size() == limit) break;
+                earliest.add(settlement);
+            }
+            callback.onLoaded(earliest);
+        }
+
+        @Override
+        public void commit(List<SettlementScheduler.Settlement> batch, CommitCallback callback) {
+            if (commits++ == failOnCommit) {
+                callback.onError("offline");
+                return;
+            }
+            queued.removeAll(batch);
+            settled.addAll(batch);
+            callback.onCommitted();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.smartsave.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TransactionColumnsTest {
+
+    @Test
+    public void builtColumnsAreUnaffectedByReusingTheBuilder() {
+        TransactionColumns.Builder builder = new TransactionColumns.Builder(2)
+                .addMinor("b", 200, 2_000, 200, TransactionType.INCOME, "BGN")
+                .addMinor("c", 300, 3_000, 300, TransactionType.INCOME, "EUR");
+        TransactionColumns first = builder.build();
+
+        // Out of order, so the second build sorts the builder's rows.
+        TransactionColumns second = builder.addMinor("a", 100, 1_000, 100, TransactionType.EXPENSE, "USD").build();
+
+        assertEquals(2, first.size());
+        assertEquals("b", first.key(0));
+        assertEquals(200, first.timestamp(0));
+        assertEquals("BGN", first.currency(0));
+        assertEquals("c", first.key(1));
+        assertEquals(3, second.size());
+        assertEquals("a", second.key(0));
+        assertEquals("USD", second.currency(0));
+    }
+
+    @Test
+    public void appendRemapsCurrenciesOfTheTail() {
+        TransactionColumns head = new TransactionColumns.Builder(2)
+                .addMinor("a", 100, 1_000, 100, TransactionType.INCOME, "EUR")
+                .addMinor("b", 200, 1_000, 100, TransactionType.INCOME, "BGN")
+                .build();
+        TransactionColumns tail = new TransactionColumns.Builder(2)
+                .addMinor("b", 200, 1_000, 100, TransactionType.INCOME, "USD")
+                .addMinor("c", 300, 1_000, 100, TransactionType.INCOME, "EUR")
+                .build();
+
+        TransactionColumns merged = head.append(1, tail);
+
+        assertEquals(3, merged.size());
+        assertEquals("EUR", merged.currency(0));
+        assertEquals("USD", merged.currency(1));
+        assertEquals("EUR", merged.currency(2));
+        assertEquals("c", merged.key(2));
+        assertEquals(300, merged.sumBalance(0, 3));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.smartsave.core;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+
+public class TransactionFormatTest {
+
+    // Up to 2^52 minor units the major-unit double is exact enough for "%.2f" to print every cent.
+    private static final long EXACT_LIMIT = 1L << 52;
+
+    @Test
+    public void appendDecimalMatchesPercentTwoF() {
+        for (long minor = -100_000; minor <= 100_000; minor++) {
+            assertMatchesFormat(minor);
+        }
+        SplittableRandom random = new SplittableRandom(7L);
+        for (int i = 0; i < 100_000; i++) {
+            assertMatchesFormat(random.nextLong(-EXACT_LIMIT, EXACT_LIMIT + 1));
+        }
+        assertMatchesFormat(EXACT_LIMIT);
+        assertMatchesFormat(-EXACT_LIMIT);
+    }
+
+    @Test
+    public void amountsWithAThirdDecimalRoundOnceOnTheWayIn() {
+        // The old text formatted the same minor units, so both paths see one rounding step.
+        double[] amounts = {0.005, -0.005, 0.015, 0.025, 1.005, 2.675, -2.675, 10.125, 99.995, 12_345_678.905};
+        for (double amount : amounts) {
+            long minor = Money.toMinorUnits(amount);
+            assertMatchesFormat(minor);
+        }
+        assertEquals("0.00", decimal(Money.toMinorUnits(0.005)));
+        assertEquals("0.02", decimal(Money.toMinorUnits(0.015)));
+        assertEquals("-2.68", decimal(Money.toMinorUnits(-2.675)));
+    }
+
+    @Test
+    public void extremesBeyondDoublePrecisionAreStillExact() {
+        assertEquals(BigDecimal.valueOf(Long.MAX_VALUE, 2).toPlainString(), decimal(Long.MAX_VALUE));
+        assertEquals(BigDecimal.valueOf(Long.MIN_VALUE, 2).toPlainString(), decimal(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void savingsImpactKeepsItsSignPrefixes() {
+        assertEquals("+ 1.20 BGN", TransactionFormat.savingsImpact(TransactionType.INCOME, 24_00, 1_20, "BGN"));
+        assertEquals("-0.05 EUR", TransactionFormat.savingsImpact(TransactionType.EXPENSE, 1_00, -5, "EUR"));
+        assertEquals("- 12.00 BGN", TransactionFormat.savingsImpact(TransactionType.WITHDRAWAL, -12_00, 0, "BGN"));
+        assertEquals("Amount: -0.01 BGN", TransactionFormat.displayAmount(TransactionType.EXPENSE, -1, "BGN"));
+    }
+
+    private static void assertMatchesFormat(long minor) {
+        assertEquals(Long.toString(minor), String.format(Locale.US, "%.2f", Money.toMajorUnits(minor)), decimal(minor));
+    }
+
+    private static String decimal(long minor) {
+        return TransactionFormat.appendDecimal(new StringBuilder(), minor).toString();
+    }
+}